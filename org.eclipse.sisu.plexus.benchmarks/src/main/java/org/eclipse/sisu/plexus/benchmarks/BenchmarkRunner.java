@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so results include allocation rates next to throughput and latency.
+ * <p>
+ * Accepts the usual JMH command-line options, for example:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar LookupBenchmark -p visibility=realm
+ * </pre>
+ */
+public final class BenchmarkRunner
+{
+    private BenchmarkRunner()
+    {
+        // static utility class, not allowed to create instances
+    }
+
+    public static void main( final String[] args )
+        throws Exception
+    {
+        final CommandLineOptions commandLine = new CommandLineOptions( args );
+        new Runner( new OptionsBuilder().parent( commandLine ).addProfiler( GCProfiler.class ).build() ).run();
+    }
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.classworlds.ClassWorld;
+import org.codehaus.plexus.classworlds.realm.ClassRealm;
+import org.codehaus.plexus.component.configurator.BasicComponentConfigurator;
+import org.codehaus.plexus.component.configurator.ComponentConfigurator;
+import org.codehaus.plexus.component.configurator.expression.DefaultExpressionEvaluator;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
+import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.eclipse.sisu.plexus.benchmarks.Fixtures.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link BasicComponentConfigurator#configureComponent} over configuration trees of increasing depth.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ConfiguratorBenchmark
+{
+    @Param( { "1", "4", "8" } )
+    public int depth;
+
+    private final ComponentConfigurator configurator = new BasicComponentConfigurator();
+
+    private final ExpressionEvaluator evaluator = new DefaultExpressionEvaluator();
+
+    private PlexusConfiguration configuration;
+
+    private ClassRealm realm;
+
+    @Setup( Level.Trial )
+    public void setUp()
+        throws Exception
+    {
+        configuration = Fixtures.nodeConfiguration( "configuration", depth );
+        realm = new ClassWorld( "configurator", getClass().getClassLoader() ).getRealm( "configurator" );
+    }
+
+    @Benchmark
+    public Object configureComponent()
+        throws Exception
+    {
+        final Node node = new Node();
+        configurator.configureComponent( node, configuration, evaluator, realm );
+        return node;
+    }
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.ContainerConfiguration;
+import org.codehaus.plexus.DefaultContainerConfiguration;
+import org.codehaus.plexus.DefaultPlexusContainer;
+import org.codehaus.plexus.PlexusConstants;
+import org.codehaus.plexus.classworlds.ClassWorld;
+import org.codehaus.plexus.classworlds.realm.ClassRealm;
+import org.codehaus.plexus.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DefaultPlexusContainer} construction over a number of synthetic {@code components.xml} files.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ContainerBootBenchmark
+{
+    @Param( { "1", "10", "100" } )
+    public int files;
+
+    @Param( { "10" } )
+    public int componentsPerFile;
+
+    private File root;
+
+    private File[] folders;
+
+    @Setup( Level.Trial )
+    public void setUp()
+        throws Exception
+    {
+        root = Fixtures.tempDir( "plexus-boot" );
+        folders = new File[files];
+        for ( int i = 0; i < files; i++ )
+        {
+            folders[i] = new File( root, "jar" + i );
+            Fixtures.writeComponentsXml( folders[i], "file" + i + '-', componentsPerFile );
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( root );
+    }
+
+    @Benchmark
+    public Object boot()
+        throws Exception
+    {
+        final ClassWorld world = new ClassWorld( "boot", getClass().getClassLoader() );
+        final ClassRealm realm = world.getRealm( "boot" );
+        for ( final File folder : folders )
+        {
+            realm.addURL( folder.toURI().toURL() );
+        }
+
+        final ContainerConfiguration configuration = new DefaultContainerConfiguration();
+        configuration.setClassWorld( world ).setRealm( realm );
+        configuration.setClassPathScanning( PlexusConstants.SCANNING_OFF );
+
+        final DefaultPlexusContainer container = new DefaultPlexusContainer( configuration );
+        try
+        {
+            return container.getComponentDescriptorList( Fixtures.Service.class.getName() );
+        }
+        finally
+        {
+            container.dispose();
+            world.disposeRealm( "boot" );
+        }
+    }
+}
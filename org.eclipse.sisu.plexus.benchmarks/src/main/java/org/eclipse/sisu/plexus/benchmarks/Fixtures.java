@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.plexus.configuration.DefaultPlexusConfiguration;
+import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Synthetic components and configuration shared by the benchmarks.
+ */
+final class Fixtures
+{
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    private Fixtures()
+    {
+        // static utility class, not allowed to create instances
+    }
+
+    // ----------------------------------------------------------------------
+    // Utility methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * @return New temporary directory
+     */
+    static File tempDir( final String prefix )
+        throws IOException
+    {
+        final File dir = File.createTempFile( prefix, "" );
+        if ( !dir.delete() || !dir.mkdirs() )
+        {
+            throw new IOException( "Cannot create directory: " + dir );
+        }
+        return dir;
+    }
+
+    /**
+     * Writes a {@code META-INF/plexus/components.xml} under the given class folder declaring {@link Service}s.
+     *
+     * @param folder The class folder
+     * @param hintPrefix The prefix for component hints
+     * @param count The number of components
+     */
+    static void writeComponentsXml( final File folder, final String hintPrefix, final int count )
+        throws IOException
+    {
+        final StringBuilder buf = new StringBuilder( "<component-set>\n  <components>\n" );
+        for ( int i = 0; i < count; i++ )
+        {
+            buf.append( "    <component>\n" );
+            buf.append( "      <role>" ).append( Service.class.getName() ).append( "</role>\n" );
+            buf.append( "      <role-hint>" ).append( hintPrefix ).append( i ).append( "</role-hint>\n" );
+            buf.append( "      <implementation>" ).append( DefaultService.class.getName() );
+            buf.append( "</implementation>\n" );
+            buf.append( "      <configuration>\n" );
+            buf.append( "        <name>" ).append( hintPrefix ).append( i ).append( "</name>\n" );
+            buf.append( "      </configuration>\n" );
+            buf.append( "    </component>\n" );
+        }
+        buf.append( "  </components>\n</component-set>\n" );
+
+        final File xmlFile = new File( folder, "META-INF/plexus/components.xml" );
+        FileUtils.forceMkdir( xmlFile.getParentFile() );
+        FileUtils.fileWrite( xmlFile, "UTF-8", buf.toString() );
+    }
+
+    /**
+     * Builds a configuration tree for {@link Node} of the given depth, with two children per node.
+     *
+     * @param name The element name
+     * @param depth The tree depth
+     * @return Plexus configuration
+     */
+    static PlexusConfiguration nodeConfiguration( final String name, final int depth )
+    {
+        final DefaultPlexusConfiguration node = new DefaultPlexusConfiguration( name );
+        node.addChild( "name", name + depth );
+        node.addChild( "weight", Integer.toString( depth ) );
+        final PlexusConfiguration properties = node.getChild( "properties" );
+        properties.addChild( "alpha", "A" + depth );
+        properties.addChild( "beta", "B" + depth );
+        if ( depth > 1 )
+        {
+            final PlexusConfiguration children = node.getChild( "children" );
+            children.addChild( nodeConfiguration( "child", depth - 1 ) );
+            children.addChild( nodeConfiguration( "child", depth - 1 ) );
+        }
+        return node;
+    }
+
+    /**
+     * Builds Plexus XML for {@link Node} of the given depth, with two children per node.
+     *
+     * @param name The element name
+     * @param depth The tree depth
+     * @return Plexus XML
+     */
+    static String nodeXml( final String name, final int depth )
+    {
+        final StringBuilder buf = new StringBuilder();
+        appendNodeXml( buf, name, depth );
+        return buf.toString();
+    }
+
+    private static void appendNodeXml( final StringBuilder buf, final String name, final int depth )
+    {
+        buf.append( '<' ).append( name ).append( '>' );
+        buf.append( "<name>" ).append( name ).append( depth ).append( "</name>" );
+        buf.append( "<weight>" ).append( depth ).append( "</weight>" );
+        buf.append( "<properties><alpha>A" ).append( depth ).append( "</alpha><beta>B" ).append( depth );
+        buf.append( "</beta></properties>" );
+        if ( depth > 1 )
+        {
+            buf.append( "<children>" );
+            appendNodeXml( buf, "child", depth - 1 );
+            appendNodeXml( buf, "child", depth - 1 );
+            buf.append( "</children>" );
+        }
+        buf.append( "</" ).append( name ).append( '>' );
+    }
+
+    // ----------------------------------------------------------------------
+    // Fixture types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Role of the synthetic components.
+     */
+    public interface Service
+    {
+        String name();
+    }
+
+    /**
+     * Implementation of the synthetic components.
+     */
+    public static class DefaultService
+        implements Service
+    {
+        private String name;
+
+        public String name()
+        {
+            return name;
+        }
+    }
+
+    /**
+     * Bean configured from deep configuration trees.
+     */
+    public static final class Node
+    {
+        String name;
+
+        int weight;
+
+        Map<String, String> properties;
+
+        List<Node> children;
+    }
+}
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.Disposable;
+import org.eclipse.sisu.plexus.PlexusLifecycleManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures lifecycle bookkeeping for per-lookup components that are managed and then released straight away, while
+ * other components stay resident.
+ * <p>
+ * Compares {@link PlexusLifecycleManager} against the synchronized {@link ArrayDeque} bookkeeping it used to have.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class LifecycleBenchmark
+{
+    /**
+     * Bookkeeping shared by all benchmark threads, already holding resident components.
+     */
+    @State( Scope.Benchmark )
+    public static class BookkeepingState
+    {
+        @Param( { "deque", "registry" } )
+        public String bookkeeping;
+
+        @Param( { "100", "1000" } )
+        public int resident;
+
+        Bookkeeping beans;
+
+        @Setup( Level.Trial )
+        public void setUp()
+        {
+            beans = "deque".equals( bookkeeping ) ? new DequeBookkeeping() : new ManagerBookkeeping();
+            for ( int i = 0; i < resident; i++ )
+            {
+                beans.manage( new Component() );
+            }
+        }
+
+        @TearDown( Level.Trial )
+        public void tearDown()
+        {
+            beans.unmanage();
+        }
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public Object manageAndRelease( final BookkeepingState state )
+    {
+        final Component component = new Component();
+        state.beans.manage( component );
+        state.beans.unmanage( component );
+        return component;
+    }
+
+    @Benchmark
+    @Threads( 4 )
+    public Object manageAndReleaseContended( final BookkeepingState state )
+    {
+        final Component component = new Component();
+        state.beans.manage( component );
+        state.beans.unmanage( component );
+        return component;
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Per-lookup component with a no-op disposal.
+     */
+    static final class Component
+        implements Disposable
+    {
+        public void dispose()
+        {
+            // nothing to release
+        }
+    }
+
+    interface Bookkeeping
+    {
+        void manage( Object bean );
+
+        void unmanage( Object bean );
+
+        void unmanage();
+    }
+
+    /**
+     * Current bookkeeping, through the lifecycle manager.
+     */
+    static final class ManagerBookkeeping
+        implements Bookkeeping
+    {
+        private final PlexusLifecycleManager manager = new PlexusLifecycleManager( null, null, null, null );
+
+        public void manage( final Object bean )
+        {
+            manager.manage( bean );
+        }
+
+        public void unmanage( final Object bean )
+        {
+            manager.unmanage( bean );
+        }
+
+        public void unmanage()
+        {
+            manager.unmanage();
+        }
+    }
+
+    /**
+     * Previous bookkeeping: a monitor-guarded deque with a linear scan on every release.
+     */
+    static final class DequeBookkeeping
+        implements Bookkeeping
+    {
+        private final Deque<Disposable> disposableBeans = new ArrayDeque<Disposable>();
+
+        public void manage( final Object bean )
+        {
+            synchronized ( disposableBeans )
+            {
+                disposableBeans.addLast( (Disposable) bean );
+            }
+        }
+
+        public void unmanage( final Object bean )
+        {
+            final boolean removed;
+            synchronized ( disposableBeans )
+            {
+                removed = disposableBeans.remove( bean );
+            }
+            if ( removed )
+            {
+                ( (Disposable) bean ).dispose();
+            }
+        }
+
+        public void unmanage()
+        {
+            for ( Disposable bean;; )
+            {
+                synchronized ( disposableBeans )
+                {
+                    bean = disposableBeans.pollLast();
+                }
+                if ( null == bean )
+                {
+                    break;
+                }
+                bean.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus.benchmarks;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.ContainerConfiguration;
+import org.codehaus.plexus.DefaultContainerConfiguration;
+import org.codehaus.plexus.DefaultPlexusContainer;
+import org.codehaus.plexus.PlexusConstants;
+import org.codehaus.plexus.classworlds.ClassWorld;
+import org.codehaus.plexus.classworlds.realm.ClassRealm;
+import org.codehaus.plexus.util.FileUtils;
+import org.eclipse.sisu.plexus.benchmarks.Fixtures.Service;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures component lookups by {@link Class} and by role name, with and without realm visibility.
+ * <p>
+ * The container realm and a child plugin realm each declare their own components; the plugin realm can be selected
+ * as the lookup and context realm to exercise realm filtering, which is driven by the context realm.
+ */
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class LookupBenchmark
+{
+    private static final String ROLE = Service.class.getName();
+
+    /**
+     * Container shared by all benchmark threads.
+     */
+    @State( Scope.Benchmark )
+    public static class ContainerState
+    {
+        @Param( { PlexusConstants.REALM_VISIBILITY, PlexusConstants.GLOBAL_VISIBILITY } )
+        public String visibility;
+
+        @Param( { "50" } )
+        public int components;
+
+        DefaultPlexusContainer container;
+
+        ClassRealm pluginRealm;
+
+        private File root;
+
+        @Setup( Level.Trial )
+        public void setUp()
+            throws Exception
+        {
+            root = Fixtures.tempDir( "plexus-lookup" );
+
+            final File containerFolder = new File( root, "container" );
+            Fixtures.writeComponentsXml( containerFolder, "core", components );
+            final File pluginFolder = new File( root, "plugin" );
+            Fixtures.writeComponentsXml( pluginFolder, "plugin", components );
+
+            final ClassWorld world = new ClassWorld( "container", getClass().getClassLoader() );
+            final ClassRealm containerRealm = world.getRealm( "container" );
+            containerRealm.addURL( containerFolder.toURI().toURL() );
+
+            final ContainerConfiguration configuration = new DefaultContainerConfiguration();
+            configuration.setClassWorld( world ).setRealm( containerRealm );
+            configuration.setComponentVisibility( visibility );
+
+            container = new DefaultPlexusContainer( configuration );
+
+            pluginRealm = containerRealm.createChildRealm( "plugin" );
+            pluginRealm.addURL( pluginFolder.toURI().toURL() );
+            container.discoverComponents( pluginRealm );
+        }
+
+        @TearDown( Level.Trial )
+        public void tearDown()
+            throws Exception
+        {
+            container.dispose();
+            FileUtils.deleteDirectory( root );
+        }
+    }
+
+    /**
+     * Per-thread lookup and context realm; the container remembers the lookup realm per thread, while realm visibility
+     * follows the thread context class loader.
+     */
+    @State( Scope.Thread )
+    public static class LookupRealmState
+    {
+        @Param( { "container", "plugin" } )
+        public String lookupRealm;
+
+        private ContainerState containerState;
+
+        private ClassLoader originalTccl;
+
+        @Setup( Level.Iteration )
+        public void setUp( final ContainerState state )
+        {
+            containerState = state;
+            originalTccl = Thread.currentThread().getContextClassLoader();
+            if ( "plugin".equals( lookupRealm ) )
+            {
+                state.container.setLookupRealm( state.pluginRealm );
+                Thread.currentThread().setContextClassLoader( state.pluginRealm );
+            }
+            else
+            {
+                state.container.setLookupRealm( null );
+                Thread.currentThread().setContextClassLoader( state.container.getContainerRealm() );
+            }
+        }
+
+        @TearDown( Level.Iteration )
+        public void tearDown()
+        {
+            containerState.container.setLookupRealm( null );
+            Thread.currentThread().setContextClassLoader( originalTccl );
+        }
+    }
+
+    @Benchmark
+    public Object lookupByClass( final ContainerState state, final LookupRealmState realm )
+        throws Exception
+    {
+        return state.container.lookup( Service.class, "core7" );
+    }
+
+    @Benchmark
+    public Object lookupByRole( final ContainerState state, final LookupRealmState realm )
+        throws Exception
+    {
+        return state.container.lookup( ROLE, "core7" );
+    }
+
+    @Benchmark
+    public void lookupListByClass( final ContainerState state, final LookupRealmState realm, final Blackhole bh )
+        throws Exception
+    {
+        for ( final Service service : state.container.lookupList( Service.class ) )
+        {
+            bh.consume( service );
+        }
+    }
+
+    @Benchmark
+    public void lookupListByRole( final ContainerState state, final LookupRealmState realm, final Blackhole bh )
+        throws Exception
+    {
+        for ( final Object service : state.container.lookupList( ROLE ) )
+        {
+            bh.consume( service );
+        }
+    }
+
+    @Benchmark
+    public void lookupMapByClass( final ContainerState state, final LookupRealmState realm, final Blackhole bh )
+        throws Exception
+    {
+        for ( final Map.Entry<String, Service> e : state.container.lookupMap( Service.class ).entrySet() )
+        {
+            bh.consume( e.getValue() );
+        }
+    }
+
+    @Benchmark
+    public void lookupMapByRole( final ContainerState state, final LookupRealmState realm, final Blackhole bh )
+        throws Exception
+    {
+        for ( final Map.Entry<String, Object> e : state.container.lookupMap( ROLE ).entrySet() )
+        {
+            bh.consume( e.getValue() );
+        }
+    }
+}
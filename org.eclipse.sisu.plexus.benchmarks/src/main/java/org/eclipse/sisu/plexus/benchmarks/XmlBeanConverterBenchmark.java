@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.sisu.plexus.PlexusBeanConverter;
+import org.eclipse.sisu.plexus.PlexusXmlBeanConverter;
+import org.eclipse.sisu.plexus.benchmarks.Fixtures.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.inject.Guice;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Measures {@link PlexusXmlBeanConverter#convert} of Plexus XML into beans and collections.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class XmlBeanConverterBenchmark
+{
+    private static final TypeLiteral<Node> NODE_TYPE = TypeLiteral.get( Node.class );
+
+    private static final TypeLiteral<List<String>> LIST_TYPE = new TypeLiteral<List<String>>()
+    {
+    };
+
+    @Param( { "1", "4", "8" } )
+    public int depth;
+
+    private PlexusBeanConverter converter;
+
+    private String nodeXml;
+
+    private String listXml;
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        converter = Guice.createInjector().getInstance( PlexusXmlBeanConverter.class );
+
+        nodeXml = Fixtures.nodeXml( "configuration", depth );
+
+        final StringBuilder buf = new StringBuilder( "<items>" );
+        for ( int i = 0, size = 1 << depth; i < size; i++ )
+        {
+            buf.append( "<item>value" ).append( i ).append( "</item>" );
+        }
+        listXml = buf.append( "</items>" ).toString();
+    }
+
+    @Benchmark
+    public Object convertBean()
+    {
+        return converter.convert( NODE_TYPE, nodeXml );
+    }
+
+    @Benchmark
+    public Object convertList()
+    {
+        return converter.convert( LIST_TYPE, listXml );
+    }
+}
@@ -12,12 +12,15 @@
  *******************************************************************************/
 package org.codehaus.plexus;
 
+import java.io.File;
 import java.net.URL;
 import java.util.Map;
 
 import org.codehaus.plexus.classworlds.ClassWorld;
 import org.codehaus.plexus.classworlds.realm.ClassRealm;
 import org.codehaus.plexus.context.Context;
+import org.eclipse.sisu.plexus.LifecycleListener;
+import org.eclipse.sisu.plexus.LookupListener;
 
 public interface ContainerConfiguration
 {
@@ -67,4 +70,36 @@ public interface ContainerConfiguration
 
     boolean getStrictClassPathScanning();
 
+    ContainerConfiguration setParallelComponentScanning( boolean parallelScanning );
+
+    boolean getParallelComponentScanning();
+
+    ContainerConfiguration setComponentScanCache( File cacheDirectory );
+
+    File getComponentScanCache();
+
+    ContainerConfiguration setComponentActivationThreads( int threads );
+
+    int getComponentActivationThreads();
+
+    ContainerConfiguration setComponentShutdownThreads( int threads );
+
+    int getComponentShutdownThreads();
+
+    ContainerConfiguration setComponentShutdownTimeout( long timeoutMillis );
+
+    long getComponentShutdownTimeout();
+
+    ContainerConfiguration setContainerShutdownTimeout( long timeoutMillis );
+
+    long getContainerShutdownTimeout();
+
+    ContainerConfiguration setComponentLifecycleListener( LifecycleListener listener );
+
+    LifecycleListener getComponentLifecycleListener();
+
+    ContainerConfiguration setLookupListener( LookupListener listener );
+
+    LookupListener getLookupListener();
+
 }
@@ -12,12 +12,15 @@
  *******************************************************************************/
 package org.codehaus.plexus;
 
+import java.io.File;
 import java.net.URL;
 import java.util.Map;
 
 import org.codehaus.plexus.classworlds.ClassWorld;
 import org.codehaus.plexus.classworlds.realm.ClassRealm;
 import org.codehaus.plexus.context.Context;
+import org.eclipse.sisu.plexus.LifecycleListener;
+import org.eclipse.sisu.plexus.LookupListener;
 
 public final class DefaultContainerConfiguration
     implements ContainerConfiguration
@@ -48,6 +51,22 @@ public final class DefaultContainerConfiguration
 
     private boolean strictClassPathScanning;
 
+    private boolean parallelComponentScanning;
+
+    private File componentScanCache;
+
+    private int componentActivationThreads;
+
+    private int componentShutdownThreads;
+
+    private long componentShutdownTimeout;
+
+    private long containerShutdownTimeout;
+
+    private LifecycleListener componentLifecycleListener;
+
+    private LookupListener lookupListener;
+
     // ----------------------------------------------------------------------
     // Public methods
     // ----------------------------------------------------------------------
@@ -183,4 +202,108 @@ public final class DefaultContainerConfiguration
     {
         return strictClassPathScanning;
     }
+
+    @Override
+    public ContainerConfiguration setParallelComponentScanning( boolean parallelScanning )
+    {
+        this.parallelComponentScanning = parallelScanning;
+        return this;
+    }
+
+    @Override
+    public boolean getParallelComponentScanning()
+    {
+        return parallelComponentScanning;
+    }
+
+    @Override
+    public ContainerConfiguration setComponentScanCache( final File cacheDirectory )
+    {
+        this.componentScanCache = cacheDirectory;
+        return this;
+    }
+
+    @Override
+    public File getComponentScanCache()
+    {
+        return componentScanCache;
+    }
+
+    @Override
+    public ContainerConfiguration setComponentActivationThreads( final int threads )
+    {
+        this.componentActivationThreads = threads;
+        return this;
+    }
+
+    @Override
+    public int getComponentActivationThreads()
+    {
+        return componentActivationThreads;
+    }
+
+    @Override
+    public ContainerConfiguration setComponentShutdownThreads( final int threads )
+    {
+        this.componentShutdownThreads = threads;
+        return this;
+    }
+
+    @Override
+    public int getComponentShutdownThreads()
+    {
+        return componentShutdownThreads;
+    }
+
+    @Override
+    public ContainerConfiguration setComponentShutdownTimeout( final long timeoutMillis )
+    {
+        this.componentShutdownTimeout = timeoutMillis;
+        return this;
+    }
+
+    @Override
+    public long getComponentShutdownTimeout()
+    {
+        return componentShutdownTimeout;
+    }
+
+    @Override
+    public ContainerConfiguration setContainerShutdownTimeout( final long timeoutMillis )
+    {
+        this.containerShutdownTimeout = timeoutMillis;
+        return this;
+    }
+
+    @Override
+    public long getContainerShutdownTimeout()
+    {
+        return containerShutdownTimeout;
+    }
+
+    @Override
+    public ContainerConfiguration setComponentLifecycleListener( final LifecycleListener listener )
+    {
+        this.componentLifecycleListener = listener;
+        return this;
+    }
+
+    @Override
+    public LifecycleListener getComponentLifecycleListener()
+    {
+        return componentLifecycleListener;
+    }
+
+    @Override
+    public ContainerConfiguration setLookupListener( final LookupListener listener )
+    {
+        this.lookupListener = listener;
+        return this;
+    }
+
+    @Override
+    public LookupListener getLookupListener()
+    {
+        return lookupListener;
+    }
 }
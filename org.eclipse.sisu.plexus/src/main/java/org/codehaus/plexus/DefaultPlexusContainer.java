@@ -18,7 +18,6 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -42,6 +41,7 @@ import org.codehaus.plexus.context.ContextMapAdapter;
 import org.codehaus.plexus.context.DefaultContext;
 import org.codehaus.plexus.logging.Logger;
 import org.codehaus.plexus.logging.LoggerManager;
+import org.codehaus.plexus.logging.console.AsyncConsoleLoggerManager;
 import org.codehaus.plexus.logging.console.ConsoleLoggerManager;
 import org.eclipse.sisu.bean.BeanManager;
 import org.eclipse.sisu.bean.LifecycleManager;
@@ -55,6 +55,9 @@ import org.eclipse.sisu.inject.RankingFunction;
 import org.eclipse.sisu.plexus.ComponentDescriptorBeanModule;
 import org.eclipse.sisu.plexus.DefaultPlexusBeanLocator;
 import org.eclipse.sisu.plexus.Hints;
+import org.eclipse.sisu.plexus.LookupEvent;
+import org.eclipse.sisu.plexus.LookupListener;
+import org.eclipse.sisu.plexus.LookupTrace;
 import org.eclipse.sisu.plexus.PlexusAnnotatedBeanModule;
 import org.eclipse.sisu.plexus.PlexusBean;
 import org.eclipse.sisu.plexus.PlexusBeanConverter;
@@ -65,6 +68,7 @@ import org.eclipse.sisu.plexus.PlexusDateTypeConverter;
 import org.eclipse.sisu.plexus.PlexusLifecycleManager;
 import org.eclipse.sisu.plexus.PlexusXmlBeanConverter;
 import org.eclipse.sisu.plexus.PlexusXmlBeanModule;
+import org.eclipse.sisu.plexus.RealmContext;
 import org.eclipse.sisu.plexus.RealmManager;
 import org.eclipse.sisu.space.BeanScanning;
 import org.eclipse.sisu.space.ClassSpace;
@@ -135,7 +139,7 @@ public final class DefaultPlexusContainer
 
     final PlexusBeanLocator plexusBeanLocator;
 
-    final BeanManager plexusBeanManager;
+    final PlexusLifecycleManager plexusBeanManager;
 
     private final String componentVisibility;
 
@@ -143,6 +147,10 @@ public final class DefaultPlexusContainer
 
     private final BeanScanning scanning;
 
+    private final boolean parallelScanning;
+
+    private final File scanCache;
+
     private final Module containerModule = new ContainerModule();
 
     private final Module defaultsModule = new DefaultsModule();
@@ -151,6 +159,8 @@ public final class DefaultPlexusContainer
 
     private Logger logger;
 
+    private final LookupListener lookupListener;
+
     private boolean disposing;
 
     // ----------------------------------------------------------------------
@@ -187,21 +197,29 @@ public final class DefaultPlexusContainer
         isAutoWiringEnabled = configuration.getAutoWiring();
 
         scanning = parseScanningOption( configuration.getClassPathScanning() );
+        parallelScanning = configuration.getParallelComponentScanning();
+        scanCache = configuration.getComponentScanCache();
 
         plexusBeanLocator = new DefaultPlexusBeanLocator( qualifiedBeanLocator, realmManager, componentVisibility );
         final BeanManager jsr250Lifecycle = configuration.getJSR250Lifecycle() ? new LifecycleManager() : null;
         plexusBeanManager = new PlexusLifecycleManager( Providers.of( context ), loggerManagerProvider, //
                                                         new SLF4JLoggerFactoryProvider(), jsr250Lifecycle );
+        plexusBeanManager.setActivationThreads( configuration.getComponentActivationThreads() );
+        plexusBeanManager.setShutdownLimits( configuration.getComponentShutdownThreads(),
+                                             configuration.getComponentShutdownTimeout(),
+                                             configuration.getContainerShutdownTimeout() );
+        plexusBeanManager.setLifecycleListener( configuration.getComponentLifecycleListener() );
+        lookupListener = configuration.getLookupListener();
 
         setLookupRealm( containerRealm );
 
         final List<PlexusBeanModule> beanModules = new ArrayList<PlexusBeanModule>();
 
         final ClassSpace space = new URLClassSpace( containerRealm );
-        beanModules.add( new PlexusXmlBeanModule( space, variables, plexusXml ) );
+        beanModules.add( new PlexusXmlBeanModule( space, variables, plexusXml, parallelScanning ) );
         final BeanScanning global = BeanScanning.INDEX == scanning ? BeanScanning.GLOBAL_INDEX : scanning;
         beanModules.add( new PlexusAnnotatedBeanModule( space, variables, global,
-                                                        configuration.getStrictClassPathScanning() ) );
+                                                        configuration.getStrictClassPathScanning(), scanCache ) );
 
         try
         {
@@ -260,38 +278,75 @@ public final class DefaultPlexusContainer
     public <T> T lookup( final Class<T> type, final String role, final String hint )
         throws ComponentLookupException
     {
+        final LookupTrace trace = newLookupTrace();
         try
         {
-            return locate( role, type, hint ).iterator().next().getValue();
+            final T component = locate( role, type, trace, hint ).iterator().next().getValue();
+            plexusBeanManager.awaitActivation( component ); // in case another injector is still being built
+            if ( null != trace )
+            {
+                trace.finish( LookupEvent.Kind.LOOKUP, null != type ? type.getName() : role, hint, true, null );
+            }
+            return component;
         }
         catch ( final RuntimeException e )
         {
-            throw new ComponentLookupException( e, null != type ? type.getName() : role, hint );
+            final ComponentLookupException problem =
+                new ComponentLookupException( e, null != type ? type.getName() : role, hint );
+            if ( null != trace )
+            {
+                trace.finish( LookupEvent.Kind.LOOKUP, null != type ? type.getName() : role, hint, false, problem );
+            }
+            throw problem;
         }
     }
 
     public List<Object> lookupList( final String role )
         throws ComponentLookupException
     {
-        return new EntryListAdapter<Object>( locate( role, null ) );
+        final LookupTrace trace = newLookupTrace();
+        final List<Object> components = new EntryListAdapter<Object>( locate( role, null, trace ) );
+        if ( null != trace )
+        {
+            trace.finish( LookupEvent.Kind.LOOKUP_LIST, role, null, true, null );
+        }
+        return components;
     }
 
     public <T> List<T> lookupList( final Class<T> role )
         throws ComponentLookupException
     {
-        return new EntryListAdapter<T>( locate( null, role ) );
+        final LookupTrace trace = newLookupTrace();
+        final List<T> components = new EntryListAdapter<T>( locate( null, role, trace ) );
+        if ( null != trace )
+        {
+            trace.finish( LookupEvent.Kind.LOOKUP_LIST, role.getName(), null, true, null );
+        }
+        return components;
     }
 
     public Map<String, Object> lookupMap( final String role )
         throws ComponentLookupException
     {
-        return new EntryMapAdapter<String, Object>( locate( role, null ) );
+        final LookupTrace trace = newLookupTrace();
+        final Map<String, Object> components = new EntryMapAdapter<String, Object>( locate( role, null, trace ) );
+        if ( null != trace )
+        {
+            trace.finish( LookupEvent.Kind.LOOKUP_MAP, role, null, true, null );
+        }
+        return components;
     }
 
     public <T> Map<String, T> lookupMap( final Class<T> role )
         throws ComponentLookupException
     {
-        return new EntryMapAdapter<String, T>( locate( null, role ) );
+        final LookupTrace trace = newLookupTrace();
+        final Map<String, T> components = new EntryMapAdapter<String, T>( locate( null, role, trace ) );
+        if ( null != trace )
+        {
+            trace.finish( LookupEvent.Kind.LOOKUP_MAP, role.getName(), null, true, null );
+        }
+        return components;
     }
 
     // ----------------------------------------------------------------------
@@ -320,7 +375,13 @@ public final class DefaultPlexusContainer
 
     public boolean hasComponent( final Class type, final String role, final String hint )
     {
-        return hasPlexusBeans( locate( role, type, hint ) );
+        final LookupTrace trace = newLookupTrace();
+        final boolean found = hasPlexusBeans( locate( role, type, trace, hint ) );
+        if ( null != trace )
+        {
+            trace.finish( LookupEvent.Kind.HAS_COMPONENT, null != type ? type.getName() : role, hint, found, null );
+        }
+        return found;
     }
 
     // ----------------------------------------------------------------------
@@ -356,6 +417,8 @@ public final class DefaultPlexusContainer
                 }
             }
         } ), new DefaultRankingFunction( plexusRank.incrementAndGet() ) ) );
+
+        realmManager.flushLookups();
     }
 
     public <T> void addComponentDescriptor( final ComponentDescriptor<T> descriptor )
@@ -390,7 +453,7 @@ public final class DefaultPlexusContainer
     public <T> ComponentDescriptor<T> getComponentDescriptor( final Class<T> type, final String role,
                                                               final String hint )
     {
-        final Iterator<PlexusBean<T>> i = locate( role, type, hint ).iterator();
+        final Iterator<PlexusBean<T>> i = locate( role, type, null, hint ).iterator();
         if ( i.hasNext() )
         {
             final PlexusBean<T> bean = i.next();
@@ -410,7 +473,7 @@ public final class DefaultPlexusContainer
     public <T> List<ComponentDescriptor<T>> getComponentDescriptorList( final Class<T> type, final String role )
     {
         final List<ComponentDescriptor<T>> tempList = new ArrayList<ComponentDescriptor<T>>();
-        for ( final PlexusBean<T> bean : locate( role, type ) )
+        for ( final PlexusBean<T> bean : locate( role, type, null ) )
         {
             tempList.add( newComponentDescriptor( role, bean ) );
         }
@@ -425,7 +488,7 @@ public final class DefaultPlexusContainer
     public <T> Map<String, ComponentDescriptor<T>> getComponentDescriptorMap( final Class<T> type, final String role )
     {
         final Map<String, ComponentDescriptor<T>> tempMap = new LinkedHashMap<String, ComponentDescriptor<T>>();
-        for ( final PlexusBean<T> bean : locate( role, type ) )
+        for ( final PlexusBean<T> bean : locate( role, type, null ) )
         {
             tempMap.put( bean.getKey(), newComponentDescriptor( role, bean ) );
         }
@@ -439,6 +502,7 @@ public final class DefaultPlexusContainer
 
     public List<ComponentDescriptor<?>> discoverComponents( final ClassRealm realm, final Module... customModules )
     {
+        realmManager.importsChanged( realm ); // imports are usually set up just before discovery
         try
         {
             final List<PlexusBeanModule> beanModules = new ArrayList<PlexusBeanModule>();
@@ -452,9 +516,9 @@ public final class DefaultPlexusContainer
                 }
                 if ( containerRealm != realm && !realmManager.isManaged( realm ) )
                 {
-                    beanModules.add( new PlexusXmlBeanModule( space, variables ) );
+                    beanModules.add( new PlexusXmlBeanModule( space, variables, parallelScanning ) );
                     final BeanScanning local = BeanScanning.GLOBAL_INDEX == scanning ? BeanScanning.INDEX : scanning;
-                    beanModules.add( new PlexusAnnotatedBeanModule( space, variables, local ) );
+                    beanModules.add( new PlexusAnnotatedBeanModule( space, variables, local, false, scanCache ) );
                 }
             }
             if ( !beanModules.isEmpty() )
@@ -480,7 +544,26 @@ public final class DefaultPlexusContainer
         modules.add( new PlexusBindingModule( plexusBeanManager, beanModules ) );
         modules.add( defaultsModule );
 
-        return Guice.createInjector( isAutoWiringEnabled ? new WireModule( modules ) : new MergedModule( modules ) );
+        final boolean deferred = plexusBeanManager.deferActivation();
+        try
+        {
+            final Module module = isAutoWiringEnabled ? new WireModule( modules ) : new MergedModule( modules );
+            return Guice.createInjector( module );
+        }
+        finally
+        {
+            try
+            {
+                if ( deferred )
+                {
+                    plexusBeanManager.activateDeferred(); // load-on-start components, in dependency order
+                }
+            }
+            finally
+            {
+                realmManager.flushLookups(); // new injector will have been published to the bean locator
+            }
+        }
     }
 
     // ----------------------------------------------------------------------
@@ -504,9 +587,35 @@ public final class DefaultPlexusContainer
         return oldRealm;
     }
 
+    /**
+     * @return Lookup realm from the open {@link RealmContext}, otherwise the one set on this thread
+     */
     public ClassRealm getLookupRealm()
     {
-        return lookupRealm.get();
+        final ClassRealm scopedRealm = RealmContext.current().getLookupRealm();
+        return null != scopedRealm ? scopedRealm : lookupRealm.get();
+    }
+
+    /**
+     * Captures the realms currently guiding lookups on this thread, so they can be propagated to other threads.
+     *
+     * @return Snapshot of the current lookup and context realms
+     */
+    public RealmContext captureRealmContext()
+    {
+        final ClassRealm contextRealm = RealmManager.contextRealm();
+        return RealmContext.current().withLookupRealm( getLookupRealm() ).withContextRealm( contextRealm );
+    }
+
+    /**
+     * Tells the container that the imports (or parent) of the given realm have changed since it was first used, so
+     * component visibility and lookups involving the realm are recomputed.
+     *
+     * @param realm The changed realm
+     */
+    public void importsChanged( final ClassRealm realm )
+    {
+        realmManager.importsChanged( realm );
     }
 
     public ClassRealm createChildRealm( final String id )
@@ -592,10 +701,18 @@ public final class DefaultPlexusContainer
         plexusBeanManager.unmanage();
         containerRealm.setParentRealm( null );
         qualifiedBeanLocator.clear();
+        realmManager.flushLookups();
 
         lookupRealm.remove();
 
         containerRealm.getWorld().removeListener( realmManager );
+
+        final LoggerManager currentLoggerManager = getLoggerManager();
+        if ( currentLoggerManager instanceof AsyncConsoleLoggerManager )
+        {
+            // flush any queued output; other logger managers are left to their owners
+            ( (AsyncConsoleLoggerManager) currentLoggerManager ).dispose();
+        }
     }
 
     // ----------------------------------------------------------------------
@@ -714,67 +831,128 @@ public final class DefaultPlexusContainer
         return contextComponent;
     }
 
-    private <T> Iterable<PlexusBean<T>> locate( final String role, final Class<T> type, final String... hints )
+    private LookupTrace newLookupTrace()
+    {
+        return null != lookupListener ? new LookupTrace( lookupListener ) : null;
+    }
+
+    private <T> Iterable<PlexusBean<T>> locate( final String role, final Class<T> type, final LookupTrace trace,
+                                                final String... hints )
     {
         if ( disposing )
         {
             return Collections.EMPTY_SET;
         }
+        if ( null != trace && PlexusConstants.REALM_VISIBILITY.equalsIgnoreCase( componentVisibility ) )
+        {
+            final Set<ClassRealm> visibleRealms = realmManager.visibleRealms( RealmManager.contextRealm() );
+            if ( null != visibleRealms && visibleRealms.size() > 0 )
+            {
+                trace.realmFiltered();
+            }
+        }
         final String[] canonicalHints = Hints.canonicalHints( hints );
         if ( null == role || null != type && type.getName().equals( role ) )
         {
             return plexusBeanLocator.locate( TypeLiteral.get( type ), canonicalHints );
         }
-        final Set<Class> candidates = new HashSet<Class>();
-        for ( final ClassRealm realm : getVisibleRealms() )
+        final ClassRealm currentLookupRealm = getLookupRealm();
+        final ClassRealm threadContextRealm = RealmManager.contextRealm();
+        final RoleKey roleKey = new RoleKey( role, currentLookupRealm, threadContextRealm );
+        TypeLiteral[] roleTypes = (TypeLiteral[]) realmManager.cachedLookup( roleKey );
+        if ( null != trace )
+        {
+            if ( null != roleTypes )
+            {
+                trace.cacheHit();
+            }
+            else
+            {
+                trace.cacheMiss();
+            }
+        }
+        if ( null == roleTypes )
+        {
+            final int generation = realmManager.lookupGeneration();
+            roleTypes = loadRoleTypes( role, currentLookupRealm, threadContextRealm, trace );
+            if ( roleTypes.length > 0 ) // realms can gain classes without any discovery, so don't cache misses
+            {
+                realmManager.cacheLookup( roleKey, roleTypes, generation );
+            }
+        }
+        // only the loaded role classes are cached; beans come and go with the bean locator, so check them each time
+        for ( final TypeLiteral roleType : roleTypes )
+        {
+            final Iterable beans = plexusBeanLocator.locate( roleType, canonicalHints );
+            if ( hasPlexusBeans( beans ) )
+            {
+                return beans;
+            }
+        }
+        return Collections.EMPTY_SET;
+    }
+
+    /**
+     * Loads the named role from each visible realm in turn, returning the distinct role classes in realm order.
+     */
+    private TypeLiteral[] loadRoleTypes( final String role, final ClassRealm currentLookupRealm,
+                                         final ClassRealm threadContextRealm, final LookupTrace trace )
+    {
+        final Set<Class> candidates = new LinkedHashSet<Class>();
+        for ( final ClassRealm realm : getVisibleRealms( currentLookupRealm, threadContextRealm ) )
         {
             try
             {
-                final Class clazz = realm.loadClass( role );
-                if ( candidates.add( clazz ) )
-                {
-                    final Iterable beans = plexusBeanLocator.locate( TypeLiteral.get( clazz ), canonicalHints );
-                    if ( hasPlexusBeans( beans ) )
-                    {
-                        return beans;
-                    }
-                }
+                candidates.add( realm.loadClass( role ) );
             }
             catch ( final Exception e )
             {
+                if ( null != trace )
+                {
+                    trace.failedLoad();
+                }
                 // drop through...
             }
             catch ( final LinkageError e )
             {
+                if ( null != trace )
+                {
+                    trace.failedLoad();
+                }
                 // drop through...
             }
         }
-        return Collections.EMPTY_SET;
+        final TypeLiteral[] roleTypes = new TypeLiteral[candidates.size()];
+        int i = 0;
+        for ( final Class clazz : candidates )
+        {
+            roleTypes[i++] = TypeLiteral.get( clazz );
+        }
+        return roleTypes;
     }
 
-    private Collection<ClassRealm> getVisibleRealms()
+    private Collection<ClassRealm> getVisibleRealms( final ClassRealm currentLookupRealm,
+                                                     final ClassRealm threadContextRealm )
     {
         final Object[] realms = getClassWorld().getRealms().toArray();
         final Set<ClassRealm> visibleRealms = new LinkedHashSet<ClassRealm>( realms.length );
-        final ClassRealm currentLookupRealm = getLookupRealm();
         if ( null != currentLookupRealm )
         {
             visibleRealms.add( currentLookupRealm );
         }
-        final ClassRealm threadContextRealm = RealmManager.contextRealm();
         if ( null != threadContextRealm )
         {
             visibleRealms.add( threadContextRealm );
         }
         if ( PlexusConstants.REALM_VISIBILITY.equalsIgnoreCase( componentVisibility ) )
         {
-            final Collection<String> realmNames = realmManager.visibleRealmNames( threadContextRealm );
-            if ( null != realmNames && realmNames.size() > 0 )
+            final Collection<ClassRealm> realmsInScope = realmManager.visibleRealms( threadContextRealm );
+            if ( null != realmsInScope && realmsInScope.size() > 0 )
             {
                 for ( int i = realms.length - 1; i >= 0; i-- )
                 {
                     final ClassRealm r = (ClassRealm) realms[i];
-                    if ( realmNames.contains( r.toString() ) )
+                    if ( realmsInScope.contains( r ) )
                     {
                         visibleRealms.add( r );
                     }
@@ -805,6 +983,52 @@ public final class DefaultPlexusContainer
         return cd;
     }
 
+    /**
+     * Identifies the role classes loaded for a role name, taking the realms used to resolve the name into account.
+     */
+    static final class RoleKey
+    {
+        private final String role;
+
+        private final ClassRealm lookupRealm;
+
+        private final ClassRealm contextRealm;
+
+        private final int hash;
+
+        RoleKey( final String role, final ClassRealm lookupRealm, final ClassRealm contextRealm )
+        {
+            this.role = role;
+            this.lookupRealm = lookupRealm;
+            this.contextRealm = contextRealm;
+
+            hash = role.hashCode() * 31 //
+                + System.identityHashCode( lookupRealm ) * 17 + System.identityHashCode( contextRealm );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals( final Object rhs )
+        {
+            if ( this == rhs )
+            {
+                return true;
+            }
+            if ( rhs instanceof RoleKey )
+            {
+                final RoleKey key = (RoleKey) rhs;
+                return hash == key.hash && lookupRealm == key.lookupRealm && contextRealm == key.contextRealm
+                    && role.equals( key.role );
+            }
+            return false;
+        }
+    }
+
     final class BootModule
         implements Module
     {
@@ -14,9 +14,10 @@ package org.codehaus.plexus.component.configurator;
 
 import org.codehaus.plexus.classworlds.realm.ClassRealm;
 import org.codehaus.plexus.component.configurator.converters.composite.ObjectWithFieldsConverter;
-import org.codehaus.plexus.component.configurator.converters.special.ClassRealmConverter;
+import org.codehaus.plexus.component.configurator.expression.CachingExpressionEvaluator;
 import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
 import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.eclipse.sisu.plexus.RealmContext;
 
 import javax.inject.Named;
 
@@ -30,16 +31,17 @@ public class BasicComponentConfigurator
                                     final ConfigurationListener listener )
         throws ComponentConfigurationException
     {
+        // share results of repeated expressions, such as default values, across this configuration
+        final ExpressionEvaluator cachingEvaluator = CachingExpressionEvaluator.wrap( evaluator );
+        final RealmContext.Scope scope = RealmContext.current().withConfigurationRealm( realm ).open();
         try
         {
-            ClassRealmConverter.pushContextRealm( realm );
-
             new ObjectWithFieldsConverter().processConfiguration( converterLookup, component, realm, //
-                                                                  configuration, evaluator, listener );
+                                                                  configuration, cachingEvaluator, listener );
         }
         finally
         {
-            ClassRealmConverter.popContextRealm();
+            scope.close();
         }
     }
 }
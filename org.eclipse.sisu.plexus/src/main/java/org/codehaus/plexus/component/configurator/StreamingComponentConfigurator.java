@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.plexus.component.configurator;
+
+import java.io.IOException;
+
+import org.codehaus.plexus.classworlds.realm.ClassRealm;
+import org.codehaus.plexus.component.configurator.converters.composite.ObjectWithFieldsConverter;
+import org.codehaus.plexus.component.configurator.expression.CachingExpressionEvaluator;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
+import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.codehaus.plexus.util.xml.pull.XmlPullParser;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.sisu.plexus.RealmContext;
+
+import javax.inject.Named;
+
+/**
+ * {@link ComponentConfigurator} that can also configure components straight from an {@link XmlPullParser}.
+ * <p>
+ * Each top-level element is read into a compact node, applied to its property, then dropped, so a tree for the whole
+ * configuration never exists. Collection, array, and map properties go further: their child elements are converted
+ * one at a time as they're read. Configurations given as a {@link PlexusConfiguration} are handled like "basic".
+ */
+@Named( "streaming" )
+public class StreamingComponentConfigurator
+    extends AbstractComponentConfigurator
+{
+    @Override
+    public void configureComponent( final Object component, final PlexusConfiguration configuration,
+                                    final ExpressionEvaluator evaluator, final ClassRealm realm,
+                                    final ConfigurationListener listener )
+        throws ComponentConfigurationException
+    {
+        final ExpressionEvaluator cachingEvaluator = CachingExpressionEvaluator.wrap( evaluator );
+        final RealmContext.Scope scope = RealmContext.current().withConfigurationRealm( realm ).open();
+        try
+        {
+            new ObjectWithFieldsConverter().processConfiguration( converterLookup, component, realm, //
+                                                                  configuration, cachingEvaluator, listener );
+        }
+        finally
+        {
+            scope.close();
+        }
+    }
+
+    /**
+     * Configures the component from the element at the parser's current start tag, or the document's root element if
+     * the parser hasn't started yet. Leaves the parser at the matching end tag.
+     */
+    public void configureComponent( final Object component, final XmlPullParser parser,
+                                    final ExpressionEvaluator evaluator, final ClassRealm realm,
+                                    final ConfigurationListener listener )
+        throws ComponentConfigurationException
+    {
+        final ExpressionEvaluator cachingEvaluator = CachingExpressionEvaluator.wrap( evaluator );
+        final RealmContext.Scope scope = RealmContext.current().withConfigurationRealm( realm ).open();
+        try
+        {
+            if ( parser.getEventType() == XmlPullParser.START_DOCUMENT )
+            {
+                parser.nextTag();
+            }
+            new ObjectWithFieldsConverter().processConfiguration( converterLookup, component, realm, //
+                                                                  parser, cachingEvaluator, listener );
+        }
+        catch ( final XmlPullParserException e )
+        {
+            throw new ComponentConfigurationException( "Cannot read configuration: " + e.getMessage(), e );
+        }
+        catch ( final IOException e )
+        {
+            throw new ComponentConfigurationException( "Cannot read configuration", e );
+        }
+        finally
+        {
+            scope.close();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.plexus.component.configurator.converters;
+
+import java.lang.reflect.Type;
+
+import org.codehaus.plexus.component.configurator.ComponentConfigurationException;
+import org.codehaus.plexus.component.configurator.ConfigurationListener;
+import org.codehaus.plexus.component.configurator.converters.lookup.ConverterLookup;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
+import org.codehaus.plexus.configuration.PlexusConfiguration;
+
+/**
+ * {@link ConfigurationConverter} that can also build its value from one child element at a time, so configuration
+ * read from a stream doesn't need to hold every child at once.
+ */
+public interface StreamingConfigurationConverter
+    extends ConfigurationConverter
+{
+    /**
+     * Receives the child elements in document order, then produces the converted value.
+     */
+    interface Elements
+    {
+        void add( PlexusConfiguration element )
+            throws ComponentConfigurationException;
+
+        Object finish()
+            throws ComponentConfigurationException;
+    }
+
+    /**
+     * Starts converting an element that has child elements; its own value and any expression are not consulted, same
+     * as {@link ConfigurationConverter#fromConfiguration} for elements with children.
+     *
+     * @param configuration The element's name and attributes, without its children
+     * @return Receiver for the element's children
+     */
+    Elements startElements( ConverterLookup lookup, PlexusConfiguration configuration, Class<?> type,
+                            Type[] typeArguments, Class<?> enclosingType, ClassLoader loader,
+                            ExpressionEvaluator evaluator, ConfigurationListener listener )
+        throws ComponentConfigurationException;
+}
@@ -63,26 +63,35 @@ public abstract class AbstractCollectionConverter
         final Collection<Object> elements = instantiateCollection( configuration, type, loader );
         for ( int i = 0, size = configuration.getChildCount(); i < size; i++ )
         {
-            final PlexusConfiguration xml = configuration.getChild( i );
-            final Type childType = getChildType( xml, enclosingType, loader, elementType );
-            final Class<?> rawChildType = TypeArguments.getRawType( childType );
-            final ConfigurationConverter c = lookup.lookupConverterForType( rawChildType );
-            if ( rawChildType != childType && c instanceof ParameterizedConfigurationConverter )
-            {
-                final ParameterizedConfigurationConverter pc = (ParameterizedConfigurationConverter) c;
-                elements.add( pc.fromConfiguration( lookup, xml, rawChildType, //
-                                                    TypeArguments.get( childType ), enclosingType, //
-                                                    loader, evaluator, listener ) );
-            }
-            else
-            {
-                elements.add( c.fromConfiguration( lookup, xml, rawChildType, enclosingType, //
-                                                   loader, evaluator, listener ) );
-            }
+            elements.add( fromChild( lookup, configuration.getChild( i ), enclosingType, //
+                                     loader, evaluator, listener, elementType ) );
         }
         return elements;
     }
 
+    /**
+     * Converts a single child element; used when children are converted one at a time.
+     */
+    protected final Object fromChild( final ConverterLookup lookup, final PlexusConfiguration xml,
+                                      final Class<?> enclosingType, final ClassLoader loader,
+                                      final ExpressionEvaluator evaluator, final ConfigurationListener listener,
+                                      final Type elementType )
+        throws ComponentConfigurationException
+    {
+        final Type childType = getChildType( xml, enclosingType, loader, elementType );
+        final Class<?> rawChildType = TypeArguments.getRawType( childType );
+        final ConfigurationConverter c = lookup.lookupConverterForType( rawChildType );
+        if ( rawChildType != childType && c instanceof ParameterizedConfigurationConverter )
+        {
+            final ParameterizedConfigurationConverter pc = (ParameterizedConfigurationConverter) c;
+            return pc.fromConfiguration( lookup, xml, rawChildType, //
+                                         TypeArguments.get( childType ), enclosingType, //
+                                         loader, evaluator, listener );
+        }
+        return c.fromConfiguration( lookup, xml, rawChildType, enclosingType, //
+                                    loader, evaluator, listener );
+    }
+
     // Maintain binary compatibility with old method signature
     protected final Class<?> getChildType( final PlexusConfiguration childConfiguration, final Class<?> enclosingType,
                                            final ClassLoader loader, final Class<?> elementType )
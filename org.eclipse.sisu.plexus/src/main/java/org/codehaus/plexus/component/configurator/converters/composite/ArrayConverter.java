@@ -21,13 +21,14 @@ import java.util.Collections;
 import org.codehaus.plexus.component.configurator.ComponentConfigurationException;
 import org.codehaus.plexus.component.configurator.ConfigurationListener;
 import org.codehaus.plexus.component.configurator.converters.ParameterizedConfigurationConverter;
+import org.codehaus.plexus.component.configurator.converters.StreamingConfigurationConverter;
 import org.codehaus.plexus.component.configurator.converters.lookup.ConverterLookup;
 import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
 import org.codehaus.plexus.configuration.PlexusConfiguration;
 
 public class ArrayConverter
     extends AbstractCollectionConverter
-    implements ParameterizedConfigurationConverter
+    implements ParameterizedConfigurationConverter, StreamingConfigurationConverter
 {
     public boolean canConvert( final Class<?> type )
     {
@@ -93,6 +94,50 @@ public class ArrayConverter
         }
     }
 
+    public Elements startElements( final ConverterLookup lookup, final PlexusConfiguration configuration,
+                                   final Class<?> type, final Type[] typeArguments, final Class<?> enclosingType,
+                                   final ClassLoader loader, final ExpressionEvaluator evaluator,
+                                   final ConfigurationListener listener )
+        throws ComponentConfigurationException
+    {
+        final Collection<Object> elements = new ArrayList<Object>();
+        final Type elementType = findElementType( type, typeArguments );
+        return new Elements()
+        {
+            public void add( final PlexusConfiguration element )
+                throws ComponentConfigurationException
+            {
+                try
+                {
+                    elements.add( fromChild( lookup, element, enclosingType, loader, evaluator, listener,
+                                             elementType ) );
+                }
+                catch ( final ComponentConfigurationException e )
+                {
+                    if ( null == e.getFailedConfiguration() )
+                    {
+                        e.setFailedConfiguration( configuration );
+                    }
+                    throw e;
+                }
+            }
+
+            public Object finish()
+                throws ComponentConfigurationException
+            {
+                try
+                {
+                    return elements.toArray( (Object[]) Array.newInstance( type.getComponentType(),
+                                                                           elements.size() ) );
+                }
+                catch ( final ArrayStoreException e )
+                {
+                    throw new ComponentConfigurationException( configuration, "Cannot store value into array", e );
+                }
+            }
+        };
+    }
+
     @Override
     protected final Collection<Object> instantiateCollection( final PlexusConfiguration configuration,
                                                               final Class<?> type, final ClassLoader loader )
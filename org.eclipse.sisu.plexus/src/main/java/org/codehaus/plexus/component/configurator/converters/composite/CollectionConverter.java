@@ -26,13 +26,14 @@ import java.util.TreeSet;
 import org.codehaus.plexus.component.configurator.ComponentConfigurationException;
 import org.codehaus.plexus.component.configurator.ConfigurationListener;
 import org.codehaus.plexus.component.configurator.converters.ParameterizedConfigurationConverter;
+import org.codehaus.plexus.component.configurator.converters.StreamingConfigurationConverter;
 import org.codehaus.plexus.component.configurator.converters.lookup.ConverterLookup;
 import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
 import org.codehaus.plexus.configuration.PlexusConfiguration;
 
 public class CollectionConverter
     extends AbstractCollectionConverter
-    implements ParameterizedConfigurationConverter
+    implements ParameterizedConfigurationConverter, StreamingConfigurationConverter
 {
     public boolean canConvert( final Class<?> type )
     {
@@ -98,6 +99,58 @@ public class CollectionConverter
         }
     }
 
+    public Elements startElements( final ConverterLookup lookup, final PlexusConfiguration configuration,
+                                   final Class<?> type, final Type[] typeArguments, final Class<?> enclosingType,
+                                   final ClassLoader loader, final ExpressionEvaluator evaluator,
+                                   final ConfigurationListener listener )
+        throws ComponentConfigurationException
+    {
+        final Collection<Object> elements;
+        try
+        {
+            elements = instantiateCollection( configuration, type, loader );
+        }
+        catch ( final ComponentConfigurationException e )
+        {
+            if ( null == e.getFailedConfiguration() )
+            {
+                e.setFailedConfiguration( configuration );
+            }
+            throw e;
+        }
+        final Type elementType = findElementType( typeArguments );
+        return new Elements()
+        {
+            public void add( final PlexusConfiguration element )
+                throws ComponentConfigurationException
+            {
+                try
+                {
+                    elements.add( fromChild( lookup, element, enclosingType, loader, evaluator, listener,
+                                             elementType ) );
+                }
+                catch ( final ComponentConfigurationException e )
+                {
+                    if ( null == e.getFailedConfiguration() )
+                    {
+                        e.setFailedConfiguration( configuration );
+                    }
+                    throw e;
+                }
+                catch ( final IllegalArgumentException e )
+                {
+                    throw new ComponentConfigurationException( configuration, "Cannot store value into collection",
+                                                               e );
+                }
+            }
+
+            public Object finish()
+            {
+                return elements;
+            }
+        };
+    }
+
     @Override
     @SuppressWarnings( "unchecked" )
     protected final Collection<Object> instantiateCollection( final PlexusConfiguration configuration,
@@ -23,6 +23,7 @@ import org.codehaus.plexus.component.configurator.ConfigurationListener;
 import org.codehaus.plexus.component.configurator.converters.AbstractConfigurationConverter;
 import org.codehaus.plexus.component.configurator.converters.ConfigurationConverter;
 import org.codehaus.plexus.component.configurator.converters.ParameterizedConfigurationConverter;
+import org.codehaus.plexus.component.configurator.converters.StreamingConfigurationConverter;
 import org.codehaus.plexus.component.configurator.converters.lookup.ConverterLookup;
 import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
 import org.codehaus.plexus.configuration.PlexusConfiguration;
@@ -31,7 +32,7 @@ import org.eclipse.sisu.plexus.TypeArguments;
 
 public class MapConverter
     extends AbstractConfigurationConverter
-    implements ParameterizedConfigurationConverter
+    implements ParameterizedConfigurationConverter, StreamingConfigurationConverter
 {
     public boolean canConvert( final Class<?> type )
     {
@@ -57,54 +58,67 @@ public class MapConverter
         {
             return value;
         }
+        final Elements elements = startElements( lookup, configuration, type, typeArguments, enclosingType, //
+                                                 loader, evaluator, listener );
+        for ( int i = 0, size = configuration.getChildCount(); i < size; i++ )
+        {
+            elements.add( configuration.getChild( i ) );
+        }
+        return elements.finish();
+    }
+
+    public Elements startElements( final ConverterLookup lookup, final PlexusConfiguration configuration,
+                                   final Class<?> type, final Type[] typeArguments, final Class<?> enclosingType,
+                                   final ClassLoader loader, final ExpressionEvaluator evaluator,
+                                   final ConfigurationListener listener )
+        throws ComponentConfigurationException
+    {
         try
         {
             final Map<Object, Object> map = instantiateMap( configuration, type, loader );
             final Type elementType = findElementType( typeArguments );
             if ( Object.class == elementType || String.class == elementType )
             {
-                for ( int i = 0, size = configuration.getChildCount(); i < size; i++ )
-                {
-                    final PlexusConfiguration element = configuration.getChild( i );
-                    map.put( element.getName(), fromExpression( element, evaluator ) );
-                }
-                return map;
+                return new MapElements( configuration, map, evaluator );
             }
             // handle maps with complex element types...
             final Class<?> rawElementType = TypeArguments.getRawType( elementType );
             final ConfigurationConverter c = lookup.lookupConverterForType( rawElementType );
             final ParameterizedConfigurationConverter pc = rawElementType != elementType
                 && c instanceof ParameterizedConfigurationConverter ? (ParameterizedConfigurationConverter) c : null;
-            for ( int i = 0, size = configuration.getChildCount(); i < size; i++ )
+            return new MapElements( configuration, map, evaluator )
             {
-                Object elementValue;
-                final PlexusConfiguration element = configuration.getChild( i );
-                try
+                @Override
+                Object convert( final PlexusConfiguration element )
+                    throws ComponentConfigurationException
                 {
-                    if ( null != pc )
+                    Object elementValue;
+                    try
                     {
-                        elementValue = pc.fromConfiguration( lookup, element, rawElementType, //
-                                                             TypeArguments.get( elementType ), enclosingType, //
-                                                             loader, evaluator, listener );
+                        if ( null != pc )
+                        {
+                            elementValue = pc.fromConfiguration( lookup, element, rawElementType, //
+                                                                 TypeArguments.get( elementType ), enclosingType, //
+                                                                 loader, evaluator, listener );
+                        }
+                        else
+                        {
+                            elementValue = c.fromConfiguration( lookup, element, rawElementType, enclosingType, //
+                                                                loader, evaluator, listener );
+                        }
                     }
-                    else
+                    // TEMP: remove when http://jira.codehaus.org/browse/MSHADE-168 is fixed
+                    catch ( final ComponentConfigurationException e )
                     {
-                        elementValue = c.fromConfiguration( lookup, element, rawElementType, enclosingType, //
-                                                            loader, evaluator, listener );
-                    }
-                }
-                // TEMP: remove when http://jira.codehaus.org/browse/MSHADE-168 is fixed
-                catch ( final ComponentConfigurationException e )
-                {
-                    elementValue = fromExpression( element, evaluator );
+                        elementValue = fromExpression( element, evaluator );
 
-                    Logs.warn( "Map in " + enclosingType + " declares value type as: {} but saw: {} at runtime",
-                               elementType, null != elementValue ? elementValue.getClass() : null );
+                        Logs.warn( "Map in " + enclosingType + " declares value type as: {} but saw: {} at runtime",
+                                   elementType, null != elementValue ? elementValue.getClass() : null );
+                    }
+                    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+                    return elementValue;
                 }
-                // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
-                map.put( element.getName(), elementValue );
-            }
-            return map;
+            };
         }
         catch ( final ComponentConfigurationException e )
         {
@@ -132,6 +146,55 @@ public class MapConverter
         return (Map<Object, Object>) impl;
     }
 
+    /**
+     * Puts each element into the map under its name; by default values are plain expressions.
+     */
+    private class MapElements
+        implements Elements
+    {
+        private final PlexusConfiguration configuration;
+
+        private final Map<Object, Object> map;
+
+        private final ExpressionEvaluator evaluator;
+
+        MapElements( final PlexusConfiguration configuration, final Map<Object, Object> map,
+                     final ExpressionEvaluator evaluator )
+        {
+            this.configuration = configuration;
+            this.map = map;
+            this.evaluator = evaluator;
+        }
+
+        public final void add( final PlexusConfiguration element )
+            throws ComponentConfigurationException
+        {
+            try
+            {
+                map.put( element.getName(), convert( element ) );
+            }
+            catch ( final ComponentConfigurationException e )
+            {
+                if ( null == e.getFailedConfiguration() )
+                {
+                    e.setFailedConfiguration( configuration );
+                }
+                throw e;
+            }
+        }
+
+        public final Object finish()
+        {
+            return map;
+        }
+
+        Object convert( final PlexusConfiguration element )
+            throws ComponentConfigurationException
+        {
+            return fromExpression( element, evaluator );
+        }
+    }
+
     private static Type findElementType( final Type[] typeArguments )
     {
         if ( null != typeArguments && typeArguments.length > 1 )
@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.codehaus.plexus.component.configurator.converters.composite;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.util.Collection;
 import java.util.Dictionary;
@@ -20,9 +21,13 @@ import java.util.Map;
 import org.codehaus.plexus.component.configurator.ComponentConfigurationException;
 import org.codehaus.plexus.component.configurator.ConfigurationListener;
 import org.codehaus.plexus.component.configurator.converters.AbstractConfigurationConverter;
+import org.codehaus.plexus.component.configurator.converters.StreamingConfigurationConverter;
 import org.codehaus.plexus.component.configurator.converters.lookup.ConverterLookup;
 import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
+import org.codehaus.plexus.configuration.CompactPlexusConfiguration;
 import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.codehaus.plexus.util.xml.pull.XmlPullParser;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.eclipse.sisu.plexus.CompositeBeanHelper;
 
 public class ObjectWithFieldsConverter
@@ -142,18 +147,182 @@ public class ObjectWithFieldsConverter
         final CompositeBeanHelper helper = new CompositeBeanHelper( lookup, loader, evaluator, listener );
         for ( int i = 0, size = configuration.getChildCount(); i < size; i++ )
         {
-            final PlexusConfiguration element = configuration.getChild( i );
-            final String propertyName = fromXML( element.getName() );
-            Class<?> valueType;
-            try
+            processElement( helper, bean, loader, configuration.getChild( i ) );
+        }
+    }
+
+    /**
+     * Configures the bean from the element at the parser's current start tag, one property at a time; each property
+     * is applied as soon as its element ends, so there's never a tree for the whole configuration. Collection, array,
+     * and map properties are built one child element at a time, so only the current child is held. Leaves the parser
+     * at the matching end tag.
+     */
+    public void processConfiguration( final ConverterLookup lookup, final Object bean, final ClassLoader loader,
+                                      final XmlPullParser parser, final ExpressionEvaluator evaluator,
+                                      final ConfigurationListener listener )
+        throws ComponentConfigurationException
+    {
+        final CompositeBeanHelper helper = new CompositeBeanHelper( lookup, loader, evaluator, listener );
+        try
+        {
+            parser.require( XmlPullParser.START_TAG, null, null );
+            for ( int event = parser.next(); event != XmlPullParser.END_TAG; event = parser.next() )
             {
-                valueType = getClassForImplementationHint( null, element, loader );
+                if ( event == XmlPullParser.START_TAG )
+                {
+                    processElement( helper, bean, loader, parser );
+                }
+                else if ( event == XmlPullParser.END_DOCUMENT )
+                {
+                    throw new XmlPullParserException( "Unexpected end of document", parser, null );
+                }
+            }
+        }
+        catch ( final XmlPullParserException e )
+        {
+            throw new ComponentConfigurationException( "Cannot read configuration: " + e.getMessage(), e );
+        }
+        catch ( final IOException e )
+        {
+            throw new ComponentConfigurationException( "Cannot read configuration", e );
+        }
+    }
+
+    private void processElement( final CompositeBeanHelper helper, final Object bean, final ClassLoader loader,
+                                 final PlexusConfiguration element )
+        throws ComponentConfigurationException
+    {
+        helper.setProperty( bean, fromXML( element.getName() ), valueType( element, loader ), element );
+    }
+
+    private Class<?> valueType( final PlexusConfiguration element, final ClassLoader loader )
+    {
+        try
+        {
+            return getClassForImplementationHint( null, element, loader );
+        }
+        catch ( final ComponentConfigurationException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Sets the property for the element at the parser's current start tag; when it has child elements and the
+     * property's converter supports it, they're converted one at a time as they're read.
+     */
+    private void processElement( final CompositeBeanHelper helper, final Object bean, final ClassLoader loader,
+                                 final XmlPullParser parser )
+        throws XmlPullParserException, IOException, ComponentConfigurationException
+    {
+        final CompactPlexusConfiguration.Builder element = CompactPlexusConfiguration.builder( parser.getName() );
+        readAttributes( parser, element );
+        final boolean emptyTag = parser.isEmptyElementTag();
+        StringBuilder text = null;
+        int event = parser.next();
+        for ( ; event != XmlPullParser.END_TAG && event != XmlPullParser.START_TAG; event = parser.next() )
+        {
+            if ( event == XmlPullParser.TEXT || event == XmlPullParser.CDSECT || event == XmlPullParser.ENTITY_REF )
+            {
+                if ( null == text )
+                {
+                    text = new StringBuilder();
+                }
+                text.append( parser.getText() );
             }
-            catch ( final ComponentConfigurationException e )
+            else if ( event == XmlPullParser.END_DOCUMENT )
             {
-                valueType = null;
+                throw new XmlPullParserException( "Unexpected end of document", parser, null );
             }
-            helper.setProperty( bean, propertyName, valueType, element );
+        }
+        if ( event == XmlPullParser.END_TAG )
+        {
+            if ( !emptyTag )
+            {
+                element.value( null != text ? text.toString().trim() : "" );
+            }
+            processElement( helper, bean, loader, element.build() );
+            return;
+        }
+
+        // reached the first child element, so decide whether the children can be streamed
+        final PlexusConfiguration header = element.build();
+        final StreamingConfigurationConverter.Elements children =
+            helper.startProperty( bean, fromXML( header.getName() ), valueType( header, loader ), header );
+        for ( ; event != XmlPullParser.END_TAG; event = parser.next() )
+        {
+            if ( event == XmlPullParser.START_TAG )
+            {
+                if ( null != children )
+                {
+                    final CompactPlexusConfiguration.Builder child =
+                        CompactPlexusConfiguration.builder( parser.getName() );
+                    readElement( parser, child );
+                    children.add( child.build() );
+                }
+                else
+                {
+                    readElement( parser, element.child( parser.getName() ) );
+                }
+            }
+            else if ( event == XmlPullParser.END_DOCUMENT )
+            {
+                throw new XmlPullParserException( "Unexpected end of document", parser, null );
+            }
+        }
+        if ( null != children )
+        {
+            children.finish();
+        }
+        else
+        {
+            processElement( helper, bean, loader, element.build() );
+        }
+    }
+
+    /**
+     * Reads the element at the parser's current start tag into the builder, with the same values as Xpp3DomBuilder:
+     * trimmed text for leaf elements, {@code null} for empty tags and elements with children.
+     */
+    private static void readElement( final XmlPullParser parser, final CompactPlexusConfiguration.Builder builder )
+        throws XmlPullParserException, IOException
+    {
+        readAttributes( parser, builder );
+        final boolean emptyTag = parser.isEmptyElementTag();
+        StringBuilder text = null;
+        boolean hasChildren = false;
+        for ( int event = parser.next(); event != XmlPullParser.END_TAG; event = parser.next() )
+        {
+            if ( event == XmlPullParser.START_TAG )
+            {
+                hasChildren = true;
+                readElement( parser, builder.child( parser.getName() ) );
+            }
+            else if ( event == XmlPullParser.TEXT || event == XmlPullParser.CDSECT
+                || event == XmlPullParser.ENTITY_REF )
+            {
+                if ( null == text )
+                {
+                    text = new StringBuilder();
+                }
+                text.append( parser.getText() );
+            }
+            else if ( event == XmlPullParser.END_DOCUMENT )
+            {
+                throw new XmlPullParserException( "Unexpected end of document", parser, null );
+            }
+        }
+        if ( !emptyTag && !hasChildren )
+        {
+            builder.value( null != text ? text.toString().trim() : "" );
+        }
+    }
+
+    private static void readAttributes( final XmlPullParser parser, final CompactPlexusConfiguration.Builder builder )
+    {
+        for ( int i = 0, size = parser.getAttributeCount(); i < size; i++ )
+        {
+            builder.attribute( parser.getAttributeName( i ), parser.getAttributeValue( i ) );
         }
     }
 }
@@ -12,6 +12,9 @@
  *******************************************************************************/
 package org.codehaus.plexus.component.configurator.converters.lookup;
 
+import java.io.File;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -43,11 +46,12 @@ import org.codehaus.plexus.component.configurator.converters.composite.ObjectWit
 import org.codehaus.plexus.component.configurator.converters.composite.PlexusConfigurationConverter;
 import org.codehaus.plexus.component.configurator.converters.composite.PropertiesConverter;
 import org.codehaus.plexus.component.configurator.converters.special.ClassRealmConverter;
-import org.eclipse.sisu.inject.Weak;
 
 public final class DefaultConverterLookup
     implements ConverterLookup
 {
+    private static final EnumConverter ENUM_CONVERTER = new EnumConverter();
+
     private static final ConfigurationConverter[] DEFAULT_CONVERTERS = {
         // optimized ordering...
         new FileConverter(), //
@@ -62,7 +66,7 @@ public final class DefaultConverterLookup
         new UriConverter(), //
         new PathConverter(), //
         new DateConverter(), //
-        new EnumConverter(), //
+        ENUM_CONVERTER, //
         new LongConverter(), //
         new FloatConverter(), //
         new DoubleConverter(), //
@@ -77,51 +81,139 @@ public final class DefaultConverterLookup
         new TemporalConverter(), //
         new ObjectWithFieldsConverter() };
 
-    private final Map<Class<?>, ConfigurationConverter> lookupCache = //
-        Weak.concurrentKeys(); // entries will expire on class unload
+    /**
+     * Default converters for common exact types, so they don't need to walk {@link #DEFAULT_CONVERTERS}.
+     */
+    private static final Map<Class<?>, ConfigurationConverter> EXACT_CONVERTERS =
+        new IdentityHashMap<Class<?>, ConfigurationConverter>();
+
+    static
+    {
+        final Class<?>[] exactTypes = { boolean.class, Boolean.class, byte.class, Byte.class, char.class,
+            Character.class, short.class, Short.class, int.class, Integer.class, long.class, Long.class, float.class,
+            Float.class, double.class, Double.class, String.class, File.class, Path.class };
+
+        for ( final ConfigurationConverter converter : DEFAULT_CONVERTERS )
+        {
+            for ( final Class<?> type : exactTypes )
+            {
+                // first default converter that claims the type wins, just like the full walk
+                if ( !EXACT_CONVERTERS.containsKey( type ) && converter.canConvert( type ) )
+                {
+                    EXACT_CONVERTERS.put( type, converter );
+                }
+            }
+        }
+    }
 
     private final List<ConfigurationConverter> customConverters = //
         new CopyOnWriteArrayList<ConfigurationConverter>();
 
+    /**
+     * Bumped whenever a custom converter is registered, so earlier resolutions can be recognized as stale.
+     */
+    private volatile int generation;
+
+    private final ClassValue<Resolution> resolutions = new ClassValue<Resolution>()
+    {
+        @Override
+        protected Resolution computeValue( final Class<?> type )
+        {
+            return resolve( type );
+        }
+    };
+
     public void registerConverter( final ConfigurationConverter converter )
     {
         customConverters.add( converter );
+        bumpGeneration();
     }
 
     public ConfigurationConverter lookupConverterForType( final Class<?> type )
         throws ComponentConfigurationException
     {
-        ConfigurationConverter converter = lookupCache.get( type );
-        if ( null != converter )
+        Resolution resolution = resolutions.get( type );
+        if ( resolution.generation != generation )
         {
-            return converter;
+            resolutions.remove( type ); // stale, converters were registered since
+            resolution = resolutions.get( type );
         }
+        if ( null != resolution.converter )
+        {
+            return resolution.converter;
+        }
+        throw new ComponentConfigurationException( "Cannot find converter for type: " + type );
+    }
+
+    /**
+     * @return Counter that changes whenever the converters used by this lookup change
+     */
+    public int getGeneration()
+    {
+        return generation;
+    }
+
+    /*
+     * Referenced by some external XML configurations
+     */
+    void setCustomConverters( final List<ConfigurationConverter> converters )
+    {
+        customConverters.addAll( converters );
+        bumpGeneration();
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    private synchronized void bumpGeneration()
+    {
+        generation++;
+    }
+
+    Resolution resolve( final Class<?> type )
+    {
+        final int currentGeneration = generation; // read before the converters, so racing changes aren't missed
         for ( int i = 0; i < customConverters.size(); i++ )
         {
-            converter = customConverters.get( i );
+            final ConfigurationConverter converter = customConverters.get( i );
             if ( converter.canConvert( type ) )
             {
-                lookupCache.put( type, converter );
-                return converter;
+                return new Resolution( currentGeneration, converter );
             }
         }
-        for ( int i = 0; i < DEFAULT_CONVERTERS.length; i++ )
+        ConfigurationConverter converter = EXACT_CONVERTERS.get( type );
+        if ( null == converter && type.isEnum() )
         {
-            converter = DEFAULT_CONVERTERS[i];
-            if ( converter.canConvert( type ) )
+            converter = ENUM_CONVERTER;
+        }
+        for ( int i = 0; null == converter && i < DEFAULT_CONVERTERS.length; i++ )
+        {
+            if ( DEFAULT_CONVERTERS[i].canConvert( type ) )
             {
-                lookupCache.put( type, converter );
-                return converter;
+                converter = DEFAULT_CONVERTERS[i];
             }
         }
-        throw new ComponentConfigurationException( "Cannot find converter for type: " + type );
+        return new Resolution( currentGeneration, converter );
     }
 
-    /*
-     * Referenced by some external XML configurations
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Converter chosen for a type, along with the generation it was chosen in.
      */
-    void setCustomConverters( final List<ConfigurationConverter> converters )
+    static final class Resolution
     {
-        customConverters.addAll( converters );
+        final int generation;
+
+        final ConfigurationConverter converter;
+
+        Resolution( final int generation, final ConfigurationConverter converter )
+        {
+            this.generation = generation;
+            this.converter = converter;
+        }
     }
 }
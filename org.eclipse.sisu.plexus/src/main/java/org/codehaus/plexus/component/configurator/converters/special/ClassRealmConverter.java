@@ -24,6 +24,7 @@ import org.codehaus.plexus.component.configurator.converters.AbstractConfigurati
 import org.codehaus.plexus.component.configurator.converters.lookup.ConverterLookup;
 import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
 import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.eclipse.sisu.plexus.RealmContext;
 
 @SuppressWarnings( { "unchecked", "deprecation" } )
 public final class ClassRealmConverter
@@ -48,61 +49,59 @@ public final class ClassRealmConverter
         this.realm = null;
     }
 
+    /**
+     * Legacy stack-based alternative to opening a {@link RealmContext} with a configuration realm.
+     */
     public static void pushContextRealm( final ClassRealm realm )
     {
+        final RealmContext.Scope scope = RealmContext.current().withConfigurationRealm( realm ).open();
         final Object holder = context.get();
         if ( null == holder )
         {
-            context.set( realm );
+            context.set( scope );
         }
-        else if ( holder instanceof ClassRealm )
+        else if ( holder instanceof RealmContext.Scope )
         {
-            // upgrade from single realm to stack of realms
-            final Deque<ClassRealm> stack = new ArrayDeque<ClassRealm>();
-            stack.add( realm );
-            stack.add( (ClassRealm) holder );
+            // upgrade from single scope to stack of scopes
+            final Deque<RealmContext.Scope> stack = new ArrayDeque<RealmContext.Scope>();
+            stack.add( scope );
+            stack.add( (RealmContext.Scope) holder );
             context.set( stack );
         }
         else if ( holder instanceof Deque<?> )
         {
-            ( (Deque<ClassRealm>) holder ).addFirst( realm );
+            ( (Deque<RealmContext.Scope>) holder ).addFirst( scope );
         }
     }
 
+    /**
+     * Legacy stack-based alternative to closing a {@link RealmContext.Scope}.
+     */
     public static void popContextRealm()
     {
         final Object holder = context.get();
-        if ( holder instanceof ClassRealm )
+        if ( holder instanceof RealmContext.Scope )
         {
             context.remove();
+            ( (RealmContext.Scope) holder ).close();
         }
         else if ( holder instanceof Deque<?> )
         {
-            final Deque<ClassRealm> stack = (Deque<ClassRealm>) holder;
-            if ( stack.size() == 2 )
+            final Deque<RealmContext.Scope> stack = (Deque<RealmContext.Scope>) holder;
+            final RealmContext.Scope scope = stack.removeFirst();
+            if ( stack.size() == 1 )
             {
-                // downgrade to single realm
+                // downgrade to single scope
                 context.set( stack.peekLast() );
             }
-            else
-            {
-                stack.removeFirst();
-            }
+            scope.close();
         }
     }
 
     public ClassRealm peekContextRealm()
     {
-        final Object holder = context.get();
-        if ( holder instanceof ClassRealm )
-        {
-            return (ClassRealm) holder;
-        }
-        else if ( holder instanceof Deque<?> )
-        {
-            return ( (Deque<ClassRealm>) holder ).getFirst();
-        }
-        return realm;
+        final ClassRealm contextRealm = RealmContext.current().getConfigurationRealm();
+        return null != contextRealm ? contextRealm : realm;
     }
 
     public boolean canConvert( final Class<?> type )
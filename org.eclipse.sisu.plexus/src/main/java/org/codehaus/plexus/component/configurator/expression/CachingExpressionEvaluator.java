@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.plexus.component.configurator.expression;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link ExpressionEvaluator} decorator that remembers results, so repeated expressions are only evaluated once.
+ * <p>
+ * Strings without any <code>$</code> are treated as literals and returned without asking the delegate; strings that
+ * do contain one are still passed on, since delegates may unescape them (such as <code>$$</code>). Results are kept
+ * per expression, and per expression and type when the delegate is a {@link TypeAwareExpressionEvaluator}. Failed
+ * evaluations are not remembered. The {@link InvalidationScope} decides how long results stay valid; by default they
+ * last as long as the decorator.
+ */
+public final class CachingExpressionEvaluator
+    implements TypeAwareExpressionEvaluator
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    private static final Object NULL = new Object();
+
+    // ----------------------------------------------------------------------
+    // Public types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Decides when remembered results must be discarded.
+     */
+    public interface InvalidationScope
+    {
+        /**
+         * Results stay valid as long as the decorator.
+         */
+        InvalidationScope NEVER = new InvalidationScope()
+        {
+            public Object currentToken()
+            {
+                return this;
+            }
+        };
+
+        /**
+         * @return Token identifying the current scope; results are discarded when a different token is returned
+         */
+        Object currentToken();
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final ExpressionEvaluator delegate;
+
+    private final InvalidationScope scope;
+
+    private volatile Cache cache;
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    public CachingExpressionEvaluator( final ExpressionEvaluator delegate )
+    {
+        this( delegate, InvalidationScope.NEVER );
+    }
+
+    public CachingExpressionEvaluator( final ExpressionEvaluator delegate, final InvalidationScope scope )
+    {
+        this.delegate = delegate;
+        this.scope = null != scope ? scope : InvalidationScope.NEVER;
+    }
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * Decorates the given evaluator, unless it's already caching; used by configurators so results are at least shared
+     * across a single configuration. Pass your own {@link CachingExpressionEvaluator} to share them for longer.
+     *
+     * @param evaluator The evaluator
+     * @return Caching evaluator
+     */
+    public static ExpressionEvaluator wrap( final ExpressionEvaluator evaluator )
+    {
+        if ( null == evaluator || evaluator instanceof CachingExpressionEvaluator )
+        {
+            return evaluator;
+        }
+        return new CachingExpressionEvaluator( evaluator );
+    }
+
+    /**
+     * @return The evaluator being decorated
+     */
+    public ExpressionEvaluator getDelegate()
+    {
+        return delegate;
+    }
+
+    public Object evaluate( final String expression )
+        throws ExpressionEvaluationException
+    {
+        if ( isLiteral( expression ) )
+        {
+            return expression;
+        }
+        final ConcurrentMap<Object, Object> results = cache().results;
+        Object result = results.get( expression );
+        if ( null == result )
+        {
+            result = delegate.evaluate( expression );
+            results.put( expression, null != result ? result : NULL );
+            return result;
+        }
+        return NULL != result ? result : null;
+    }
+
+    public Object evaluate( final String expression, final Class<?> type )
+        throws ExpressionEvaluationException
+    {
+        if ( !( delegate instanceof TypeAwareExpressionEvaluator ) )
+        {
+            return evaluate( expression ); // type makes no difference to the delegate
+        }
+        if ( isLiteral( expression ) )
+        {
+            return expression;
+        }
+        final ConcurrentMap<Object, Object> results = cache().results;
+        final TypedExpression key = new TypedExpression( expression, type );
+        Object result = results.get( key );
+        if ( null == result )
+        {
+            result = ( (TypeAwareExpressionEvaluator) delegate ).evaluate( expression, type );
+            results.put( key, null != result ? result : NULL );
+            return result;
+        }
+        return NULL != result ? result : null;
+    }
+
+    public File alignToBaseDirectory( final File path )
+    {
+        return delegate.alignToBaseDirectory( path );
+    }
+
+    /**
+     * Discards all remembered results.
+     */
+    public void invalidate()
+    {
+        cache = null;
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    private static boolean isLiteral( final String expression )
+    {
+        return null == expression || expression.indexOf( '$' ) < 0;
+    }
+
+    private Cache cache()
+    {
+        final Object token = scope.currentToken();
+        Cache current = cache;
+        if ( null == current || current.token != token )
+        {
+            current = new Cache( token ); // benign race: at worst a few results are evaluated twice
+            cache = current;
+        }
+        return current;
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Results remembered for a single scope token.
+     */
+    private static final class Cache
+    {
+        final Object token;
+
+        final ConcurrentMap<Object, Object> results = new ConcurrentHashMap<Object, Object>();
+
+        Cache( final Object token )
+        {
+            this.token = token;
+        }
+    }
+
+    /**
+     * Identifies a type-aware result by expression and type.
+     */
+    private static final class TypedExpression
+    {
+        private final String expression;
+
+        private final Class<?> type;
+
+        TypedExpression( final String expression, final Class<?> type )
+        {
+            this.expression = expression;
+            this.type = type;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return expression.hashCode() * 31 + ( null != type ? type.hashCode() : 0 );
+        }
+
+        @Override
+        public boolean equals( final Object rhs )
+        {
+            if ( this == rhs )
+            {
+                return true;
+            }
+            if ( rhs instanceof TypedExpression )
+            {
+                final TypedExpression key = (TypedExpression) rhs;
+                return type == key.type && expression.equals( key.expression );
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.plexus.configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frozen {@link PlexusConfiguration} that keeps children and attributes in flat arrays.
+ * <p>
+ * Element and attribute names are interned, so the many repeated names in large configurations share one copy. Use
+ * {@link #builder(String)} to assemble a configuration; all mutators throw {@link UnsupportedOperationException}.
+ * Asking for a missing child with {@link #getChild(String)} returns an empty detached node instead of adding one.
+ * <p>
+ * {@link #getChildren()} returns the node's own array rather than a copy, so callers must not modify it.
+ */
+public final class CompactPlexusConfiguration
+    implements PlexusConfiguration
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    private static final PlexusConfiguration[] NO_CHILDREN = new PlexusConfiguration[0];
+
+    private static final String[] NO_ATTRIBUTES = new String[0];
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final String name;
+
+    private final String value;
+
+    /**
+     * Attribute names and values, alternating.
+     */
+    private final String[] attributes;
+
+    private final PlexusConfiguration[] children;
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    private CompactPlexusConfiguration( final String name, final String value, final String[] attributes,
+                                        final PlexusConfiguration[] children )
+    {
+        this.name = name;
+        this.value = value;
+        this.attributes = attributes;
+        this.children = children;
+    }
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * @param name The root element name
+     * @return Builder of a new compact configuration
+     */
+    public static Builder builder( final String name )
+    {
+        return new Builder( new HashMap<String, String>(), name );
+    }
+
+    /**
+     * Returns a compact copy of the given configuration; configurations that are already compact are returned as-is.
+     *
+     * @param configuration The configuration
+     * @return Compact configuration
+     */
+    public static CompactPlexusConfiguration copyOf( final PlexusConfiguration configuration )
+    {
+        if ( configuration instanceof CompactPlexusConfiguration )
+        {
+            return (CompactPlexusConfiguration) configuration;
+        }
+        final Builder builder = builder( configuration.getName() );
+        copy( configuration, builder );
+        return builder.build();
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getValue()
+    {
+        return value;
+    }
+
+    public String getValue( final String defaultValue )
+    {
+        return null != value ? value : defaultValue;
+    }
+
+    public void setValue( final String value )
+    {
+        throw new UnsupportedOperationException( "Configuration is read-only" );
+    }
+
+    public String[] getAttributeNames()
+    {
+        final String[] names = new String[attributes.length / 2];
+        for ( int i = 0; i < names.length; i++ )
+        {
+            names[i] = attributes[2 * i];
+        }
+        return names;
+    }
+
+    public String getAttribute( final String attributeName )
+    {
+        for ( int i = 0; i < attributes.length; i += 2 )
+        {
+            if ( attributes[i].equals( attributeName ) )
+            {
+                return attributes[i + 1];
+            }
+        }
+        return null;
+    }
+
+    public String getAttribute( final String attributeName, final String defaultValue )
+    {
+        final String attributeValue = getAttribute( attributeName );
+        return null != attributeValue ? attributeValue : defaultValue;
+    }
+
+    public void setAttribute( final String attributeName, final String attributeValue )
+    {
+        throw new UnsupportedOperationException( "Configuration is read-only" );
+    }
+
+    public PlexusConfiguration getChild( final String childName )
+    {
+        return getChild( childName, true );
+    }
+
+    public PlexusConfiguration getChild( final String childName, final boolean create )
+    {
+        for ( final PlexusConfiguration child : children )
+        {
+            if ( matches( child.getName(), childName ) )
+            {
+                return child;
+            }
+        }
+        return create ? new CompactPlexusConfiguration( childName, null, NO_ATTRIBUTES, NO_CHILDREN ) : null;
+    }
+
+    /**
+     * @return The node's own children array; callers must not modify it
+     */
+    public PlexusConfiguration[] getChildren()
+    {
+        return children; // shared, as the node is frozen
+    }
+
+    public PlexusConfiguration[] getChildren( final String childName )
+    {
+        int count = 0;
+        for ( final PlexusConfiguration child : children )
+        {
+            if ( matches( child.getName(), childName ) )
+            {
+                count++;
+            }
+        }
+        if ( count == 0 )
+        {
+            return NO_CHILDREN;
+        }
+        final PlexusConfiguration[] result = new PlexusConfiguration[count];
+        for ( int i = 0, j = 0; j < count; i++ )
+        {
+            if ( matches( children[i].getName(), childName ) )
+            {
+                result[j++] = children[i];
+            }
+        }
+        return result;
+    }
+
+    public int getChildCount()
+    {
+        return children.length;
+    }
+
+    public PlexusConfiguration getChild( final int index )
+    {
+        return children[index];
+    }
+
+    public void addChild( final PlexusConfiguration child )
+    {
+        throw new UnsupportedOperationException( "Configuration is read-only" );
+    }
+
+    public PlexusConfiguration addChild( final String childName, final String childValue )
+    {
+        throw new UnsupportedOperationException( "Configuration is read-only" );
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder buf = new StringBuilder().append( '<' ).append( name );
+        for ( int i = 0; i < attributes.length; i += 2 )
+        {
+            buf.append( ' ' ).append( attributes[i] ).append( "=\"" ).append( attributes[i + 1] ).append( '"' );
+        }
+        if ( children.length > 0 )
+        {
+            buf.append( '>' );
+            for ( final PlexusConfiguration child : children )
+            {
+                buf.append( child );
+            }
+            buf.append( "</" ).append( name ).append( '>' );
+        }
+        else if ( null != value )
+        {
+            buf.append( '>' ).append( value ).append( "</" ).append( name ).append( '>' );
+        }
+        else
+        {
+            buf.append( "/>" );
+        }
+        return buf.append( '\n' ).toString();
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    private static boolean matches( final String name, final String childName )
+    {
+        return name == childName || name.equals( childName ); // names are interned, so usually identical
+    }
+
+    private static void copy( final PlexusConfiguration configuration, final Builder builder )
+    {
+        builder.value( configuration.getValue() );
+        for ( final String attributeName : configuration.getAttributeNames() )
+        {
+            builder.attribute( attributeName, configuration.getAttribute( attributeName ) );
+        }
+        for ( int i = 0, size = configuration.getChildCount(); i < size; i++ )
+        {
+            final PlexusConfiguration child = configuration.getChild( i );
+            if ( child instanceof CompactPlexusConfiguration )
+            {
+                builder.child( child ); // already compact, share it
+            }
+            else
+            {
+                copy( child, builder.child( child.getName() ) );
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Public types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Assembles a {@link CompactPlexusConfiguration}; child builders share their parent's name table.
+     */
+    public static final class Builder
+    {
+        private final Map<String, String> names;
+
+        private final String name;
+
+        private String value;
+
+        private List<String> attributes;
+
+        private List<Object> children;
+
+        Builder( final Map<String, String> names, final String name )
+        {
+            this.names = names;
+            this.name = intern( name );
+        }
+
+        public Builder value( final String newValue )
+        {
+            value = newValue;
+            return this;
+        }
+
+        /**
+         * Sets an attribute; setting the same attribute again replaces its value, as with
+         * {@link PlexusConfiguration#setAttribute(String, String)}.
+         */
+        public Builder attribute( final String attributeName, final String attributeValue )
+        {
+            if ( null == attributes )
+            {
+                attributes = new ArrayList<String>( 4 );
+            }
+            final String key = intern( attributeName );
+            for ( int i = 0, size = attributes.size(); i < size; i += 2 )
+            {
+                if ( key.equals( attributes.get( i ) ) )
+                {
+                    attributes.set( i + 1, attributeValue );
+                    return this;
+                }
+            }
+            attributes.add( key );
+            attributes.add( attributeValue );
+            return this;
+        }
+
+        /**
+         * Adds a child element and returns its builder; the child is built along with this builder.
+         */
+        public Builder child( final String childName )
+        {
+            final Builder child = new Builder( names, childName );
+            children().add( child );
+            return child;
+        }
+
+        /**
+         * Adds a child element with the given value and no attributes or children.
+         */
+        public Builder child( final String childName, final String childValue )
+        {
+            children().add( new CompactPlexusConfiguration( intern( childName ), childValue, NO_ATTRIBUTES,
+                                                            NO_CHILDREN ) );
+            return this;
+        }
+
+        /**
+         * Adds an existing configuration as a child; compact configurations are shared, others are copied.
+         */
+        public Builder child( final PlexusConfiguration child )
+        {
+            if ( child instanceof CompactPlexusConfiguration )
+            {
+                children().add( child );
+            }
+            else
+            {
+                copy( child, child( child.getName() ) );
+            }
+            return this;
+        }
+
+        public CompactPlexusConfiguration build()
+        {
+            final String[] attributeArray =
+                null != attributes ? attributes.toArray( new String[attributes.size()] ) : NO_ATTRIBUTES;
+            if ( null == children )
+            {
+                return new CompactPlexusConfiguration( name, value, attributeArray, NO_CHILDREN );
+            }
+            final PlexusConfiguration[] childArray = new PlexusConfiguration[children.size()];
+            for ( int i = 0; i < childArray.length; i++ )
+            {
+                final Object child = children.get( i );
+                childArray[i] = child instanceof Builder ? ( (Builder) child ).build() : (PlexusConfiguration) child;
+            }
+            return new CompactPlexusConfiguration( name, value, attributeArray, childArray );
+        }
+
+        private List<Object> children()
+        {
+            if ( null == children )
+            {
+                children = new ArrayList<Object>();
+            }
+            return children;
+        }
+
+        private String intern( final String text )
+        {
+            String result = names.get( text );
+            if ( null == result )
+            {
+                result = text.intern(); // share names across configurations as well
+                names.put( result, result );
+            }
+            return result;
+        }
+    }
+}
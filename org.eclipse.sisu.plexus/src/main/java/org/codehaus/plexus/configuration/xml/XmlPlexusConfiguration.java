@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.codehaus.plexus.configuration.xml;
 
+import org.codehaus.plexus.configuration.CompactPlexusConfiguration;
 import org.codehaus.plexus.configuration.DefaultPlexusConfiguration;
 import org.codehaus.plexus.configuration.PlexusConfiguration;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
@@ -43,6 +44,26 @@ public final class XmlPlexusConfiguration
         }
     }
 
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * Builds a read-only {@link CompactPlexusConfiguration} straight from the given DOM.
+     * <p>
+     * This is a single pass that copies every node of the DOM, without building an intermediate mutable tree. The
+     * result doesn't refer to the DOM, so the DOM can be discarded afterwards.
+     *
+     * @param dom The XML DOM
+     * @return Compact configuration
+     */
+    public static CompactPlexusConfiguration compact( final Xpp3Dom dom )
+    {
+        final CompactPlexusConfiguration.Builder builder = CompactPlexusConfiguration.builder( dom.getName() );
+        copy( dom, builder );
+        return builder.build();
+    }
+
     @Override
     public String toString()
     {
@@ -80,4 +101,21 @@ public final class XmlPlexusConfiguration
     {
         return new XmlPlexusConfiguration( name );
     }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    private static void copy( final Xpp3Dom dom, final CompactPlexusConfiguration.Builder builder )
+    {
+        builder.value( dom.getValue() );
+        for ( final String attribute : dom.getAttributeNames() )
+        {
+            builder.attribute( attribute, dom.getAttribute( attribute ) );
+        }
+        for ( final Xpp3Dom child : dom.getChildren() )
+        {
+            copy( child, builder.child( child.getName() ) );
+        }
+    }
 }
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.plexus.configuration.xml;
+
+import org.codehaus.plexus.configuration.CompactPlexusConfiguration;
+import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Read-only {@link PlexusConfiguration} view of an {@link Xpp3Dom} node.
+ * <p>
+ * Unlike {@link XmlPlexusConfiguration} nothing is copied up-front: child views are only created when asked for, then
+ * reused. Changes made to the DOM after a child view has been created may not be seen. All mutators throw
+ * {@link UnsupportedOperationException}; asking for a missing child with {@link #getChild(String)} returns an empty
+ * detached node instead of adding one.
+ */
+public final class Xpp3DomPlexusConfiguration
+    implements PlexusConfiguration
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    private static final PlexusConfiguration[] NO_CHILDREN = new PlexusConfiguration[0];
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final Xpp3Dom dom;
+
+    private PlexusConfiguration[] children;
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    public Xpp3DomPlexusConfiguration( final Xpp3Dom dom )
+    {
+        this.dom = dom;
+    }
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * @return The underlying DOM node
+     */
+    public Xpp3Dom getDom()
+    {
+        return dom;
+    }
+
+    public String getName()
+    {
+        return dom.getName();
+    }
+
+    public String getValue()
+    {
+        return dom.getValue();
+    }
+
+    public String getValue( final String defaultValue )
+    {
+        final String value = dom.getValue();
+        return null != value ? value : defaultValue;
+    }
+
+    public void setValue( final String value )
+    {
+        throw new UnsupportedOperationException( "Configuration is read-only" );
+    }
+
+    public String[] getAttributeNames()
+    {
+        return dom.getAttributeNames();
+    }
+
+    public String getAttribute( final String attributeName )
+    {
+        return dom.getAttribute( attributeName );
+    }
+
+    public String getAttribute( final String attributeName, final String defaultValue )
+    {
+        final String attributeValue = dom.getAttribute( attributeName );
+        return null != attributeValue ? attributeValue : defaultValue;
+    }
+
+    public void setAttribute( final String attributeName, final String attributeValue )
+    {
+        throw new UnsupportedOperationException( "Configuration is read-only" );
+    }
+
+    public PlexusConfiguration getChild( final String childName )
+    {
+        return getChild( childName, true );
+    }
+
+    public PlexusConfiguration getChild( final String childName, final boolean create )
+    {
+        for ( int i = 0, size = dom.getChildCount(); i < size; i++ )
+        {
+            if ( childName.equals( dom.getChild( i ).getName() ) )
+            {
+                return getChild( i );
+            }
+        }
+        return create ? CompactPlexusConfiguration.builder( childName ).build() : null;
+    }
+
+    public PlexusConfiguration[] getChildren()
+    {
+        final int size = dom.getChildCount();
+        if ( size == 0 )
+        {
+            return NO_CHILDREN;
+        }
+        final PlexusConfiguration[] result = new PlexusConfiguration[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            result[i] = getChild( i );
+        }
+        return result;
+    }
+
+    public PlexusConfiguration[] getChildren( final String childName )
+    {
+        int count = 0;
+        final int size = dom.getChildCount();
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( childName.equals( dom.getChild( i ).getName() ) )
+            {
+                count++;
+            }
+        }
+        if ( count == 0 )
+        {
+            return NO_CHILDREN;
+        }
+        final PlexusConfiguration[] result = new PlexusConfiguration[count];
+        for ( int i = 0, j = 0; j < count; i++ )
+        {
+            if ( childName.equals( dom.getChild( i ).getName() ) )
+            {
+                result[j++] = getChild( i );
+            }
+        }
+        return result;
+    }
+
+    public int getChildCount()
+    {
+        return dom.getChildCount();
+    }
+
+    public PlexusConfiguration getChild( final int index )
+    {
+        PlexusConfiguration[] views = children;
+        if ( null == views || views.length <= index )
+        {
+            views = new PlexusConfiguration[dom.getChildCount()];
+            if ( null != children )
+            {
+                System.arraycopy( children, 0, views, 0, Math.min( children.length, views.length ) );
+            }
+            children = views;
+        }
+        PlexusConfiguration child = views[index];
+        if ( null == child )
+        {
+            child = new Xpp3DomPlexusConfiguration( dom.getChild( index ) );
+            views[index] = child; // benign race: at worst two views of the same node
+        }
+        return child;
+    }
+
+    public void addChild( final PlexusConfiguration child )
+    {
+        throw new UnsupportedOperationException( "Configuration is read-only" );
+    }
+
+    public PlexusConfiguration addChild( final String childName, final String childValue )
+    {
+        throw new UnsupportedOperationException( "Configuration is read-only" );
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder buf = new StringBuilder().append( '<' ).append( getName() );
+        for ( final String a : getAttributeNames() )
+        {
+            buf.append( ' ' ).append( a ).append( "=\"" ).append( getAttribute( a ) ).append( '"' );
+        }
+        if ( getChildCount() > 0 )
+        {
+            buf.append( '>' );
+            for ( int i = 0, size = getChildCount(); i < size; i++ )
+            {
+                buf.append( getChild( i ) );
+            }
+            buf.append( "</" ).append( getName() ).append( '>' );
+        }
+        else if ( null != getValue() )
+        {
+            buf.append( '>' ).append( getValue() ).append( "</" ).append( getName() ).append( '>' );
+        }
+        else
+        {
+            buf.append( "/>" );
+        }
+        return buf.append( '\n' ).toString();
+    }
+}
@@ -13,9 +13,12 @@
 package org.codehaus.plexus.logging;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.codehaus.plexus.personality.plexus.lifecycle.phase.Initializable;
 import org.eclipse.sisu.inject.Weak;
+import org.eclipse.sisu.plexus.Hints;
 import org.eclipse.sisu.plexus.Roles;
 
 public abstract class BaseLoggerManager
@@ -26,11 +29,22 @@ public abstract class BaseLoggerManager
     // Implementation fields
     // ----------------------------------------------------------------------
 
-    private final Map<String, Logger> activeLoggers = Weak.values();
+    /**
+     * Loggers indexed by role then hint; loggers themselves are only weakly held.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, Logger>> activeLoggers =
+        new ConcurrentHashMap<String, ConcurrentMap<String, Logger>>();
+
+    private final Object thresholdLock = new Object();
 
     String threshold = "INFO";
 
-    private int currentThreshold;
+    private volatile int currentThreshold;
+
+    /**
+     * Bumped after each {@link #setThresholds(int)}, so loggers created meanwhile can catch up.
+     */
+    private volatile int thresholdGeneration;
 
     // ----------------------------------------------------------------------
     // Public methods
@@ -41,22 +55,37 @@ public abstract class BaseLoggerManager
         currentThreshold = parseThreshold( threshold );
     }
 
-    public final synchronized Logger getLoggerForComponent( final String role, final String hint )
+    public final Logger getLoggerForComponent( final String role, final String hint )
     {
-        final String name = Roles.canonicalRoleHint( role, hint );
-        Logger logger = activeLoggers.get( name );
+        final String canonicalHint = Hints.isDefaultHint( hint ) ? Hints.DEFAULT_HINT : hint;
+        final ConcurrentMap<String, Logger> roleLoggers = roleLoggers( role );
+        Logger logger = roleLoggers.get( canonicalHint );
         if ( null == logger )
         {
-            logger = createLogger( name );
-            logger.setThreshold( currentThreshold );
-            activeLoggers.put( name, logger );
+            final int generation = thresholdGeneration;
+            final Logger newLogger = createLogger( Roles.canonicalRoleHint( role, canonicalHint ) );
+            newLogger.setThreshold( currentThreshold );
+            logger = roleLoggers.putIfAbsent( canonicalHint, newLogger );
+            if ( null == logger )
+            {
+                logger = newLogger;
+                if ( generation != thresholdGeneration )
+                {
+                    // thresholds changed while we were creating this logger and may have missed it
+                    logger.setThreshold( currentThreshold );
+                }
+            }
         }
         return logger;
     }
 
-    public final synchronized void returnComponentLogger( final String role, final String hint )
+    public final void returnComponentLogger( final String role, final String hint )
     {
-        activeLoggers.remove( Roles.canonicalRoleHint( role, hint ) );
+        final Map<String, Logger> roleLoggers = activeLoggers.get( role );
+        if ( null != roleLoggers )
+        {
+            roleLoggers.remove( Hints.isDefaultHint( hint ) ? Hints.DEFAULT_HINT : hint );
+        }
     }
 
     public final int getThreshold()
@@ -69,12 +98,19 @@ public abstract class BaseLoggerManager
         this.currentThreshold = currentThreshold;
     }
 
-    public final synchronized void setThresholds( final int currentThreshold )
+    public final void setThresholds( final int currentThreshold )
     {
-        this.currentThreshold = currentThreshold;
-        for ( final Logger logger : activeLoggers.values() )
+        synchronized ( thresholdLock ) // only serializes other threshold changes, not logger lookups
         {
-            logger.setThreshold( currentThreshold );
+            this.currentThreshold = currentThreshold;
+            thresholdGeneration++;
+            for ( final Map<String, Logger> roleLoggers : activeLoggers.values() )
+            {
+                for ( final Logger logger : roleLoggers.values() )
+                {
+                    logger.setThreshold( currentThreshold );
+                }
+            }
         }
     }
 
@@ -107,9 +143,14 @@ public abstract class BaseLoggerManager
         return Logger.LEVEL_DEBUG;
     }
 
-    public final synchronized int getActiveLoggerCount()
+    public final int getActiveLoggerCount()
     {
-        return activeLoggers.size();
+        int count = 0;
+        for ( final Map<String, Logger> roleLoggers : activeLoggers.values() )
+        {
+            count += roleLoggers.size();
+        }
+        return count;
     }
 
     // ----------------------------------------------------------------------
@@ -117,4 +158,23 @@ public abstract class BaseLoggerManager
     // ----------------------------------------------------------------------
 
     protected abstract Logger createLogger( String name );
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    private ConcurrentMap<String, Logger> roleLoggers( final String role )
+    {
+        ConcurrentMap<String, Logger> roleLoggers = activeLoggers.get( role );
+        if ( null == roleLoggers )
+        {
+            final ConcurrentMap<String, Logger> newRoleLoggers = Weak.concurrentValues();
+            roleLoggers = activeLoggers.putIfAbsent( role, newRoleLoggers );
+            if ( null == roleLoggers )
+            {
+                roleLoggers = newRoleLoggers;
+            }
+        }
+        return roleLoggers;
+    }
 }
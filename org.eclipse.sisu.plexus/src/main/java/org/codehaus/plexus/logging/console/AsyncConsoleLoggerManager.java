@@ -0,0 +1,556 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.plexus.logging.console;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.codehaus.plexus.logging.AbstractLogger;
+import org.codehaus.plexus.logging.AbstractLoggerManager;
+import org.codehaus.plexus.logging.BaseLoggerManager;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.Disposable;
+
+/**
+ * Console {@link org.codehaus.plexus.logging.LoggerManager} that hands messages to a background writer thread.
+ * <p>
+ * Messages are queued in a bounded ring buffer and written to the console in batches, so logging threads don't wait
+ * on console I/O. The {@link OverflowPolicy} decides what happens when the buffer is full. Queued messages are
+ * flushed when the manager is disposed, which {@link org.codehaus.plexus.DefaultPlexusContainer} does on disposal.
+ */
+public final class AsyncConsoleLoggerManager
+    extends AbstractLoggerManager
+    implements Disposable
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final String[] TAGS = { "[DEBUG] ", "[INFO] ", "[WARNING] ", "[ERROR] ", "[FATAL ERROR] " };
+
+    private static final String EOL = System.getProperty( "line.separator" );
+
+    private static final int MAX_BATCH = 256;
+
+    private static final int SAMPLE_RATE = 16;
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos( 100 );
+
+    private static final long DISPOSE_TIMEOUT_MILLIS = 5000;
+
+    // ----------------------------------------------------------------------
+    // Public types
+    // ----------------------------------------------------------------------
+
+    /**
+     * What to do with a message when the buffer is full.
+     */
+    public enum OverflowPolicy
+    {
+        /**
+         * Wait for the writer to make room.
+         */
+        BLOCK,
+
+        /**
+         * Drop debug messages; wait for the writer with anything else.
+         */
+        DROP_DEBUG,
+
+        /**
+         * Keep one in every sixteen debug and info messages, dropping the rest; wait for the writer with warnings and
+         * errors.
+         */
+        SAMPLE
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final Logger logger = new AsyncConsoleLogger();
+
+    private final RingBuffer<Entry> buffer;
+
+    private final OverflowPolicy policy;
+
+    private final OutputStream out;
+
+    private final Thread writer;
+
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * Guards draining and writing, so only one thread consumes the buffer and output never interleaves.
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * Signalled whenever queued messages have been written, for threads waiting on the writer.
+     */
+    private final ReentrantLock progressLock = new ReentrantLock();
+
+    private final Condition progress = progressLock.newCondition();
+
+    private final AtomicInteger progressWaiters = new AtomicInteger();
+
+    private long reportedDrops;
+
+    private volatile long writtenCount;
+
+    private volatile boolean writerWaiting;
+
+    private volatile boolean disposed;
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    public AsyncConsoleLoggerManager()
+    {
+        this( DEFAULT_CAPACITY, OverflowPolicy.BLOCK );
+    }
+
+    public AsyncConsoleLoggerManager( final int capacity, final OverflowPolicy policy )
+    {
+        this( null, capacity, policy );
+    }
+
+    /**
+     * @param out The output stream; {@code null} means whatever {@link System#out} is when each batch is written
+     * @param capacity The buffer capacity, rounded up to a power of two
+     * @param policy The overflow policy
+     */
+    public AsyncConsoleLoggerManager( final OutputStream out, final int capacity, final OverflowPolicy policy )
+    {
+        this.out = out;
+        this.policy = null != policy ? policy : OverflowPolicy.BLOCK;
+
+        buffer = new RingBuffer<Entry>( capacity );
+
+        writer = new Thread( new BatchWriter(), "plexus-console-logger" );
+        writer.setDaemon( true );
+        writer.start();
+    }
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    public void setThreshold( final String threshold )
+    {
+        logger.setThreshold( BaseLoggerManager.parseThreshold( threshold ) );
+    }
+
+    public Logger getLoggerForComponent( final String role, final String hint )
+    {
+        return logger;
+    }
+
+    public void returnComponentLogger( final String role, final String hint )
+    {
+        // nothing to do
+    }
+
+    public int getThreshold()
+    {
+        return logger.getThreshold();
+    }
+
+    public void setThreshold( final int currentThreshold )
+    {
+        logger.setThreshold( currentThreshold );
+    }
+
+    public void setThresholds( final int currentThreshold )
+    {
+        logger.setThreshold( currentThreshold );
+    }
+
+    public int getActiveLoggerCount()
+    {
+        return 0;
+    }
+
+    /**
+     * @return Number of messages dropped so far because the buffer was full
+     */
+    public long getDroppedCount()
+    {
+        return droppedCount.get();
+    }
+
+    /**
+     * Waits until every message logged before this call has been written.
+     */
+    public void flush()
+    {
+        final long target = buffer.offered();
+        boolean interrupted = false;
+        for ( long written = writtenCount; written < target && writer.isAlive(); written = writtenCount )
+        {
+            interrupted |= awaitProgress( written );
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Flushes queued messages and stops the writer thread; later messages are written directly.
+     */
+    public void dispose()
+    {
+        if ( !disposed )
+        {
+            disposed = true;
+            LockSupport.unpark( writer );
+            try
+            {
+                writer.join( DISPOSE_TIMEOUT_MILLIS );
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+            drainAll(); // in case the writer timed out or missed late messages
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    void log( final int level, final String message, final Throwable throwable )
+    {
+        final Entry entry = new Entry( level, message, throwable );
+        if ( disposed )
+        {
+            writeDirect( entry );
+        }
+        else if ( buffer.offer( entry ) || overflow( entry ) )
+        {
+            if ( disposed )
+            {
+                drainAll(); // writer might have already made its final pass
+            }
+            else if ( writerWaiting )
+            {
+                LockSupport.unpark( writer );
+            }
+        }
+    }
+
+    private boolean overflow( final Entry entry )
+    {
+        final boolean keep;
+        switch ( policy )
+        {
+            case DROP_DEBUG:
+                keep = entry.level > Logger.LEVEL_DEBUG;
+                break;
+            case SAMPLE:
+                keep = entry.level > Logger.LEVEL_INFO || overflowCount.incrementAndGet() % SAMPLE_RATE == 0;
+                break;
+            default:
+                keep = true;
+                break;
+        }
+        if ( !keep )
+        {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        boolean interrupted = false;
+        try
+        {
+            for ( long written = writtenCount; !buffer.offer( entry ); written = writtenCount )
+            {
+                if ( disposed || !writer.isAlive() )
+                {
+                    writeDirect( entry );
+                    return false;
+                }
+                interrupted |= awaitProgress( written );
+            }
+            return true;
+        }
+        finally
+        {
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Wakes the writer and waits until it writes more messages than the given count, or the manager is disposed.
+     *
+     * @return {@code true} if the caller was interrupted while waiting; otherwise {@code false}
+     */
+    private boolean awaitProgress( final long written )
+    {
+        progressWaiters.incrementAndGet(); // before checking the count, so the writer can't miss us
+        progressLock.lock();
+        try
+        {
+            LockSupport.unpark( writer );
+            if ( writtenCount == written && !disposed && writer.isAlive() )
+            {
+                progress.awaitNanos( PARK_NANOS ); // bounded, in case the writer dies without signalling
+            }
+            return false;
+        }
+        catch ( final InterruptedException e )
+        {
+            return true; // keep waiting, the caller restores the interrupt when done
+        }
+        finally
+        {
+            progressLock.unlock();
+            progressWaiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * Wakes any threads waiting for the writer to make progress.
+     */
+    private void signalProgress()
+    {
+        if ( progressWaiters.get() > 0 )
+        {
+            progressLock.lock();
+            try
+            {
+                progress.signalAll();
+            }
+            finally
+            {
+                progressLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the entry on the calling thread, after anything still queued.
+     */
+    private void writeDirect( final Entry entry )
+    {
+        synchronized ( writeLock )
+        {
+            drainAll();
+            write( format( new StringBuilder(), entry ) );
+        }
+    }
+
+    private void drainAll()
+    {
+        final StringBuilder batch = new StringBuilder();
+        while ( drain( batch ) > 0 )
+        {
+            // keep going until the buffer is empty
+        }
+    }
+
+    /**
+     * Writes the next batch of queued messages, reporting any dropped messages first.
+     *
+     * @return Number of queued messages written
+     */
+    int drain( final StringBuilder batch )
+    {
+        final int count;
+        synchronized ( writeLock )
+        {
+            batch.setLength( 0 );
+
+            final long drops = droppedCount.get();
+            if ( drops != reportedDrops )
+            {
+                batch.append( TAGS[Logger.LEVEL_WARN] ).append( "Console logger dropped " );
+                batch.append( drops - reportedDrops ).append( " message(s)" ).append( EOL );
+                reportedDrops = drops;
+            }
+
+            int polled = 0;
+            Entry entry;
+            while ( polled < MAX_BATCH && null != ( entry = buffer.poll() ) )
+            {
+                format( batch, entry );
+                polled++;
+            }
+            if ( batch.length() > 0 )
+            {
+                write( batch );
+            }
+            writtenCount += polled;
+            count = polled;
+        }
+        if ( count > 0 )
+        {
+            signalProgress(); // after updating the count, so waiters see it
+        }
+        return count;
+    }
+
+    static StringBuilder format( final StringBuilder buf, final Entry entry )
+    {
+        buf.append( TAGS[entry.level] ).append( entry.message ).append( EOL );
+        if ( null != entry.throwable )
+        {
+            final StringWriter trace = new StringWriter();
+            entry.throwable.printStackTrace( new PrintWriter( trace ) );
+            buf.append( trace );
+        }
+        return buf;
+    }
+
+    void write( final CharSequence text )
+    {
+        final OutputStream stream = null != out ? out : System.out;
+        try
+        {
+            final WritableByteChannel channel = Channels.newChannel( stream );
+            final ByteBuffer bytes = ByteBuffer.wrap( text.toString().getBytes() );
+            while ( bytes.hasRemaining() )
+            {
+                channel.write( bytes );
+            }
+            stream.flush();
+        }
+        catch ( final IOException e )
+        {
+            // nowhere sensible to report this, same as System.out
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    private static final class Entry
+    {
+        final int level;
+
+        final String message;
+
+        final Throwable throwable;
+
+        Entry( final int level, final String message, final Throwable throwable )
+        {
+            this.level = level;
+            this.message = message;
+            this.throwable = throwable;
+        }
+    }
+
+    /**
+     * Drains the buffer in batches until disposed, then writes whatever is left.
+     */
+    final class BatchWriter
+        implements Runnable
+    {
+        public void run()
+        {
+            final StringBuilder batch = new StringBuilder();
+            while ( true )
+            {
+                final boolean stopping = disposed;
+                if ( drain( batch ) > 0 )
+                {
+                    continue;
+                }
+                if ( stopping )
+                {
+                    signalProgress(); // release anyone still waiting, they'll write directly
+                    break; // nothing left after dispose
+                }
+                writerWaiting = true;
+                if ( buffer.isEmpty() && !disposed )
+                {
+                    LockSupport.parkNanos( PARK_NANOS );
+                }
+                writerWaiting = false;
+            }
+        }
+    }
+
+    final class AsyncConsoleLogger
+        extends AbstractLogger
+    {
+        AsyncConsoleLogger()
+        {
+            super( Logger.LEVEL_INFO, "console" );
+        }
+
+        public void debug( final String message, final Throwable throwable )
+        {
+            if ( isDebugEnabled() )
+            {
+                log( LEVEL_DEBUG, message, throwable );
+            }
+        }
+
+        public void info( final String message, final Throwable throwable )
+        {
+            if ( isInfoEnabled() )
+            {
+                log( LEVEL_INFO, message, throwable );
+            }
+        }
+
+        public void warn( final String message, final Throwable throwable )
+        {
+            if ( isWarnEnabled() )
+            {
+                log( LEVEL_WARN, message, throwable );
+            }
+        }
+
+        public void error( final String message, final Throwable throwable )
+        {
+            if ( isErrorEnabled() )
+            {
+                log( LEVEL_ERROR, message, throwable );
+            }
+        }
+
+        public void fatalError( final String message, final Throwable throwable )
+        {
+            if ( isFatalErrorEnabled() )
+            {
+                log( LEVEL_FATAL, message, throwable );
+            }
+        }
+
+        public Logger getChildLogger( final String name )
+        {
+            return this;
+        }
+    }
+}
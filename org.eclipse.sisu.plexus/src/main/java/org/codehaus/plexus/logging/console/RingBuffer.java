@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.plexus.logging.console;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * <p>
+ * Each slot has a sequence number saying whether it is ready to be written or read, so producers only contend on the
+ * tail counter and never wait for each other.
+ */
+final class RingBuffer<T>
+{
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final int mask;
+
+    private final AtomicReferenceArray<T> slots;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile long head; // only written by the consumer
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    RingBuffer( final int capacity )
+    {
+        int size = 2;
+        while ( size < capacity )
+        {
+            size <<= 1;
+        }
+        mask = size - 1;
+        slots = new AtomicReferenceArray<T>( size );
+        sequences = new AtomicLongArray( size );
+        for ( int i = 0; i < size; i++ )
+        {
+            sequences.set( i, i );
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Shared packaged methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * @return {@code true} if the element was added; {@code false} if the buffer is full
+     */
+    boolean offer( final T element )
+    {
+        while ( true )
+        {
+            final long pos = tail.get();
+            final int index = (int) pos & mask;
+            final long delta = sequences.get( index ) - pos;
+            if ( delta == 0 )
+            {
+                if ( tail.compareAndSet( pos, pos + 1 ) )
+                {
+                    slots.lazySet( index, element );
+                    sequences.set( index, pos + 1 ); // publish to consumer
+                    return true;
+                }
+            }
+            else if ( delta < 0 )
+            {
+                return false; // consumer hasn't freed this slot yet
+            }
+        }
+    }
+
+    /**
+     * @return Next element; {@code null} if the buffer is empty. Consumers must not call this concurrently.
+     */
+    T poll()
+    {
+        final long pos = head;
+        final int index = (int) pos & mask;
+        if ( sequences.get( index ) != pos + 1 )
+        {
+            return null; // nothing published here yet
+        }
+        final T element = slots.get( index );
+        slots.lazySet( index, null );
+        sequences.set( index, pos + mask + 1 ); // free slot for the next lap
+        head = pos + 1;
+        return element;
+    }
+
+    boolean isEmpty()
+    {
+        return sequences.get( (int) head & mask ) != head + 1;
+    }
+
+    /**
+     * @return Number of elements offered so far
+     */
+    long offered()
+    {
+        return tail.get();
+    }
+
+    /**
+     * @return Number of elements polled so far
+     */
+    long polled()
+    {
+        return head;
+    }
+}
@@ -10,19 +10,28 @@
  *******************************************************************************/
 package org.eclipse.sisu.plexus;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
-import java.security.AccessController;
-import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.codehaus.plexus.component.configurator.ComponentConfigurationException;
 import org.codehaus.plexus.component.configurator.ConfigurationListener;
 import org.codehaus.plexus.component.configurator.converters.ConfigurationConverter;
 import org.codehaus.plexus.component.configurator.converters.ParameterizedConfigurationConverter;
+import org.codehaus.plexus.component.configurator.converters.StreamingConfigurationConverter;
 import org.codehaus.plexus.component.configurator.converters.lookup.ConverterLookup;
+import org.codehaus.plexus.component.configurator.converters.lookup.DefaultConverterLookup;
 import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
 import org.codehaus.plexus.configuration.PlexusConfiguration;
 import org.eclipse.sisu.bean.DeclaredMembers;
@@ -35,6 +44,19 @@ import com.google.inject.TypeLiteral;
  */
 public final class CompositeBeanHelper
 {
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    static final ClassValue<BeanPlan> BEAN_PLANS = new ClassValue<BeanPlan>()
+    {
+        @Override
+        protected BeanPlan computeValue( final Class<?> beanType )
+        {
+            return new BeanPlan( beanType ); // stored against the class, so it's released when the class unloads
+        }
+    };
+
     // ----------------------------------------------------------------------
     // Implementation fields
     // ----------------------------------------------------------------------
@@ -75,11 +97,10 @@ public final class CompositeBeanHelper
         throws ComponentConfigurationException
     {
         final Class<?> beanType = bean.getClass();
-        final Type[] paramTypeHolder = new Type[1];
 
         // ----------------------------------------------------------------------
 
-        final Method setter = findMethod( beanType, paramTypeHolder, "set", null );
+        final Slot setter = BEAN_PLANS.get( beanType ).defaultSetter();
         if ( null == setter )
         {
             throw new ComponentConfigurationException( configuration, "Cannot find default setter in " + beanType );
@@ -88,15 +109,14 @@ public final class CompositeBeanHelper
         // ----------------------------------------------------------------------
 
         Object value = defaultValue;
-        final TypeLiteral<?> paramType = TypeLiteral.get( paramTypeHolder[0] );
-        if ( !paramType.getRawType().isInstance( value ) )
+        if ( !setter.rawType().isInstance( value ) )
         {
             if ( configuration.getChildCount() > 0 )
             {
                 throw new ComponentConfigurationException( "Basic element '" + configuration.getName()
                     + "' must not contain child elements" );
             }
-            value = convertProperty( beanType, paramType.getRawType(), paramType.getType(), configuration );
+            value = convertProperty( beanType, setter, configuration );
         }
 
         // ----------------------------------------------------------------------
@@ -109,7 +129,7 @@ public final class CompositeBeanHelper
                 {
                     listener.notifyFieldChangeUsingSetter( "", value, bean );
                 }
-                setter.invoke( bean, value );
+                setter.write( bean, value );
             }
             catch ( final Exception e )
             {
@@ -135,18 +155,11 @@ public final class CompositeBeanHelper
         throws ComponentConfigurationException
     {
         final Class<?> beanType = bean.getClass();
-        final Type[] paramTypeHolder = new Type[1];
+        final PropertyPlan plan = BEAN_PLANS.get( beanType ).property( propertyName, valueType );
 
         // ----------------------------------------------------------------------
 
-        final String title = Character.toTitleCase( propertyName.charAt( 0 ) ) + propertyName.substring( 1 );
-        Method setter = findMethod( beanType, paramTypeHolder, "set" + title, valueType );
-        if ( null == setter )
-        {
-            setter = findMethod( beanType, paramTypeHolder, "add" + title, valueType );
-        }
-
-        // ----------------------------------------------------------------------
+        final Slot setter = plan.setter;
 
         Throwable problem = null;
         Object value = null;
@@ -155,20 +168,14 @@ public final class CompositeBeanHelper
         {
             try
             {
-                final TypeLiteral<?> paramType = TypeLiteral.get( paramTypeHolder[0] );
-                Class<?> rawPropertyType = paramType.getRawType();
-                if ( null != valueType && rawPropertyType.isAssignableFrom( valueType ) )
-                {
-                    rawPropertyType = valueType; // pick more specific type
-                }
-                value = convertProperty( beanType, rawPropertyType, paramType.getType(), configuration );
+                value = convertProperty( beanType, setter, configuration );
                 if ( null != value )
                 {
                     if ( null != listener )
                     {
                         listener.notifyFieldChangeUsingSetter( propertyName, value, bean );
                     }
-                    setter.invoke( bean, value );
+                    setter.write( bean, value );
                     return;
                 }
             }
@@ -184,20 +191,14 @@ public final class CompositeBeanHelper
 
         // ----------------------------------------------------------------------
 
-        final Field field = findField( beanType, propertyName );
+        final Slot field = plan.field;
         if ( null != field )
         {
             try
             {
-                final TypeLiteral<?> fieldType = TypeLiteral.get( field.getGenericType() );
-                Class<?> rawPropertyType = fieldType.getRawType();
-                if ( !rawPropertyType.isInstance( value ) ) // only re-convert if we must
+                if ( !field.rawType().isInstance( value ) ) // only re-convert if we must
                 {
-                    if ( null != valueType && rawPropertyType.isAssignableFrom( valueType ) )
-                    {
-                        rawPropertyType = valueType; // pick more specific type
-                    }
-                    value = convertProperty( beanType, rawPropertyType, fieldType.getType(), configuration );
+                    value = convertProperty( beanType, field, configuration );
                 }
                 if ( null != value )
                 {
@@ -205,7 +206,7 @@ public final class CompositeBeanHelper
                     {
                         listener.notifyFieldChangeUsingReflection( propertyName, value, bean );
                     }
-                    setField( bean, field, value );
+                    field.write( bean, value );
                     return;
                 }
             }
@@ -243,84 +244,491 @@ public final class CompositeBeanHelper
         }
     }
 
+    /**
+     * Starts setting a property from its child elements, passed one at a time so they needn't all be held at once;
+     * the property is set when the returned receiver is finished.
+     * 
+     * @param bean The bean being configured
+     * @param propertyName The property name
+     * @param valueType The value type
+     * @param configuration The property's name and attributes, without its children
+     * @return Receiver for the child elements; {@code null} if the property must be set using
+     *         {@link #setProperty(Object, String, Class, PlexusConfiguration)}
+     */
+    public StreamingConfigurationConverter.Elements startProperty( final Object bean, final String propertyName,
+                                                                   final Class<?> valueType,
+                                                                   final PlexusConfiguration configuration )
+        throws ComponentConfigurationException
+    {
+        final Class<?> beanType = bean.getClass();
+        final PropertyPlan plan = BEAN_PLANS.get( beanType ).property( propertyName, valueType );
+
+        final Slot slot = null != plan.setter ? plan.setter : plan.field;
+        final ConfigurationConverter converter;
+        try
+        {
+            // children can only be read once, so don't stream if the field might need a different conversion
+            if ( null == slot || null != plan.setter && null != plan.field
+                && ( plan.setter.convertType() != plan.field.convertType()
+                    || !Arrays.equals( plan.setter.typeArguments(), plan.field.typeArguments() ) ) )
+            {
+                return null;
+            }
+            converter = slot.converter( lookup );
+        }
+        catch ( final RuntimeException e )
+        {
+            return null; // let setProperty report the problem
+        }
+        catch ( final LinkageError e )
+        {
+            return null;
+        }
+        if ( !( converter instanceof StreamingConfigurationConverter ) )
+        {
+            return null;
+        }
+
+        final StreamingConfigurationConverter.Elements elements =
+            ( (StreamingConfigurationConverter) converter ).startElements( lookup, configuration, slot.convertType(),
+                                                                           slot.typeArguments(), beanType, loader,
+                                                                           evaluator, listener );
+        return new StreamingConfigurationConverter.Elements()
+        {
+            public void add( final PlexusConfiguration element )
+                throws ComponentConfigurationException
+            {
+                elements.add( element );
+            }
+
+            public Object finish()
+                throws ComponentConfigurationException
+            {
+                final Object value = elements.finish();
+                writeProperty( bean, propertyName, plan, value, configuration );
+                return value;
+            }
+        };
+    }
+
     // ----------------------------------------------------------------------
     // Implementation methods
     // ----------------------------------------------------------------------
 
-    private Object convertProperty( final Class<?> beanType, final Class<?> rawPropertyType,
-                                    final Type genericPropertyType, final PlexusConfiguration configuration )
+    private Object convertProperty( final Class<?> beanType, final Slot slot, final PlexusConfiguration configuration )
         throws ComponentConfigurationException
     {
-        final ConfigurationConverter converter = lookup.lookupConverterForType( rawPropertyType );
-        if ( !( genericPropertyType instanceof Class<?> ) && converter instanceof ParameterizedConfigurationConverter )
+        final ConfigurationConverter converter = slot.converter( lookup );
+        final Type[] propertyTypeArgs = slot.typeArguments();
+        if ( null != propertyTypeArgs && converter instanceof ParameterizedConfigurationConverter )
         {
-            final Type[] propertyTypeArgs = TypeArguments.get( genericPropertyType );
             return ( (ParameterizedConfigurationConverter) converter ).fromConfiguration( lookup, configuration,
-                                                                                          rawPropertyType,
+                                                                                          slot.convertType(),
                                                                                           propertyTypeArgs, beanType,
                                                                                           loader, evaluator, listener );
         }
-        return converter.fromConfiguration( lookup, configuration, rawPropertyType, beanType, loader, evaluator,
+        return converter.fromConfiguration( lookup, configuration, slot.convertType(), beanType, loader, evaluator,
                                             listener );
     }
 
-    private static Method findMethod( final Class<?> beanType, final Type[] paramTypeHolder, final String methodName,
-                               final Class<?> valueType )
+    /**
+     * Writes an already converted value using the setter, falling back to the field like
+     * {@link #setProperty(Object, String, Class, PlexusConfiguration)}.
+     */
+    private void writeProperty( final Object bean, final String propertyName, final PropertyPlan plan,
+                                final Object value, final PlexusConfiguration configuration )
+        throws ComponentConfigurationException
     {
-        Method candidate = null;
-        for ( final Method m : beanType.getMethods() )
+        Throwable problem = null;
+        if ( null != plan.setter )
         {
-            if ( methodName.equals( m.getName() ) && !Modifier.isStatic( m.getModifiers() ) )
+            try
             {
-                final Type[] paramTypes = m.getGenericParameterTypes();
-                if ( paramTypes.length == 1 )
+                if ( null != listener )
                 {
-                    if ( valueType != null )
+                    listener.notifyFieldChangeUsingSetter( propertyName, value, bean );
+                }
+                plan.setter.write( bean, value );
+                return;
+            }
+            catch ( final Exception e )
+            {
+                problem = e;
+            }
+            catch ( final LinkageError e )
+            {
+                problem = e;
+            }
+        }
+        if ( null != plan.field )
+        {
+            try
+            {
+                if ( null != listener )
+                {
+                    listener.notifyFieldChangeUsingReflection( propertyName, value, bean );
+                }
+                plan.field.write( bean, value );
+                return;
+            }
+            catch ( final Exception e )
+            {
+                if ( null == problem )
+                {
+                    problem = e;
+                }
+            }
+            catch ( final LinkageError e )
+            {
+                if ( null == problem )
+                {
+                    problem = e;
+                }
+            }
+        }
+        if ( problem instanceof ComponentConfigurationException )
+        {
+            throw (ComponentConfigurationException) problem;
+        }
+        final String reason = "Cannot set '" + propertyName + "' in " + bean.getClass();
+        throw new ComponentConfigurationException( configuration, reason, problem );
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Resolved setters and fields for a bean class, so repeated configuration of the same class skips reflection.
+     */
+    static final class BeanPlan
+    {
+        // ----------------------------------------------------------------------
+        // Implementation fields
+        // ----------------------------------------------------------------------
+
+        private final Class<?> beanType;
+
+        private final Map<String, Method[]> methods = new HashMap<String, Method[]>();
+
+        private final ConcurrentMap<Object, PropertyPlan> properties =
+            new ConcurrentHashMap<Object, PropertyPlan>( 16, 0.75f, 1 );
+
+        private volatile Slot defaultSetter;
+
+        // ----------------------------------------------------------------------
+        // Constructors
+        // ----------------------------------------------------------------------
+
+        BeanPlan( final Class<?> beanType )
+        {
+            this.beanType = beanType;
+
+            // index public single-argument instance methods by name, keeping their original order
+            final Map<String, List<Method>> index = new HashMap<String, List<Method>>();
+            for ( final Method m : beanType.getMethods() )
+            {
+                if ( m.getParameterTypes().length == 1 && !Modifier.isStatic( m.getModifiers() ) )
+                {
+                    List<Method> candidates = index.get( m.getName() );
+                    if ( null == candidates )
                     {
-                        if ( m.getParameters()[0].getType().isAssignableFrom( valueType ) )
-                        {
-                            paramTypeHolder[0] = paramTypes[0];
-                            return m;
-                        }
+                        index.put( m.getName(), candidates = new ArrayList<Method>( 1 ) );
                     }
-                    // backward compat we keep returning the first method found
-                    if ( candidate == null )
+                    candidates.add( m );
+                }
+            }
+            for ( final Entry<String, List<Method>> e : index.entrySet() )
+            {
+                methods.put( e.getKey(), e.getValue().toArray( new Method[e.getValue().size()] ) );
+            }
+        }
+
+        // ----------------------------------------------------------------------
+        // Local methods
+        // ----------------------------------------------------------------------
+
+        Slot defaultSetter()
+        {
+            Slot setter = defaultSetter;
+            if ( null == setter )
+            {
+                setter = findMethod( "set", null );
+                defaultSetter = setter;
+            }
+            return setter;
+        }
+
+        PropertyPlan property( final String propertyName, final Class<?> valueType )
+        {
+            // don't let this plan keep value types from unrelated class loaders alive
+            final boolean cacheable = null == valueType || isVisible( valueType );
+
+            final Object key = null == valueType ? propertyName : new PropertyKey( propertyName, valueType );
+            PropertyPlan plan = cacheable ? properties.get( key ) : null;
+            if ( null == plan )
+            {
+                final String title = Character.toTitleCase( propertyName.charAt( 0 ) ) + propertyName.substring( 1 );
+                Slot setter = findMethod( "set" + title, valueType );
+                if ( null == setter )
+                {
+                    setter = findMethod( "add" + title, valueType );
+                }
+                plan = new PropertyPlan( setter, findField( propertyName, valueType ) );
+                if ( cacheable )
+                {
+                    final PropertyPlan oldPlan = properties.putIfAbsent( key, plan );
+                    if ( null != oldPlan )
                     {
-                        paramTypeHolder[0] = paramTypes[0];
-                        candidate = m;
+                        plan = oldPlan;
                     }
                 }
             }
+            return plan;
         }
-        return candidate;
-    }
 
-    private static Field findField( final Class<?> beanType, final String fieldName )
-    {
-        for ( final Member f : new DeclaredMembers( beanType, View.FIELDS ) )
+        // ----------------------------------------------------------------------
+        // Implementation methods
+        // ----------------------------------------------------------------------
+
+        private boolean isVisible( final Class<?> valueType )
         {
-            if ( fieldName.equals( f.getName() ) && !Modifier.isStatic( f.getModifiers() ) )
+            final ClassLoader valueLoader = valueType.getClassLoader();
+            for ( ClassLoader l = beanType.getClassLoader(); null != valueLoader; l = l.getParent() )
             {
-                return (Field) f;
+                if ( valueLoader == l )
+                {
+                    return true;
+                }
+                if ( null == l )
+                {
+                    return false;
+                }
+            }
+            return true; // bootstrap type
+        }
+
+        private Slot findMethod( final String methodName, final Class<?> valueType )
+        {
+            final Method[] candidates = methods.get( methodName );
+            if ( null == candidates )
+            {
+                return null;
+            }
+            if ( valueType != null )
+            {
+                for ( final Method m : candidates )
+                {
+                    if ( m.getParameterTypes()[0].isAssignableFrom( valueType ) )
+                    {
+                        return new Slot( m, valueType );
+                    }
+                }
+            }
+            // backward compat we keep returning the first method found
+            final Method m = candidates[0];
+            return new Slot( m, valueType );
+        }
+
+        private Slot findField( final String fieldName, final Class<?> valueType )
+        {
+            for ( final Member f : new DeclaredMembers( beanType, View.FIELDS ) )
+            {
+                if ( fieldName.equals( f.getName() ) && !Modifier.isStatic( f.getModifiers() ) )
+                {
+                    return new Slot( f, valueType );
+                }
             }
+            return null;
         }
-        return null;
     }
 
-    private static void setField( final Object bean, final Field field, final Object value )
-        throws Exception
+    /**
+     * Resolved setter and field for a property.
+     */
+    static final class PropertyPlan
     {
-        if ( !field.isAccessible() )
+        final Slot setter;
+
+        final Slot field;
+
+        PropertyPlan( final Slot setter, final Slot field )
         {
-            AccessController.doPrivileged( new PrivilegedAction<Void>()
+            this.setter = setter;
+            this.field = field;
+        }
+    }
+
+    /**
+     * Setter or field along with its resolved property type, converter, and writer.
+     */
+    static final class Slot
+    {
+        // ----------------------------------------------------------------------
+        // Implementation fields
+        // ----------------------------------------------------------------------
+
+        final Member member;
+
+        private Class<?> rawType;
+
+        private Class<?> convertType;
+
+        private Type[] typeArguments;
+
+        private Throwable problem;
+
+        private volatile ConverterChoice converterChoice;
+
+        private volatile PropertyWriter writer;
+
+        // ----------------------------------------------------------------------
+        // Constructors
+        // ----------------------------------------------------------------------
+
+        Slot( final Member member, final Class<?> valueType )
+        {
+            this.member = member;
+            try
             {
-                public Void run()
+                final Type genericType = member instanceof Method ? ( (Method) member ).getGenericParameterTypes()[0]
+                                : ( (Field) member ).getGenericType();
+
+                final TypeLiteral<?> propertyType = TypeLiteral.get( genericType );
+                rawType = propertyType.getRawType();
+                if ( null != valueType && rawType.isAssignableFrom( valueType ) )
                 {
-                    field.setAccessible( true );
-                    return null;
+                    convertType = valueType; // pick more specific type
                 }
-            } );
+                else
+                {
+                    convertType = rawType;
+                }
+
+                final Type type = propertyType.getType();
+                typeArguments = type instanceof Class<?> ? null : TypeArguments.get( type );
+            }
+            catch ( final RuntimeException e )
+            {
+                problem = e; // report when the slot is used, same as uncached resolution
+            }
+            catch ( final LinkageError e )
+            {
+                problem = e;
+            }
+        }
+
+        // ----------------------------------------------------------------------
+        // Local methods
+        // ----------------------------------------------------------------------
+
+        Class<?> rawType()
+        {
+            if ( problem instanceof RuntimeException )
+            {
+                throw (RuntimeException) problem;
+            }
+            if ( null != problem )
+            {
+                throw (LinkageError) problem;
+            }
+            return rawType;
+        }
+
+        Class<?> convertType()
+        {
+            rawType();
+            return convertType;
+        }
+
+        Type[] typeArguments()
+        {
+            rawType();
+            return typeArguments;
+        }
+
+        ConfigurationConverter converter( final ConverterLookup lookup )
+            throws ComponentConfigurationException
+        {
+            if ( !( lookup instanceof DefaultConverterLookup ) )
+            {
+                return lookup.lookupConverterForType( convertType() ); // can't tell when its choice changes
+            }
+            final int generation = ( (DefaultConverterLookup) lookup ).getGeneration();
+            ConverterChoice choice = converterChoice;
+            if ( null == choice || choice.get() != lookup || choice.generation != generation )
+            {
+                choice = new ConverterChoice( lookup, generation, lookup.lookupConverterForType( convertType() ) );
+                converterChoice = choice;
+            }
+            return choice.converter;
+        }
+
+        void write( final Object bean, final Object value )
+            throws Exception
+        {
+            PropertyWriter w = writer;
+            if ( null == w )
+            {
+                w = PropertyWriters.writerFor( member );
+                writer = w;
+            }
+            w.write( bean, value );
+        }
+    }
+
+    /**
+     * Converter picked by a particular lookup; the lookup is weakly held so it isn't kept alive by the plan.
+     */
+    private static final class ConverterChoice
+        extends WeakReference<ConverterLookup>
+    {
+        final int generation;
+
+        final ConfigurationConverter converter;
+
+        ConverterChoice( final ConverterLookup lookup, final int generation, final ConfigurationConverter converter )
+        {
+            super( lookup );
+            this.generation = generation;
+            this.converter = converter;
+        }
+    }
+
+    /**
+     * Property name plus specific value type.
+     */
+    private static final class PropertyKey
+    {
+        private final String name;
+
+        private final Class<?> valueType;
+
+        PropertyKey( final String name, final Class<?> valueType )
+        {
+            this.name = name;
+            this.valueType = valueType;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return name.hashCode() * 31 + valueType.hashCode();
+        }
+
+        @Override
+        public boolean equals( final Object rhs )
+        {
+            if ( this == rhs )
+            {
+                return true;
+            }
+            if ( rhs instanceof PropertyKey )
+            {
+                final PropertyKey key = (PropertyKey) rhs;
+                return valueType == key.valueType && name.equals( key.name );
+            }
+            return false;
         }
-        field.set( bean, value );
     }
 }
@@ -10,18 +10,21 @@
  *******************************************************************************/
 package org.eclipse.sisu.plexus;
 
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+
 import javax.inject.Inject;
 
 import org.codehaus.plexus.PlexusConstants;
 import org.eclipse.sisu.BeanEntry;
 import org.eclipse.sisu.inject.BeanLocator;
+import org.eclipse.sisu.inject.Weak;
 
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
 import com.google.inject.name.Named;
-import com.google.inject.name.Names;
 
 /**
  * {@link PlexusBeanLocator} that locates beans of various types from zero or more {@link Injector}s.
@@ -40,6 +43,10 @@ public final class DefaultPlexusBeanLocator
 
     private final String visibility;
 
+    private final ConcurrentMap<ViewKey, Iterable<?>> cachedViews = Weak.concurrentValues();
+
+    private final ConcurrentMap<TypeLiteral<?>, HintIndex<?>> hintIndexes = Weak.concurrentValues();
+
     // ----------------------------------------------------------------------
     // Constructors
     // ----------------------------------------------------------------------
@@ -65,12 +72,110 @@ public final class DefaultPlexusBeanLocator
     @SuppressWarnings( "unchecked" )
     public <T> Iterable<PlexusBean<T>> locate( final TypeLiteral<T> role, final String... hints )
     {
-        final Key<T> key = hints.length == 1 ? Key.get( role, Names.named( hints[0] ) ) : Key.get( role, Named.class );
-        Iterable<BeanEntry<Named, T>> beans = (Iterable<BeanEntry<Named, T>>) beanLocator.<Named, T> locate( key );
-        if ( PlexusConstants.REALM_VISIBILITY.equalsIgnoreCase( visibility ) )
+        // views are live, so everyone asking for the same role and hints can share the same view
+        Iterable<PlexusBean<T>> view = (Iterable<PlexusBean<T>>) cachedViews.get( new ViewKey( role, hints ) );
+        if ( null == view )
+        {
+            final String[] hintsCopy = hints.clone(); // caller might reuse their array
+            final Iterable<PlexusBean<T>> newView = newView( role, hintsCopy );
+            view = (Iterable<PlexusBean<T>>) cachedViews.putIfAbsent( new ViewKey( role, hintsCopy ), newView );
+            if ( null == view )
+            {
+                view = newView;
+            }
+        }
+        return view;
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    @SuppressWarnings( "unchecked" )
+    private <T> Iterable<PlexusBean<T>> newView( final TypeLiteral<T> role, final String[] hints )
+    {
+        if ( hints.length == 0 )
+        {
+            final Iterable<BeanEntry<Named, T>> beans =
+                (Iterable<BeanEntry<Named, T>>) beanLocator.<Named, T> locate( Key.get( role, Named.class ) );
+            return new DefaultPlexusBeans<T>( filter( beans ) );
+        }
+        // hinted lookups go through the role's hint index rather than filtering every bean of the role
+        final HintIndex<T> index = hintIndex( role );
+        if ( hints.length == 1 )
+        {
+            return new DefaultPlexusBeans<T>( filter( index.sequence( hints[0] ) ) );
+        }
+        return new HintedPlexusBeans<T>( index, isRealmVisibility() ? realmManager : null, role, hints );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private <T> HintIndex<T> hintIndex( final TypeLiteral<T> role )
+    {
+        HintIndex<T> index = (HintIndex<T>) hintIndexes.get( role );
+        if ( null == index )
+        {
+            final HintIndex<T> newIndex = new HintIndex<T>( beanLocator, role );
+            index = (HintIndex<T>) hintIndexes.putIfAbsent( role, newIndex );
+            if ( null == index )
+            {
+                index = newIndex;
+            }
+        }
+        return index;
+    }
+
+    private <T> Iterable<BeanEntry<Named, T>> filter( final Iterable<BeanEntry<Named, T>> beans )
+    {
+        return isRealmVisibility() ? new RealmFilteredBeans<T>( realmManager, beans ) : beans;
+    }
+
+    private boolean isRealmVisibility()
+    {
+        return PlexusConstants.REALM_VISIBILITY.equalsIgnoreCase( visibility );
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Identifies a cached view by role and hints.
+     */
+    private static final class ViewKey
+    {
+        private final TypeLiteral<?> role;
+
+        private final String[] hints;
+
+        private final int hash;
+
+        ViewKey( final TypeLiteral<?> role, final String[] hints )
+        {
+            this.role = role;
+            this.hints = hints;
+            this.hash = role.hashCode() * 31 + Arrays.hashCode( hints );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals( final Object rhs )
         {
-            beans = new RealmFilteredBeans<T>( realmManager, beans );
+            if ( this == rhs )
+            {
+                return true;
+            }
+            if ( rhs instanceof ViewKey )
+            {
+                final ViewKey key = (ViewKey) rhs;
+                return hash == key.hash && role.equals( key.role ) && Arrays.equals( hints, key.hints );
+            }
+            return false;
         }
-        return hints.length <= 1 ? new DefaultPlexusBeans<T>( beans ) : new HintedPlexusBeans<T>( beans, role, hints );
     }
 }
@@ -0,0 +1,423 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.sisu.inject.Logs;
+
+/**
+ * Beans whose activation was deferred while an injector was being built, along with the requirements between them.
+ * <p>
+ * Beans are recorded in the order they were provisioned, so requirements always come before the beans that need them.
+ * When run, each bean is activated on a bounded pool as soon as the beans it requires have been activated. Beans with
+ * collection or map requirements may look up any component, so they wait for every bean recorded before them.
+ * <p>
+ * A bean that's needed before then is activated early, on the thread that needs it, after the beans it requires.
+ */
+final class DeferredActivations
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private static final ThreadLocal<Boolean> ACTIVATING = new ThreadLocal<Boolean>();
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final Map<Object, Node> nodes = new IdentityHashMap<Object, Node>();
+
+    private final List<Node> order = new ArrayList<Node>();
+
+    private final Map<Object, List<Object>> requirements = new IdentityHashMap<Object, List<Object>>();
+
+    private final Map<Object, Boolean> barriers = new IdentityHashMap<Object, Boolean>();
+
+    private CountDownLatch finished;
+
+    // ----------------------------------------------------------------------
+    // Local methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * Records that the given bean has been injected with the given requirement.
+     */
+    synchronized void addRequirement( final Object bean, final Object requirement )
+    {
+        if ( requirement instanceof Collection<?> || requirement instanceof Map<?, ?> )
+        {
+            barriers.put( bean, Boolean.TRUE ); // lazy collection of components, might include any earlier bean
+        }
+        else
+        {
+            List<Object> beanRequirements = requirements.get( bean );
+            if ( null == beanRequirements )
+            {
+                requirements.put( bean, beanRequirements = new ArrayList<Object>( 2 ) );
+            }
+            beanRequirements.add( requirement );
+        }
+    }
+
+    /**
+     * Records the given bean for activation once the injector is built.
+     */
+    synchronized void add( final Object bean )
+    {
+        if ( !nodes.containsKey( bean ) )
+        {
+            final Node node = new Node( bean );
+            nodes.put( bean, node );
+            order.add( node );
+        }
+    }
+
+    /**
+     * Activates the beans recorded so far that the given bean requires; used for beans that aren't deferred.
+     */
+    void activateRequirements( final PlexusLifecycleManager manager, final Object bean )
+    {
+        final List<Node> required;
+        synchronized ( this )
+        {
+            required = requiredNodes( bean, order.size() );
+            requirements.remove( bean );
+            barriers.remove( bean );
+        }
+        for ( final Node node : required )
+        {
+            activate( manager, node );
+            if ( null != node.problem )
+            {
+                Logs.throwUnchecked( node.problem );
+            }
+        }
+    }
+
+    /**
+     * Activates the given recorded bean now, on the calling thread, after the recorded beans it requires. Waits if
+     * another thread is already activating it, unless the caller is itself activating a recorded bean; the two beans
+     * might need each other, so it gets the bean as-is, same as a cycle during sequential activation.
+     */
+    void activate( final PlexusLifecycleManager manager, final Object bean )
+    {
+        final Node node;
+        synchronized ( this )
+        {
+            node = nodes.get( bean );
+        }
+        if ( null != node )
+        {
+            activate( manager, node );
+            if ( null != node.problem )
+            {
+                Logs.throwUnchecked( node.problem );
+            }
+        }
+    }
+
+    /**
+     * Activates all recorded beans using the given number of threads; waits until they are all finished.
+     *
+     * @param manager The lifecycle manager
+     * @param threads The number of threads
+     */
+    void run( final PlexusLifecycleManager manager, final int threads )
+    {
+        synchronized ( this )
+        {
+            if ( order.isEmpty() )
+            {
+                return;
+            }
+            link();
+            finished = new CountDownLatch( order.size() );
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool( Math.min( threads, order.size() ),
+                                                                       new ActivationThreadFactory() );
+        try
+        {
+            final List<Node> ready = new ArrayList<Node>();
+            for ( final Node node : order )
+            {
+                if ( node.isReady() )
+                {
+                    ready.add( node ); // collect first, as submitted nodes may start releasing others
+                }
+            }
+            for ( final Node node : ready )
+            {
+                submit( executor, manager, node );
+            }
+            finished.await();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            Logs.throwUnchecked( e );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        for ( final Node node : order )
+        {
+            if ( null != node.problem )
+            {
+                Logs.throwUnchecked( node.problem ); // first failure, in provisioning order
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * @return Nodes recorded before the given limit that the given bean requires
+     */
+    private List<Node> requiredNodes( final Object bean, final int limit )
+    {
+        if ( barriers.containsKey( bean ) )
+        {
+            return new ArrayList<Node>( order.subList( 0, limit ) );
+        }
+        final List<Node> required = new ArrayList<Node>();
+        final List<Object> beanRequirements = requirements.get( bean );
+        if ( null != beanRequirements )
+        {
+            for ( final Object requirement : beanRequirements )
+            {
+                final Node node = nodes.get( requirement );
+                if ( null != node && node.index < limit )
+                {
+                    required.add( node );
+                }
+            }
+        }
+        return required;
+    }
+
+    private void activate( final PlexusLifecycleManager manager, final Node node )
+    {
+        if ( node.claimed.compareAndSet( false, true ) )
+        {
+            final Boolean activating = ACTIVATING.get();
+            ACTIVATING.set( Boolean.TRUE );
+            try
+            {
+                final List<Node> required;
+                synchronized ( this )
+                {
+                    required = requiredNodes( node.bean, node.index );
+                }
+                for ( final Node requirement : required )
+                {
+                    activate( manager, requirement ); // already done, unless this bean is needed early
+                    if ( requirement.skip || null != requirement.problem )
+                    {
+                        node.skip = true; // don't activate beans whose requirements failed to activate
+                    }
+                }
+                if ( !node.skip )
+                {
+                    manager.activateNow( node.bean );
+                }
+            }
+            catch ( final Throwable e )
+            {
+                node.problem = e;
+            }
+            finally
+            {
+                if ( null == activating )
+                {
+                    ACTIVATING.remove();
+                }
+                manager.activated( node.bean );
+                node.done.countDown();
+            }
+        }
+        else if ( null == ACTIVATING.get() )
+        {
+            node.awaitDone();
+        }
+    }
+
+    /**
+     * Turns recorded requirements into edges between nodes; only edges to earlier nodes are kept to avoid cycles.
+     */
+    private void link()
+    {
+        for ( int i = 0; i < order.size(); i++ )
+        {
+            final Node node = order.get( i );
+            if ( barriers.containsKey( node.bean ) )
+            {
+                for ( int j = 0; j < i; j++ )
+                {
+                    order.get( j ).addDependent( node );
+                }
+                continue;
+            }
+            final List<Object> beanRequirements = requirements.get( node.bean );
+            if ( null != beanRequirements )
+            {
+                for ( final Object requirement : beanRequirements )
+                {
+                    final Node required = nodes.get( requirement );
+                    if ( null != required && required.index < i )
+                    {
+                        required.addDependent( node );
+                    }
+                }
+            }
+        }
+    }
+
+    private void submit( final ExecutorService executor, final PlexusLifecycleManager manager, final Node node )
+    {
+        executor.execute( new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    activate( manager, node ); // might have been activated early
+                }
+                finally
+                {
+                    finished( executor, manager, node );
+                }
+            }
+        } );
+    }
+
+    private void finished( final ExecutorService executor, final PlexusLifecycleManager manager, final Node node )
+    {
+        final boolean failed = node.skip || null != node.problem;
+        for ( final Node dependent : node.dependents )
+        {
+            if ( failed )
+            {
+                dependent.skip = true; // don't activate beans whose requirements failed to activate
+            }
+            if ( dependent.requirementDone() )
+            {
+                submit( executor, manager, dependent );
+            }
+        }
+        finished.countDown();
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Deferred bean along with the beans waiting for it.
+     */
+    private final class Node
+    {
+        final Object bean;
+
+        final int index;
+
+        final List<Node> dependents = new ArrayList<Node>( 2 );
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        final AtomicBoolean claimed = new AtomicBoolean();
+
+        final CountDownLatch done = new CountDownLatch( 1 );
+
+        volatile boolean skip;
+
+        volatile Throwable problem;
+
+        Node( final Object bean )
+        {
+            this.bean = bean;
+            this.index = order.size();
+        }
+
+        void addDependent( final Node node )
+        {
+            dependents.add( node );
+            node.pending.incrementAndGet();
+        }
+
+        boolean isReady()
+        {
+            return pending.get() == 0;
+        }
+
+        boolean requirementDone()
+        {
+            return pending.decrementAndGet() == 0;
+        }
+
+        void awaitDone()
+        {
+            boolean interrupted = false;
+            while ( true )
+            {
+                try
+                {
+                    done.await();
+                    break;
+                }
+                catch ( final InterruptedException e )
+                {
+                    interrupted = true; // activation can't be abandoned half-way, so keep waiting
+                }
+            }
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Creates daemon threads for activating components.
+     */
+    private static final class ActivationThreadFactory
+        implements ThreadFactory
+    {
+        private final String prefix = "plexus-activation-" + POOL_COUNT.incrementAndGet() + '-';
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public Thread newThread( final Runnable runnable )
+        {
+            final Thread thread = new Thread( runnable, prefix + threadCount.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
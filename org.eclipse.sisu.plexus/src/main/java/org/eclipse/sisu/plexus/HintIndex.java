@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.sisu.BeanEntry;
+import org.eclipse.sisu.Mediator;
+import org.eclipse.sisu.inject.BeanLocator;
+
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Named;
+
+/**
+ * Index from hint to the ranked {@link BeanEntry}s of a role, so hinted lookups don't walk every binding of the role.
+ * <p>
+ * The {@link BeanLocator} tells the index whenever a binding of the role is added or removed; the index is then
+ * rebuilt in a single pass over the role's bindings the next time it's used.
+ */
+final class HintIndex<T>
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    @SuppressWarnings( "rawtypes" )
+    private static final Mediator<Named, Object, HintIndex> INVALIDATOR = new Mediator<Named, Object, HintIndex>()
+    {
+        public void add( final BeanEntry<Named, Object> entry, final HintIndex index )
+        {
+            index.stamp.incrementAndGet();
+        }
+
+        public void remove( final BeanEntry<Named, Object> entry, final HintIndex index )
+        {
+            index.stamp.incrementAndGet();
+        }
+    };
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final BeanLocator beanLocator;
+
+    private final Key<T> key;
+
+    final AtomicInteger stamp = new AtomicInteger();
+
+    private volatile Snapshot<T> snapshot;
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    @SuppressWarnings( { "unchecked", "rawtypes" } )
+    HintIndex( final BeanLocator beanLocator, final TypeLiteral<T> role )
+    {
+        this.beanLocator = beanLocator;
+        this.key = Key.get( role, Named.class );
+
+        // the locator only keeps a weak reference to the index, so it goes away along with its views
+        beanLocator.watch( (Key) key, INVALIDATOR, this );
+    }
+
+    // ----------------------------------------------------------------------
+    // Local methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * @param hint The hint
+     * @return Beans with the given hint, highest ranked first; empty if there are none
+     */
+    List<BeanEntry<Named, T>> beans( final String hint )
+    {
+        final List<BeanEntry<Named, T>> beans = current().get( hint );
+        return null != beans ? beans : Collections.<BeanEntry<Named, T>> emptyList();
+    }
+
+    /**
+     * @param hint The hint
+     * @return Live sequence of beans with the given hint, highest ranked first
+     */
+    Iterable<BeanEntry<Named, T>> sequence( final String hint )
+    {
+        return new Iterable<BeanEntry<Named, T>>()
+        {
+            public Iterator<BeanEntry<Named, T>> iterator()
+            {
+                return beans( hint ).iterator();
+            }
+        };
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    @SuppressWarnings( "unchecked" )
+    private Map<String, List<BeanEntry<Named, T>>> current()
+    {
+        final int expected = stamp.get(); // read first, so changes made while rebuilding force another rebuild
+        Snapshot<T> current = snapshot;
+        if ( null == current || current.stamp != expected )
+        {
+            final Iterable<BeanEntry<Named, T>> beans =
+                (Iterable<BeanEntry<Named, T>>) beanLocator.<Named, T> locate( key );
+            final Map<String, List<BeanEntry<Named, T>>> index = new HashMap<String, List<BeanEntry<Named, T>>>();
+            for ( final BeanEntry<Named, T> entry : beans )
+            {
+                final String hint = entry.getKey().value();
+                List<BeanEntry<Named, T>> hinted = index.get( hint );
+                if ( null == hinted )
+                {
+                    index.put( hint, hinted = new ArrayList<BeanEntry<Named, T>>( 1 ) );
+                }
+                hinted.add( entry );
+            }
+            current = new Snapshot<T>( expected, index );
+            snapshot = current;
+        }
+        return current.index;
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Index built from the role's bindings as they were at a particular stamp.
+     */
+    private static final class Snapshot<T>
+    {
+        final int stamp;
+
+        final Map<String, List<BeanEntry<Named, T>>> index;
+
+        Snapshot( final int stamp, final Map<String, List<BeanEntry<Named, T>>> index )
+        {
+            this.stamp = stamp;
+            this.index = index;
+        }
+    }
+}
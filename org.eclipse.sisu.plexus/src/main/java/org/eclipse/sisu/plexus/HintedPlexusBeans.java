@@ -10,10 +10,12 @@
  *******************************************************************************/
 package org.eclipse.sisu.plexus;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
+import org.codehaus.plexus.classworlds.realm.ClassRealm;
 import org.eclipse.sisu.BeanEntry;
 
 import com.google.inject.TypeLiteral;
@@ -21,6 +23,9 @@ import com.google.inject.name.Named;
 
 /**
  * Hint-driven sequence of {@link PlexusBean}s that uses {@link MissingPlexusBean}s to indicate missing hints.
+ * <p>
+ * Beans are found through the role's {@link HintIndex}, so resolving the requirement takes one index lookup per hint
+ * instead of a scan over every bean of the role.
  */
 final class HintedPlexusBeans<T>
     implements Iterable<PlexusBean<T>>
@@ -29,22 +34,37 @@ final class HintedPlexusBeans<T>
     // Implementation fields
     // ----------------------------------------------------------------------
 
-    private final Iterable<BeanEntry<Named, T>> beans;
+    private final HintIndex<T> index;
 
-    private final List<PlexusBean<T>> missingPlexusBeans;
+    private final RealmManager realmManager;
+
+    private final String[] hints;
+
+    private final PlexusBean<T>[] missingPlexusBeans;
+
+    private final int[] firstIndex;
 
     // ----------------------------------------------------------------------
     // Constructors
     // ----------------------------------------------------------------------
 
-    HintedPlexusBeans( final Iterable<BeanEntry<Named, T>> beans, final TypeLiteral<T> role, final String[] hints )
+    /**
+     * @param realmManager Filters beans by realm visibility; {@code null} if all beans are visible
+     */
+    @SuppressWarnings( "unchecked" )
+    HintedPlexusBeans( final HintIndex<T> index, final RealmManager realmManager, final TypeLiteral<T> role,
+                       final String[] hints )
     {
-        this.beans = beans;
+        this.index = index;
+        this.realmManager = realmManager;
+        this.hints = hints;
 
-        missingPlexusBeans = new ArrayList<PlexusBean<T>>( hints.length );
-        for ( final String h : hints )
+        missingPlexusBeans = new PlexusBean[hints.length];
+        firstIndex = new int[hints.length];
+        for ( int i = 0; i < hints.length; i++ )
         {
-            missingPlexusBeans.add( new MissingPlexusBean<T>( role, h ) );
+            missingPlexusBeans[i] = new MissingPlexusBean<T>( role, hints[i] );
+            firstIndex[i] = firstIndexOf( hints, i );
         }
     }
 
@@ -52,29 +72,64 @@ final class HintedPlexusBeans<T>
     // Public methods
     // ----------------------------------------------------------------------
 
+    @SuppressWarnings( "unchecked" )
     public Iterator<PlexusBean<T>> iterator()
     {
-        // assume all hints are missing to begin with
-        final List<PlexusBean<T>> plexusBeans = new ArrayList<PlexusBean<T>>( missingPlexusBeans );
+        Set<ClassRealm> visibleRealms = null;
+        if ( null != realmManager )
+        {
+            visibleRealms = realmManager.visibleRealms( RealmManager.contextRealm() );
+            if ( null != visibleRealms && visibleRealms.isEmpty() )
+            {
+                visibleRealms = null; // same as RealmFilteredBeans: no context means no filtering
+            }
+        }
+        final BeanEntry<Named, T>[] candidates = new BeanEntry[hints.length];
+        final PlexusBean<T>[] plexusBeans = new PlexusBean[hints.length];
+        for ( int i = 0; i < plexusBeans.length; i++ )
+        {
+            if ( firstIndex[i] < i )
+            {
+                candidates[i] = candidates[firstIndex[i]]; // repeated hint maps to the same bean
+            }
+            else
+            {
+                candidates[i] = first( index.beans( hints[i] ), visibleRealms );
+            }
+            plexusBeans[i] = null != candidates[i] ? new LazyPlexusBean<T>( candidates[i] ) : missingPlexusBeans[i];
+        }
+        return Arrays.asList( plexusBeans ).iterator();
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
 
-        // scan available beans and populate list according to hint
-        final int size = plexusBeans.size();
-        final Iterator<BeanEntry<Named, T>> itr = beans.iterator();
-        for ( int numFound = 0; numFound < size && itr.hasNext(); )
+    /**
+     * @return Highest ranked bean that's visible; {@code null} if there is none
+     */
+    private BeanEntry<Named, T> first( final List<BeanEntry<Named, T>> beans, final Set<ClassRealm> visibleRealms )
+    {
+        for ( int i = 0, size = beans.size(); i < size; i++ )
         {
-            final BeanEntry<Named, T> candidate = itr.next();
-            final String hint = candidate.getKey().value();
-            for ( int i = 0; i < size; i++ )
+            final BeanEntry<Named, T> bean = beans.get( i );
+            if ( null == visibleRealms || realmManager.isVisible( visibleRealms, bean.getSource() ) )
             {
-                final PlexusBean<T> element = plexusBeans.get( i );
-                if ( element instanceof MissingPlexusBean<?> && hint.equals( element.getKey() ) )
-                {
-                    plexusBeans.set( i, new LazyPlexusBean<T>( candidate ) );
-                    numFound++;
-                }
+                return bean;
             }
         }
+        return null;
+    }
 
-        return plexusBeans.iterator();
+    private static int firstIndexOf( final String[] hints, final int index )
+    {
+        for ( int i = 0; i < index; i++ )
+        {
+            if ( hints[i].equals( hints[index] ) )
+            {
+                return i;
+            }
+        }
+        return index;
     }
 }
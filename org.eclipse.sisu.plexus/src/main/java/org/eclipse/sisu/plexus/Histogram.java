@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in power-of-two buckets; percentiles are accurate to within a factor of two.
+ */
+final class Histogram
+{
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final AtomicLongArray buckets = new AtomicLongArray( 64 );
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    // ----------------------------------------------------------------------
+    // Local methods
+    // ----------------------------------------------------------------------
+
+    void record( final long nanos )
+    {
+        final long duration = Math.max( nanos, 0 );
+        buckets.incrementAndGet( 63 - Long.numberOfLeadingZeros( duration | 1 ) );
+        count.incrementAndGet();
+        totalNanos.addAndGet( duration );
+        for ( long max = maxNanos.get(); duration > max && !maxNanos.compareAndSet( max, duration ); )
+        {
+            max = maxNanos.get();
+        }
+    }
+
+    long getCount()
+    {
+        return count.get();
+    }
+
+    long getTotalNanos()
+    {
+        return totalNanos.get();
+    }
+
+    long getMaxNanos()
+    {
+        return maxNanos.get();
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 100
+     * @return Upper bound of the bucket holding the given percentile; zero if nothing was recorded
+     */
+    long getPercentileNanos( final double percentile )
+    {
+        final long rank = (long) Math.ceil( count.get() * percentile / 100 );
+        long seen = 0;
+        for ( int i = 0; i < 64; i++ )
+        {
+            seen += buckets.get( i );
+            if ( seen >= rank && seen > 0 )
+            {
+                return Math.min( i < 63 ? ( 1L << i + 1 ) - 1 : Long.MAX_VALUE, maxNanos.get() );
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import org.codehaus.plexus.classworlds.realm.ClassRealm;
+
+/**
+ * Describes a single lifecycle phase of a Plexus component, including how long it took.
+ */
+public final class LifecycleEvent
+{
+    // ----------------------------------------------------------------------
+    // Public types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Lifecycle phases that are timed.
+     */
+    public enum Phase
+    {
+        /**
+         * Construction and injection by Guice; includes provisioning of any requirements that weren't yet available.
+         */
+        PROVISION,
+
+        CONTEXTUALIZE,
+
+        INITIALIZE,
+
+        START,
+
+        STOP,
+
+        DISPOSE
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final Phase phase;
+
+    private final String role;
+
+    private final String hint;
+
+    private final Class<?> implementation;
+
+    private final long durationNanos;
+
+    private final String thread;
+
+    private final Throwable problem;
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    LifecycleEvent( final Phase phase, final String role, final String hint, final Class<?> implementation,
+                    final long durationNanos, final Throwable problem )
+    {
+        this.phase = phase;
+        this.role = role;
+        this.hint = hint;
+        this.implementation = implementation;
+        this.durationNanos = durationNanos;
+        this.thread = Thread.currentThread().getName();
+        this.problem = problem;
+    }
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    public Phase getPhase()
+    {
+        return phase;
+    }
+
+    /**
+     * @return Component role; {@code null} if it's not known
+     */
+    public String getRole()
+    {
+        return role;
+    }
+
+    /**
+     * @return Component hint; {@code null} if it's not known
+     */
+    public String getHint()
+    {
+        return hint;
+    }
+
+    public Class<?> getImplementation()
+    {
+        return implementation;
+    }
+
+    /**
+     * @return Identity of the realm that loaded the implementation; {@code null} if it wasn't loaded by a realm
+     */
+    public String getRealm()
+    {
+        final ClassLoader loader = implementation.getClassLoader();
+        return loader instanceof ClassRealm ? ( (ClassRealm) loader ).getId() : null;
+    }
+
+    public long getDurationNanos()
+    {
+        return durationNanos;
+    }
+
+    /**
+     * @return Name of the thread that ran the phase
+     */
+    public String getThread()
+    {
+        return thread;
+    }
+
+    /**
+     * @return Problem thrown by the phase; {@code null} if it completed normally
+     */
+    public Throwable getProblem()
+    {
+        return problem;
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder buf = new StringBuilder().append( phase ).append( ' ' );
+        if ( null != role )
+        {
+            buf.append( role ).append( ':' ).append( hint ).append( ' ' );
+        }
+        buf.append( '(' ).append( implementation.getName() ).append( ") " );
+        buf.append( durationNanos / 1000 ).append( "us on " ).append( thread );
+        if ( null != problem )
+        {
+            buf.append( " failed: " ).append( problem );
+        }
+        return buf.toString();
+    }
+}
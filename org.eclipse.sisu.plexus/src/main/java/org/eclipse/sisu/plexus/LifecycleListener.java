@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+/**
+ * Receives timed {@link LifecycleEvent}s from the {@link PlexusLifecycleManager}.
+ * <p>
+ * Listeners are called on the thread that ran the phase, so they should be quick and thread-safe. Phases are only timed
+ * when a listener is registered.
+ */
+public interface LifecycleListener
+{
+    /**
+     * Called after each lifecycle phase, whether or not it succeeded.
+     *
+     * @param event The lifecycle event
+     */
+    void lifecycleEvent( LifecycleEvent event );
+}
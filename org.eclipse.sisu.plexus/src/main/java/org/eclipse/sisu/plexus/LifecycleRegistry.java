@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent registry of managed beans, compared by identity and remembered in the order they were added.
+ * <p>
+ * Adding and removing beans are constant-time operations that never block on a shared lock; only draining the whole
+ * registry at shutdown needs to sort the beans back into order.
+ */
+final class LifecycleRegistry<T>
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    private static final Comparator<Entry<?>> INSERTION_ORDER = new Comparator<Entry<?>>()
+    {
+        public int compare( final Entry<?> lhs, final Entry<?> rhs )
+        {
+            return lhs.sequence < rhs.sequence ? -1 : lhs.sequence == rhs.sequence ? 0 : 1;
+        }
+    };
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final ConcurrentMap<Entry<T>, Entry<T>> entries = new ConcurrentHashMap<Entry<T>, Entry<T>>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // ----------------------------------------------------------------------
+    // Local methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * Adds the given bean to the registry; adding the same bean again keeps its original position.
+     */
+    void add( final T bean )
+    {
+        final Entry<T> entry = new Entry<T>( bean, sequence.incrementAndGet() );
+        entries.putIfAbsent( entry, entry );
+    }
+
+    /**
+     * Removes the given bean from the registry.
+     *
+     * @return {@code true} if the bean was removed; otherwise {@code false}
+     */
+    boolean remove( final Object bean )
+    {
+        return null != entries.remove( new Entry<Object>( bean, 0 ) );
+    }
+
+    boolean isEmpty()
+    {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Removes all beans from the registry, beans removed concurrently by {@link #remove} are not included.
+     *
+     * @return Removed beans in the order they were added; oldest first
+     */
+    List<T> drain()
+    {
+        final List<Entry<T>> drained = new ArrayList<Entry<T>>( entries.size() );
+        for ( final Entry<T> entry : entries.values() )
+        {
+            if ( entries.remove( entry, entry ) )
+            {
+                drained.add( entry );
+            }
+        }
+        Collections.sort( drained, INSERTION_ORDER );
+        final List<T> beans = new ArrayList<T>( drained.size() );
+        for ( final Entry<T> entry : drained )
+        {
+            beans.add( entry.bean );
+        }
+        return beans;
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Bean along with its insertion sequence; entries compare by bean identity.
+     */
+    private static final class Entry<T>
+    {
+        final T bean;
+
+        final long sequence;
+
+        private final int hash;
+
+        Entry( final T bean, final long sequence )
+        {
+            this.bean = bean;
+            this.sequence = sequence;
+            this.hash = System.identityHashCode( bean );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals( final Object rhs )
+        {
+            return this == rhs || rhs instanceof Entry<?> && bean == ( (Entry<?>) rhs ).bean;
+        }
+    }
+}
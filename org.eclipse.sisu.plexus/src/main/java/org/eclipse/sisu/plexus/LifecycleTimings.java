@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link LifecycleListener} that keeps a timing histogram per lifecycle phase and implementation.
+ */
+public final class LifecycleTimings
+    implements LifecycleListener
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    private static final Comparator<Timing> SLOWEST_FIRST = new Comparator<Timing>()
+    {
+        public int compare( final Timing lhs, final Timing rhs )
+        {
+            final long lhsTotal = lhs.getTotalNanos();
+            final long rhsTotal = rhs.getTotalNanos();
+            return lhsTotal > rhsTotal ? -1 : lhsTotal == rhsTotal ? 0 : 1;
+        }
+    };
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final ConcurrentMap<String, Timing> timings = new ConcurrentHashMap<String, Timing>();
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    public void lifecycleEvent( final LifecycleEvent event )
+    {
+        final String implementation = event.getImplementation().getName();
+        final String key = event.getPhase() + ":" + implementation;
+        Timing timing = timings.get( key );
+        if ( null == timing )
+        {
+            final Timing newTiming = new Timing( event.getPhase(), implementation );
+            timing = timings.putIfAbsent( key, newTiming );
+            if ( null == timing )
+            {
+                timing = newTiming;
+            }
+        }
+        timing.record( event.getDurationNanos() );
+    }
+
+    /**
+     * @return Timings recorded so far; slowest total first
+     */
+    public List<Timing> getTimings()
+    {
+        final List<Timing> result = new ArrayList<Timing>( timings.values() );
+        Collections.sort( result, SLOWEST_FIRST );
+        return result;
+    }
+
+    /**
+     * Discards all recorded timings.
+     */
+    public void clear()
+    {
+        timings.clear();
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder buf = new StringBuilder();
+        for ( final Timing timing : getTimings() )
+        {
+            buf.append( timing ).append( '\n' );
+        }
+        return buf.toString();
+    }
+
+    // ----------------------------------------------------------------------
+    // Public types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Timing histogram for one lifecycle phase of one implementation.
+     */
+    public static final class Timing
+    {
+        private final LifecycleEvent.Phase phase;
+
+        private final String implementation;
+
+        private final Histogram histogram = new Histogram();
+
+        Timing( final LifecycleEvent.Phase phase, final String implementation )
+        {
+            this.phase = phase;
+            this.implementation = implementation;
+        }
+
+        public LifecycleEvent.Phase getPhase()
+        {
+            return phase;
+        }
+
+        public String getImplementation()
+        {
+            return implementation;
+        }
+
+        public long getCount()
+        {
+            return histogram.getCount();
+        }
+
+        public long getTotalNanos()
+        {
+            return histogram.getTotalNanos();
+        }
+
+        public long getMaxNanos()
+        {
+            return histogram.getMaxNanos();
+        }
+
+        /**
+         * @param percentile The percentile, between 0 and 100
+         * @return Upper bound of the power-of-two bucket holding the given percentile; zero if nothing was recorded
+         */
+        public long getPercentileNanos( final double percentile )
+        {
+            return histogram.getPercentileNanos( percentile );
+        }
+
+        @Override
+        public String toString()
+        {
+            return phase + " " + implementation + " count=" + getCount() + " total=" + getTotalNanos() / 1000
+                + "us p50=" + getPercentileNanos( 50 ) / 1000 + "us p99=" + getPercentileNanos( 99 ) / 1000
+                + "us max=" + getMaxNanos() / 1000 + "us";
+        }
+
+        void record( final long nanos )
+        {
+            histogram.record( nanos );
+        }
+    }
+}
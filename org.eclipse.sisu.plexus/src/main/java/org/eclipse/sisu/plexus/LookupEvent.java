@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+/**
+ * Describes a single component lookup made through a Plexus container, including how long it took.
+ */
+public final class LookupEvent
+{
+    // ----------------------------------------------------------------------
+    // Public types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Container entry points that are traced.
+     */
+    public enum Kind
+    {
+        LOOKUP, LOOKUP_LIST, LOOKUP_MAP, HAS_COMPONENT
+    }
+
+    /**
+     * How a role name was resolved to a role type.
+     */
+    public enum Cache
+    {
+        /**
+         * Role was given as a type, so no resolution was needed.
+         */
+        NONE,
+
+        /**
+         * Role name was resolved from the container's lookup cache.
+         */
+        HIT,
+
+        /**
+         * Role name was resolved by loading it from the visible realms.
+         */
+        MISS
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final Kind kind;
+
+    private final String role;
+
+    private final String hint;
+
+    private final long durationNanos;
+
+    private final Cache cache;
+
+    private final int failedLoads;
+
+    private final boolean realmFiltered;
+
+    private final boolean found;
+
+    private final Throwable problem;
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    LookupEvent( final Kind kind, final String role, final String hint, final long durationNanos, final Cache cache,
+                 final int failedLoads, final boolean realmFiltered, final boolean found, final Throwable problem )
+    {
+        this.kind = kind;
+        this.role = role;
+        this.hint = hint;
+        this.durationNanos = durationNanos;
+        this.cache = cache;
+        this.failedLoads = failedLoads;
+        this.realmFiltered = realmFiltered;
+        this.found = found;
+        this.problem = problem;
+    }
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    public Kind getKind()
+    {
+        return kind;
+    }
+
+    public String getRole()
+    {
+        return role;
+    }
+
+    /**
+     * @return Canonical hint; {@code null} for list and map lookups
+     */
+    public String getHint()
+    {
+        return hint;
+    }
+
+    public long getDurationNanos()
+    {
+        return durationNanos;
+    }
+
+    public Cache getCache()
+    {
+        return cache;
+    }
+
+    /**
+     * @return Number of realms that failed to load the role name
+     */
+    public int getFailedLoads()
+    {
+        return failedLoads;
+    }
+
+    /**
+     * @return {@code true} if results were filtered by realm visibility; otherwise {@code false}
+     */
+    public boolean isRealmFiltered()
+    {
+        return realmFiltered;
+    }
+
+    /**
+     * @return {@code true} if a component was found; list and map lookups are lazy, so they always report {@code true}
+     */
+    public boolean isFound()
+    {
+        return found;
+    }
+
+    /**
+     * @return Lookup exception thrown to the caller; {@code null} if there was none
+     */
+    public Throwable getProblem()
+    {
+        return problem;
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder buf = new StringBuilder().append( kind ).append( ' ' ).append( role );
+        if ( null != hint )
+        {
+            buf.append( ':' ).append( hint );
+        }
+        buf.append( ' ' ).append( durationNanos / 1000 ).append( "us cache=" ).append( cache );
+        if ( failedLoads > 0 )
+        {
+            buf.append( " failedLoads=" ).append( failedLoads );
+        }
+        if ( realmFiltered )
+        {
+            buf.append( " realmFiltered" );
+        }
+        if ( !found )
+        {
+            buf.append( " missing" );
+        }
+        return buf.toString();
+    }
+}
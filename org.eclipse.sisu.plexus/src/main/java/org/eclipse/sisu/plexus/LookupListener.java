@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+/**
+ * Receives {@link LookupEvent}s from Plexus containers.
+ * <p>
+ * Listeners are called on the thread that made the lookup, so they should be quick and thread-safe. Lookups are only
+ * traced when a listener is registered.
+ */
+public interface LookupListener
+{
+    /**
+     * Called after each lookup, whether or not it succeeded.
+     *
+     * @param event The lookup event
+     */
+    void lookupEvent( LookupEvent event );
+}
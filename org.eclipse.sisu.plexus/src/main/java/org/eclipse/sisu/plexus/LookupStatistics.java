@@ -0,0 +1,342 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * {@link LookupListener} that keeps counters and a latency histogram per role and hint.
+ * <p>
+ * Statistics can be queried in-process or published as an MBean with {@link #registerMBean(String)}.
+ */
+public final class LookupStatistics
+    implements LookupListener, LookupStatisticsMBean
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    public static final String DEFAULT_OBJECT_NAME = "org.eclipse.sisu.plexus:type=LookupStatistics";
+
+    private static final Comparator<RoleStatistics> MOST_FREQUENT_FIRST = new Comparator<RoleStatistics>()
+    {
+        public int compare( final RoleStatistics lhs, final RoleStatistics rhs )
+        {
+            final long lhsCount = lhs.getCount();
+            final long rhsCount = rhs.getCount();
+            return lhsCount > rhsCount ? -1 : lhsCount == rhsCount ? 0 : 1;
+        }
+    };
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final ConcurrentMap<String, RoleStatistics> roles = new ConcurrentHashMap<String, RoleStatistics>();
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    public void lookupEvent( final LookupEvent event )
+    {
+        final String key = event.getKind() + ":" + event.getRole() + ':' + event.getHint();
+        RoleStatistics statistics = roles.get( key );
+        if ( null == statistics )
+        {
+            final RoleStatistics newStatistics = new RoleStatistics( event.getKind(), event.getRole(), event.getHint() );
+            statistics = roles.putIfAbsent( key, newStatistics );
+            if ( null == statistics )
+            {
+                statistics = newStatistics;
+            }
+        }
+        statistics.record( event );
+    }
+
+    /**
+     * @return Statistics recorded so far; most frequent lookups first
+     */
+    public List<RoleStatistics> getStatistics()
+    {
+        final List<RoleStatistics> result = new ArrayList<RoleStatistics>( roles.values() );
+        Collections.sort( result, MOST_FREQUENT_FIRST );
+        return result;
+    }
+
+    public long getLookupCount()
+    {
+        long total = 0;
+        for ( final RoleStatistics statistics : roles.values() )
+        {
+            total += statistics.getCount();
+        }
+        return total;
+    }
+
+    public long getCacheHitCount()
+    {
+        long total = 0;
+        for ( final RoleStatistics statistics : roles.values() )
+        {
+            total += statistics.getCacheHits();
+        }
+        return total;
+    }
+
+    public long getCacheMissCount()
+    {
+        long total = 0;
+        for ( final RoleStatistics statistics : roles.values() )
+        {
+            total += statistics.getCacheMisses();
+        }
+        return total;
+    }
+
+    public long getFailedLoadCount()
+    {
+        long total = 0;
+        for ( final RoleStatistics statistics : roles.values() )
+        {
+            total += statistics.getFailedLoads();
+        }
+        return total;
+    }
+
+    public long getFailureCount()
+    {
+        long total = 0;
+        for ( final RoleStatistics statistics : roles.values() )
+        {
+            total += statistics.getFailures();
+        }
+        return total;
+    }
+
+    public long getRealmFilteredCount()
+    {
+        long total = 0;
+        for ( final RoleStatistics statistics : roles.values() )
+        {
+            total += statistics.getRealmFiltered();
+        }
+        return total;
+    }
+
+    public String[] getRoleSummaries()
+    {
+        final List<RoleStatistics> statistics = getStatistics();
+        final String[] summaries = new String[statistics.size()];
+        for ( int i = 0; i < summaries.length; i++ )
+        {
+            summaries[i] = statistics.get( i ).toString();
+        }
+        return summaries;
+    }
+
+    public void reset()
+    {
+        roles.clear();
+    }
+
+    /**
+     * Publishes these statistics in the platform MBean server.
+     *
+     * @param name The object name; {@link #DEFAULT_OBJECT_NAME} if {@code null}
+     */
+    public void registerMBean( final String name )
+        throws JMException
+    {
+        ManagementFactory.getPlatformMBeanServer().registerMBean( this, objectName( name ) );
+    }
+
+    /**
+     * Removes these statistics from the platform MBean server.
+     *
+     * @param name The object name; {@link #DEFAULT_OBJECT_NAME} if {@code null}
+     */
+    public void unregisterMBean( final String name )
+        throws JMException
+    {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean( objectName( name ) );
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder buf = new StringBuilder();
+        for ( final String summary : getRoleSummaries() )
+        {
+            buf.append( summary ).append( '\n' );
+        }
+        return buf.toString();
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    private static ObjectName objectName( final String name )
+        throws JMException
+    {
+        return new ObjectName( null != name ? name : DEFAULT_OBJECT_NAME );
+    }
+
+    // ----------------------------------------------------------------------
+    // Public types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Counters and latency histogram for one kind of lookup of one role and hint.
+     */
+    public static final class RoleStatistics
+    {
+        private final LookupEvent.Kind kind;
+
+        private final String role;
+
+        private final String hint;
+
+        private final Histogram histogram = new Histogram();
+
+        private final AtomicLong cacheHits = new AtomicLong();
+
+        private final AtomicLong cacheMisses = new AtomicLong();
+
+        private final AtomicLong failedLoads = new AtomicLong();
+
+        private final AtomicLong failures = new AtomicLong();
+
+        private final AtomicLong realmFiltered = new AtomicLong();
+
+        RoleStatistics( final LookupEvent.Kind kind, final String role, final String hint )
+        {
+            this.kind = kind;
+            this.role = role;
+            this.hint = hint;
+        }
+
+        public LookupEvent.Kind getKind()
+        {
+            return kind;
+        }
+
+        public String getRole()
+        {
+            return role;
+        }
+
+        /**
+         * @return Canonical hint; {@code null} for list and map lookups
+         */
+        public String getHint()
+        {
+            return hint;
+        }
+
+        public long getCount()
+        {
+            return histogram.getCount();
+        }
+
+        public long getCacheHits()
+        {
+            return cacheHits.get();
+        }
+
+        public long getCacheMisses()
+        {
+            return cacheMisses.get();
+        }
+
+        public long getFailedLoads()
+        {
+            return failedLoads.get();
+        }
+
+        /**
+         * @return Number of lookups that threw an exception to the caller
+         */
+        public long getFailures()
+        {
+            return failures.get();
+        }
+
+        public long getRealmFiltered()
+        {
+            return realmFiltered.get();
+        }
+
+        public long getTotalNanos()
+        {
+            return histogram.getTotalNanos();
+        }
+
+        public long getMaxNanos()
+        {
+            return histogram.getMaxNanos();
+        }
+
+        /**
+         * @param percentile The percentile, between 0 and 100
+         * @return Upper bound of the power-of-two bucket holding the given percentile; zero if nothing was recorded
+         */
+        public long getPercentileNanos( final double percentile )
+        {
+            return histogram.getPercentileNanos( percentile );
+        }
+
+        @Override
+        public String toString()
+        {
+            return kind + " " + role + ( null != hint ? ":" + hint : "" ) + " count=" + getCount() + " hits="
+                + getCacheHits() + " misses=" + getCacheMisses() + " failedLoads=" + getFailedLoads() + " failures="
+                + getFailures() + " realmFiltered=" + getRealmFiltered() + " p50=" + getPercentileNanos( 50 ) / 1000
+                + "us p99=" + getPercentileNanos( 99 ) / 1000 + "us max=" + getMaxNanos() / 1000 + "us";
+        }
+
+        void record( final LookupEvent event )
+        {
+            if ( LookupEvent.Cache.HIT == event.getCache() )
+            {
+                cacheHits.incrementAndGet();
+            }
+            else if ( LookupEvent.Cache.MISS == event.getCache() )
+            {
+                cacheMisses.incrementAndGet();
+            }
+            if ( event.getFailedLoads() > 0 )
+            {
+                failedLoads.addAndGet( event.getFailedLoads() );
+            }
+            if ( null != event.getProblem() )
+            {
+                failures.incrementAndGet();
+            }
+            if ( event.isRealmFiltered() )
+            {
+                realmFiltered.incrementAndGet();
+            }
+            histogram.record( event.getDurationNanos() );
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+/**
+ * JMX view of {@link LookupStatistics}.
+ */
+public interface LookupStatisticsMBean
+{
+    long getLookupCount();
+
+    long getCacheHitCount();
+
+    long getCacheMissCount();
+
+    long getFailedLoadCount();
+
+    long getFailureCount();
+
+    long getRealmFilteredCount();
+
+    /**
+     * @return One summary line per role and hint; most frequent lookups first
+     */
+    String[] getRoleSummaries();
+
+    void reset();
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import org.eclipse.sisu.inject.Logs;
+
+/**
+ * Collects details of a single lookup as it happens, then reports them to a {@link LookupListener}.
+ * <p>
+ * Containers only create traces when there's a listener, so lookups pay nothing when tracing is off.
+ */
+public final class LookupTrace
+{
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final LookupListener listener;
+
+    private final long start = System.nanoTime();
+
+    private LookupEvent.Cache cache = LookupEvent.Cache.NONE;
+
+    private int failedLoads;
+
+    private boolean realmFiltered;
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    public LookupTrace( final LookupListener listener )
+    {
+        this.listener = listener;
+    }
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    public void cacheHit()
+    {
+        cache = LookupEvent.Cache.HIT;
+    }
+
+    public void cacheMiss()
+    {
+        cache = LookupEvent.Cache.MISS;
+    }
+
+    /**
+     * Records that a realm failed to load the role name.
+     */
+    public void failedLoad()
+    {
+        failedLoads++;
+    }
+
+    public void realmFiltered()
+    {
+        realmFiltered = true;
+    }
+
+    /**
+     * Reports the finished lookup to the listener; listener problems are logged and otherwise ignored.
+     *
+     * @param kind The entry point
+     * @param role The role
+     * @param hint The hint; {@code null} for list and map lookups
+     * @param found {@code true} if a component was found; otherwise {@code false}
+     * @param problem The lookup exception thrown to the caller; {@code null} if there was none
+     */
+    public void finish( final LookupEvent.Kind kind, final String role, final String hint, final boolean found,
+                        final Throwable problem )
+    {
+        final String canonicalHint = null != hint ? Hints.canonicalHint( hint ) : null;
+        try
+        {
+            listener.lookupEvent( new LookupEvent( kind, role, canonicalHint, System.nanoTime() - start, cache,
+                                                   failedLoads, realmFiltered, found, problem ) );
+        }
+        catch ( final Throwable e )
+        {
+            Logs.catchThrowable( e );
+            Logs.debug( "Problem notifying: <>", listener, e );
+        }
+    }
+}
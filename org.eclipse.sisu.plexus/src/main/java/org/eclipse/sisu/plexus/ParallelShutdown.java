@@ -0,0 +1,410 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.Disposable;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.Startable;
+import org.eclipse.sisu.inject.Logs;
+
+/**
+ * Stops and disposes components in parallel waves, never before the components that require them.
+ * <p>
+ * Each component can be given a time limit, as can the shutdown as a whole. Components that overrun are reported and
+ * left behind on their own daemon thread, so a single hanging component no longer holds up the rest of the container.
+ */
+final class ParallelShutdown
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    /**
+     * Marks components with list or map requirements, which might refer to any other component.
+     */
+    static final Object ANY_COMPONENT = new Object();
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final PlexusLifecycleManager manager;
+
+    private final int threads;
+
+    private final long componentTimeout;
+
+    private final long deadline;
+
+    private final List<Object> stragglers = new ArrayList<Object>();
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    /**
+     * @param manager The lifecycle manager
+     * @param threads The maximum number of components to shut down at once
+     * @param componentTimeout Time limit for each component in milliseconds; zero means no limit
+     * @param totalTimeout Time limit for the whole shutdown in milliseconds; zero means no limit
+     */
+    ParallelShutdown( final PlexusLifecycleManager manager, final int threads, final long componentTimeout,
+                      final long totalTimeout )
+    {
+        this.manager = manager;
+        this.threads = Math.max( threads, 1 );
+        this.componentTimeout = TimeUnit.MILLISECONDS.toNanos( componentTimeout );
+        this.deadline = totalTimeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( totalTimeout ) : 0;
+    }
+
+    // ----------------------------------------------------------------------
+    // Local methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * Stops the given components; they're listed in the order they were started.
+     */
+    void stop( final List<Startable> beans, final Map<Object, List<Object>> requirements )
+    {
+        run( beans, requirements, true );
+    }
+
+    /**
+     * Disposes the given components; they're listed in the order they were managed.
+     */
+    void dispose( final List<Disposable> beans, final Map<Object, List<Object>> requirements )
+    {
+        run( beans, requirements, false );
+    }
+
+    /**
+     * @return Components that didn't finish within their time limit
+     */
+    List<Object> getStragglers()
+    {
+        return stragglers;
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    private void run( final List<?> beans, final Map<Object, List<Object>> requirements, final boolean stopping )
+    {
+        if ( beans.isEmpty() )
+        {
+            return;
+        }
+
+        final Node[] nodes = link( beans, requirements );
+
+        final BlockingQueue<Node> finished = new LinkedBlockingQueue<Node>();
+        final Deque<Node> ready = new ArrayDeque<Node>();
+        final List<Node> running = new ArrayList<Node>();
+
+        for ( int i = nodes.length - 1; i >= 0; i-- )
+        {
+            if ( nodes[i].pending == 0 )
+            {
+                ready.add( nodes[i] ); // latest first, same as the sequential shutdown
+            }
+        }
+
+        final ExecutorService executor = Executors.newCachedThreadPool( new ShutdownThreadFactory() );
+        boolean interrupted = false;
+        try
+        {
+            int remaining = nodes.length;
+            while ( remaining > 0 )
+            {
+                final long now = System.nanoTime();
+                if ( deadline != 0 && now - deadline >= 0 )
+                {
+                    for ( final Node node : nodes )
+                    {
+                        if ( !node.done )
+                        {
+                            straggler( node, stopping ); // ran out of time, give up on everything that's left
+                        }
+                    }
+                    break;
+                }
+
+                while ( running.size() < threads && !ready.isEmpty() )
+                {
+                    final Node node = ready.poll();
+                    running.add( node );
+                    executor.execute( new Task( node, finished, stopping ) );
+                }
+
+                Node node;
+                try
+                {
+                    node = finished.poll( waitTime( running, now ), TimeUnit.NANOSECONDS );
+                }
+                catch ( final InterruptedException e )
+                {
+                    // components have already been taken from the container, so keep going like sequential shutdown
+                    interrupted = true;
+                    continue;
+                }
+                if ( null == node )
+                {
+                    node = overdue( running );
+                    if ( null == node )
+                    {
+                        continue;
+                    }
+                    straggler( node, stopping );
+                }
+                else if ( node.done )
+                {
+                    continue; // already abandoned
+                }
+
+                node.done = true;
+                running.remove( node );
+                remaining--;
+
+                for ( final Node waiter : node.waiters )
+                {
+                    if ( --waiter.pending == 0 )
+                    {
+                        ready.add( waiter );
+                    }
+                }
+            }
+        }
+        finally
+        {
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+            if ( stragglers.isEmpty() )
+            {
+                executor.shutdown();
+            }
+            else
+            {
+                executor.shutdownNow(); // nudge any hanging components
+            }
+        }
+    }
+
+    /**
+     * Creates a node per component; a component is only shut down after the components that require it.
+     */
+    private static Node[] link( final List<?> beans, final Map<Object, List<Object>> requirements )
+    {
+        final Node[] nodes = new Node[beans.size()];
+        final Map<Object, Node> nodeMap = new IdentityHashMap<Object, Node>();
+        for ( int i = 0; i < nodes.length; i++ )
+        {
+            nodes[i] = new Node( beans.get( i ), i );
+            nodeMap.put( nodes[i].bean, nodes[i] );
+        }
+        for ( final Node node : nodes )
+        {
+            final List<Object> beanRequirements = requirements.get( node.bean );
+            if ( null == beanRequirements )
+            {
+                continue;
+            }
+            if ( beanRequirements.contains( ANY_COMPONENT ) )
+            {
+                for ( int j = 0; j < node.index; j++ )
+                {
+                    node.addWaiter( nodes[j] );
+                }
+            }
+            else
+            {
+                for ( final Object requirement : beanRequirements )
+                {
+                    final Node required = nodeMap.get( requirement );
+                    if ( null != required && required.index < node.index )
+                    {
+                        node.addWaiter( required );
+                    }
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @return Nanoseconds to wait before the next component or the whole shutdown runs out of time
+     */
+    private long waitTime( final List<Node> running, final long now )
+    {
+        long wait = Long.MAX_VALUE;
+        if ( deadline != 0 )
+        {
+            wait = deadline - now;
+        }
+        if ( componentTimeout > 0 )
+        {
+            for ( final Node node : running )
+            {
+                final long started = node.started;
+                wait = Math.min( wait, 0 != started ? started + componentTimeout - now : componentTimeout );
+            }
+        }
+        return Math.max( wait, 0 );
+    }
+
+    /**
+     * @return Running component that has run out of time; {@code null} if there are none
+     */
+    private Node overdue( final List<Node> running )
+    {
+        if ( componentTimeout > 0 )
+        {
+            final long now = System.nanoTime();
+            for ( final Node node : running )
+            {
+                final long started = node.started;
+                if ( 0 != started && now - started >= componentTimeout )
+                {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void straggler( final Node node, final boolean stopping )
+    {
+        node.done = true;
+        stragglers.add( node.bean );
+        final String action = 0 == node.started ? "Skipped " : "Timed out ";
+        try
+        {
+            manager.getPlexusLogger( manager ).warn( action + ( stopping ? "stopping: " : "disposing: " )
+                + Logs.identityToString( node.bean ) );
+        }
+        catch ( final Throwable e ) // NOPMD
+        {
+            // ignore any logging exceptions and continue with shutdown
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Component along with the components waiting for it to be shut down.
+     */
+    private static final class Node
+    {
+        final Object bean;
+
+        final int index;
+
+        final List<Node> waiters = new ArrayList<Node>( 2 );
+
+        int pending;
+
+        boolean done;
+
+        volatile long started;
+
+        Node( final Object bean, final int index )
+        {
+            this.bean = bean;
+            this.index = index;
+        }
+
+        /**
+         * The given component must wait until this component has been shut down.
+         */
+        void addWaiter( final Node node )
+        {
+            waiters.add( node );
+            node.pending++;
+        }
+    }
+
+    /**
+     * Shuts down a single component and reports back when it's finished.
+     */
+    private final class Task
+        implements Runnable
+    {
+        private final Node node;
+
+        private final BlockingQueue<Node> finished;
+
+        private final boolean stopping;
+
+        Task( final Node node, final BlockingQueue<Node> finished, final boolean stopping )
+        {
+            this.node = node;
+            this.finished = finished;
+            this.stopping = stopping;
+        }
+
+        public void run()
+        {
+            node.started = System.nanoTime();
+            try
+            {
+                if ( stopping )
+                {
+                    manager.stop( (Startable) node.bean );
+                }
+                else
+                {
+                    manager.dispose( (Disposable) node.bean );
+                }
+            }
+            finally
+            {
+                finished.add( node );
+            }
+        }
+    }
+
+    /**
+     * Creates daemon threads for shutting down components.
+     */
+    private static final class ShutdownThreadFactory
+        implements ThreadFactory
+    {
+        private final String prefix = "plexus-shutdown-" + POOL_COUNT.incrementAndGet() + '-';
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public Thread newThread( final Runnable runnable )
+        {
+            final Thread thread = new Thread( runnable, prefix + threadCount.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.sisu.plexus;
 
+import java.io.File;
 import java.util.Map;
 
 import org.codehaus.plexus.component.annotations.Component;
@@ -86,7 +87,26 @@ public final class PlexusAnnotatedBeanModule
     public PlexusAnnotatedBeanModule( final ClassSpace space, final Map<?, ?> variables, final BeanScanning scanning,
                                       boolean strictScanning )
     {
-        if ( null != space && scanning != BeanScanning.OFF )
+        this( space, variables, scanning, strictScanning, null );
+    }
+
+    /**
+     * Creates a bean source that scans the given class space for Plexus annotations using the given scanner.
+     * 
+     * @param space The local class space
+     * @param variables The filter variables
+     * @param scanning The scanning options
+     * @param strictScanning Strict scanning
+     * @param scanCache Optional directory used to cache scanning results for unchanged jars
+     */
+    public PlexusAnnotatedBeanModule( final ClassSpace space, final Map<?, ?> variables, final BeanScanning scanning,
+                                      final boolean strictScanning, final File scanCache )
+    {
+        if ( null != space && null != scanCache && scanning == BeanScanning.ON )
+        {
+            spaceModule = new CachedSpaceModule( space, strictScanning, new PlexusScanCache( scanCache ) );
+        }
+        else if ( null != space && scanning != BeanScanning.OFF )
         {
             spaceModule = new SpaceModule( space, scanning, strictScanning ).with( PLEXUS_STRATEGY );
         }
@@ -107,6 +127,12 @@ public final class PlexusAnnotatedBeanModule
         {
             spaceModule = ( (SpaceModule) spaceModule ).with( _strategy );
         }
+        else if ( spaceModule instanceof CachedSpaceModule )
+        {
+            // cached results only cover Plexus types, so custom strategies need a full scan
+            final CachedSpaceModule cachedModule = (CachedSpaceModule) spaceModule;
+            spaceModule = new SpaceModule( cachedModule.space, BeanScanning.ON, cachedModule.isStrict ).with( _strategy );
+        }
         return this;
     }
 
@@ -123,6 +149,32 @@ public final class PlexusAnnotatedBeanModule
     // Implementation types
     // ----------------------------------------------------------------------
 
+    /**
+     * Scans the class space for Plexus annotations, using cached results for unchanged jars.
+     */
+    private static final class CachedSpaceModule
+        implements Module
+    {
+        final ClassSpace space;
+
+        final boolean isStrict;
+
+        private final PlexusScanCache scanCache;
+
+        CachedSpaceModule( final ClassSpace space, final boolean isStrict, final PlexusScanCache scanCache )
+        {
+            this.space = space;
+            this.isStrict = isStrict;
+            this.scanCache = scanCache;
+        }
+
+        public void configure( final Binder binder )
+        {
+            binder.bind( ClassSpace.class ).toInstance( space );
+            scanCache.scan( space, isStrict, new PlexusTypeBinder( binder ) );
+        }
+    }
+
     /**
      * {@link PlexusBeanSource} backed by runtime annotation metadata.
      */
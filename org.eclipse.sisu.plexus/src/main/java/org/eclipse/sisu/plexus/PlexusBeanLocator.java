@@ -22,7 +22,7 @@ public interface PlexusBeanLocator
      * 
      * @param role The expected bean type
      * @param hints The optional (canonical) hints
-     * @return Sequence of Plexus bean mappings; ordered according to the given hints
+     * @return Live sequence of Plexus bean mappings; ordered according to the given hints
      */
     <T> Iterable<PlexusBean<T>> locate( TypeLiteral<T> role, String... hints );
 }
@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+
+import org.codehaus.plexus.component.annotations.Configuration;
+import org.codehaus.plexus.util.xml.XmlStreamReader;
+import org.eclipse.sisu.plexus.PlexusXmlScanner.ComponentEntry;
+import org.eclipse.sisu.plexus.PlexusXmlScanner.RequirementEntry;
+import org.eclipse.sisu.space.Streams;
+
+/**
+ * Pre-parsed binary index of a {@code META-INF/plexus/components.xml} resource.<br>
+ * When a {@code components.idx} index sits next to the XML it is read instead, avoiding the cost of XML parsing.
+ * <p>
+ * Indexes are generated at build time by running this class over one or more class folders:
+ *
+ * <pre>
+ * java org.eclipse.sisu.plexus.PlexusComponentIndex target/classes
+ * </pre>
+ *
+ * XML containing <code>${...}</code> variables is not indexed, because it can only be interpolated at runtime. Each
+ * index records the length and checksum of the XML it was generated from; if the XML next to it doesn't match, for
+ * example because the index is stale or came from a different jar, the index is ignored and the XML parsed instead.
+ */
+public final class PlexusComponentIndex
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    public static final String INDEX_NAME = "components.idx";
+
+    static final String INDEX_PATH = "META-INF/plexus/" + INDEX_NAME;
+
+    private static final String COMPONENTS_XML = "META-INF/plexus/components.xml";
+
+    private static final int MAGIC = 0x50434958; // PCIX
+
+    private static final int VERSION = 2;
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    private PlexusComponentIndex()
+    {
+        // static utility class, not allowed to create instances
+    }
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * Generates component indexes for the given class folders.
+     *
+     * @param args The class folders
+     */
+    public static void main( final String[] args )
+        throws IOException
+    {
+        for ( final String folder : args )
+        {
+            final File xmlFile = new File( folder, COMPONENTS_XML );
+            if ( xmlFile.isFile() && index( xmlFile, new File( folder, INDEX_PATH ) ) )
+            {
+                System.out.println( "Indexed: " + xmlFile );
+            }
+        }
+    }
+
+    /**
+     * Generates a component index from the given XML; skips XML that needs interpolation or fails to parse.
+     *
+     * @param xmlFile The components.xml file
+     * @param indexFile The components.idx file
+     * @return {@code true} if the index was written; otherwise {@code false}
+     */
+    public static boolean index( final File xmlFile, final File indexFile )
+        throws IOException
+    {
+        final byte[] xml;
+        try ( InputStream in = new FileInputStream( xmlFile ) )
+        {
+            xml = readFully( in );
+        }
+        if ( needsInterpolation( xml ) )
+        {
+            return false;
+        }
+
+        final List<ComponentEntry> components = new ArrayList<ComponentEntry>();
+        try
+        {
+            PlexusXmlScanner.parseComponentsXml( xmlFile.toURI().toURL(), null, components );
+        }
+        catch ( final Exception e )
+        {
+            System.err.println( "Problem parsing: " + xmlFile + " (" + e + ')' );
+            return false;
+        }
+
+        try ( OutputStream out = new FileOutputStream( indexFile ) )
+        {
+            write( components, xml, out );
+        }
+        return true;
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * Writes the given components in index format.
+     *
+     * @param components The components
+     * @param xml The XML the components were parsed from
+     * @param out The output stream
+     */
+    static void write( final List<ComponentEntry> components, final byte[] xml, final OutputStream out )
+        throws IOException
+    {
+        final DataOutputStream data = new DataOutputStream( new BufferedOutputStream( out ) );
+
+        data.writeInt( MAGIC );
+        data.writeInt( VERSION );
+        data.writeLong( xml.length );
+        data.writeLong( checksum( xml ) );
+        data.writeInt( components.size() );
+        for ( final ComponentEntry component : components )
+        {
+            data.writeUTF( component.role );
+            data.writeUTF( component.hint );
+            data.writeUTF( component.instantiationStrategy );
+            data.writeUTF( component.description );
+            data.writeUTF( component.implementation );
+
+            data.writeInt( component.requirements.size() );
+            for ( final Entry<String, RequirementEntry> e : component.requirements.entrySet() )
+            {
+                final RequirementEntry requirement = e.getValue();
+                data.writeUTF( e.getKey() );
+                data.writeUTF( requirement.role );
+                data.writeBoolean( requirement.optional );
+                data.writeInt( requirement.hints.size() );
+                for ( final String h : requirement.hints )
+                {
+                    data.writeUTF( h );
+                }
+            }
+
+            data.writeInt( component.configurationMap.size() );
+            for ( final Configuration configuration : component.configurationMap.values() )
+            {
+                data.writeUTF( configuration.name() );
+                writeLongUTF( data, configuration.value() );
+            }
+        }
+
+        data.flush();
+    }
+
+    /**
+     * Reads components from the given index, checking it was generated from the given XML.
+     *
+     * @param url The components.idx URL
+     * @param xmlUrl The components.xml URL
+     * @return The indexed components
+     * @throws IOException if the index is unreadable or doesn't match the XML
+     */
+    static List<ComponentEntry> read( final URL url, final URL xmlUrl )
+        throws IOException
+    {
+        try ( InputStream in = Streams.open( url ) )
+        {
+            final DataInputStream data = new DataInputStream( new BufferedInputStream( in ) );
+            if ( data.readInt() != MAGIC || data.readInt() != VERSION )
+            {
+                throw new IOException( "Unsupported index format" );
+            }
+            final long xmlLength = data.readLong();
+            final long xmlChecksum = data.readLong();
+            final byte[] xml;
+            try ( InputStream xmlIn = Streams.open( xmlUrl ) )
+            {
+                xml = readFully( xmlIn );
+            }
+            if ( xml.length != xmlLength || checksum( xml ) != xmlChecksum )
+            {
+                throw new IOException( "Index does not match: " + xmlUrl );
+            }
+
+            final int componentCount = data.readInt();
+            final List<ComponentEntry> components = new ArrayList<ComponentEntry>( componentCount );
+            for ( int i = 0; i < componentCount; i++ )
+            {
+                final ComponentEntry component = new ComponentEntry();
+                component.role = data.readUTF().intern();
+                component.hint = data.readUTF();
+                component.instantiationStrategy = data.readUTF().intern();
+                component.description = data.readUTF();
+                component.implementation = data.readUTF().intern();
+
+                final int requirementCount = data.readInt();
+                for ( int j = 0; j < requirementCount; j++ )
+                {
+                    final String fieldName = data.readUTF();
+                    final RequirementEntry requirement = new RequirementEntry();
+                    requirement.role = data.readUTF().intern();
+                    requirement.optional = data.readBoolean();
+                    final String[] hints = new String[data.readInt()];
+                    for ( int k = 0; k < hints.length; k++ )
+                    {
+                        hints[k] = data.readUTF().intern();
+                    }
+                    requirement.hints = Arrays.asList( hints );
+                    component.requirements.put( fieldName, requirement );
+                }
+
+                final int configurationCount = data.readInt();
+                for ( int j = 0; j < configurationCount; j++ )
+                {
+                    final String fieldName = data.readUTF();
+                    component.configurationMap.put( fieldName, new ConfigurationImpl( fieldName, readLongUTF( data ) ) );
+                }
+
+                components.add( component );
+            }
+            return components;
+        }
+    }
+
+    /**
+     * @return {@code true} if the XML contains <code>${</code>, decoding it as declared by its prolog
+     */
+    private static boolean needsInterpolation( final byte[] xml )
+        throws IOException
+    {
+        final StringBuilder buf = new StringBuilder();
+        try ( Reader reader = new XmlStreamReader( new ByteArrayInputStream( xml ) ) )
+        {
+            final char[] chars = new char[4096];
+            for ( int n; ( n = reader.read( chars ) ) > 0; )
+            {
+                buf.append( chars, 0, n );
+            }
+        }
+        return buf.indexOf( "${" ) >= 0;
+    }
+
+    private static long checksum( final byte[] bytes )
+    {
+        final CRC32 crc = new CRC32();
+        crc.update( bytes, 0, bytes.length );
+        return crc.getValue();
+    }
+
+    private static byte[] readFully( final InputStream in )
+        throws IOException
+    {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final byte[] bytes = new byte[4096];
+        for ( int n; ( n = in.read( bytes ) ) > 0; )
+        {
+            buf.write( bytes, 0, n );
+        }
+        return buf.toByteArray();
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string; unlike {@link DataOutputStream#writeUTF} it is not limited to 64K.
+     */
+    private static void writeLongUTF( final DataOutputStream data, final String text )
+        throws IOException
+    {
+        final byte[] bytes = text.getBytes( "UTF-8" );
+        data.writeInt( bytes.length );
+        data.write( bytes );
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string written by {@link #writeLongUTF}.
+     */
+    private static String readLongUTF( final DataInputStream data )
+        throws IOException
+    {
+        final byte[] bytes = new byte[data.readInt()];
+        data.readFully( bytes );
+        return new String( bytes, "UTF-8" );
+    }
+}
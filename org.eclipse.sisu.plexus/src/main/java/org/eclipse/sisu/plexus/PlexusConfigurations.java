@@ -14,6 +14,7 @@ import javax.inject.Provider;
 
 import org.codehaus.plexus.component.annotations.Configuration;
 import org.eclipse.sisu.bean.BeanProperty;
+import org.eclipse.sisu.plexus.PlexusXmlBeanConverter.ConversionPlan;
 
 import com.google.inject.TypeLiteral;
 import com.google.inject.spi.TypeEncounter;
@@ -74,6 +75,8 @@ final class PlexusConfigurations
 
         private final String value;
 
+        private volatile CompiledValue compiled;
+
         // ----------------------------------------------------------------------
         // Constructors
         // ----------------------------------------------------------------------
@@ -91,9 +94,38 @@ final class PlexusConfigurations
         // Public methods
         // ----------------------------------------------------------------------
 
+        @SuppressWarnings( "unchecked" )
         public T get()
         {
-            return converterProvider.get().convert( type, value );
+            final PlexusBeanConverter converter = converterProvider.get();
+            if ( converter instanceof PlexusXmlBeanConverter )
+            {
+                // compile the configuration once, then replay it for each new instance
+                CompiledValue c = compiled;
+                if ( null == c || c.converter != converter )
+                {
+                    c = new CompiledValue( converter, ( (PlexusXmlBeanConverter) converter ).compile( type, value ) );
+                    compiled = c;
+                }
+                return (T) c.plan.convert();
+            }
+            return converter.convert( type, value );
+        }
+    }
+
+    /**
+     * {@link ConversionPlan} compiled by a particular converter.
+     */
+    private static final class CompiledValue
+    {
+        final PlexusBeanConverter converter;
+
+        final ConversionPlan plan;
+
+        CompiledValue( final PlexusBeanConverter converter, final ConversionPlan plan )
+        {
+            this.converter = converter;
+            this.plan = plan;
         }
     }
 }
@@ -10,9 +10,14 @@
  *******************************************************************************/
 package org.eclipse.sisu.plexus;
 
+import java.lang.annotation.Annotation;
 import java.security.SecureClassLoader;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.inject.Provider;
 
@@ -30,8 +35,10 @@ import org.eclipse.sisu.bean.BeanProperty;
 import org.eclipse.sisu.bean.BeanScheduler;
 import org.eclipse.sisu.bean.PropertyBinding;
 import org.eclipse.sisu.inject.Logs;
+import org.eclipse.sisu.inject.Weak;
 
 import com.google.inject.Binder;
+import com.google.inject.Key;
 import com.google.inject.Module;
 
 /**
@@ -52,9 +59,9 @@ public final class PlexusLifecycleManager
     // Implementation fields
     // ----------------------------------------------------------------------
 
-    private final Deque<Startable> startableBeans = new ArrayDeque<Startable>();
+    private final LifecycleRegistry<Startable> startableBeans = new LifecycleRegistry<Startable>();
 
-    private final Deque<Disposable> disposableBeans = new ArrayDeque<Disposable>();
+    private final LifecycleRegistry<Disposable> disposableBeans = new LifecycleRegistry<Disposable>();
 
     private final Logger consoleLogger = new ConsoleLogger();
 
@@ -66,6 +73,28 @@ public final class PlexusLifecycleManager
 
     private final BeanManager delegate;
 
+    private final ThreadLocal<DeferredActivations> deferredHolder = new ThreadLocal<DeferredActivations>();
+
+    private final Map<Object, DeferredActivations> deferredBeans = Weak.concurrentKeys();
+
+    private int activationThreads;
+
+    private final Map<Object, List<Object>> shutdownRequirements = new IdentityHashMap<Object, List<Object>>();
+
+    private int shutdownThreads;
+
+    private long componentShutdownTimeout;
+
+    private long shutdownTimeout;
+
+    private volatile List<Object> shutdownStragglers = Collections.emptyList();
+
+    private final Map<Object, Key<?>> beanKeys = Weak.concurrentKeys();
+
+    private LifecycleListener lifecycleListener;
+
+    private volatile Object provisionTimer; // not typed, as it needs Guice 4 and Guice scans our fields
+
     // ----------------------------------------------------------------------
     // Constructors
     // ----------------------------------------------------------------------
@@ -86,9 +115,115 @@ public final class PlexusLifecycleManager
     // Public methods
     // ----------------------------------------------------------------------
 
+    /**
+     * Sets the number of threads used to activate load-on-start components; less than two means sequential activation.
+     * <p>
+     * Load-on-start components are then activated once their injector has been built, after the components they
+     * require, while other components are still activated as soon as they're provisioned. Looking up a load-on-start
+     * component before then activates it on the spot, as does injecting it into a component that's activated straight
+     * away; but components reached through lazy lists or maps may be seen before they're activated. Needs Guice 4 to
+     * tell load-on-start components apart, otherwise activation stays sequential.
+     * 
+     * @param threads The number of threads
+     */
+    public void setActivationThreads( final int threads )
+    {
+        activationThreads = threads;
+    }
+
+    /**
+     * Configures how managed components are stopped and disposed; the default is one at a time with no time limits.
+     * <p>
+     * With more than one thread, or any time limit, components are shut down in parallel waves that respect their
+     * requirements; components that overrun their time limit are reported and left behind.
+     * 
+     * @param threads The number of threads
+     * @param componentTimeout Time limit for stopping or disposing each component in milliseconds; zero means no limit
+     * @param totalTimeout Time limit for the whole shutdown in milliseconds; zero means no limit
+     */
+    public void setShutdownLimits( final int threads, final long componentTimeout, final long totalTimeout )
+    {
+        shutdownThreads = threads;
+        componentShutdownTimeout = componentTimeout;
+        shutdownTimeout = totalTimeout;
+    }
+
+    /**
+     * @return Components that were skipped or timed out during the last parallel shutdown; empty if there were none
+     */
+    public List<Object> getShutdownStragglers()
+    {
+        return shutdownStragglers;
+    }
+
+    /**
+     * Registers a listener to be told how long each component took to provision, contextualize, initialize, start,
+     * stop and dispose; phases aren't timed unless there's a listener. Must be set before any injectors are created.
+     * 
+     * @param listener The lifecycle listener
+     */
+    public void setLifecycleListener( final LifecycleListener listener )
+    {
+        lifecycleListener = listener;
+    }
+
+    /**
+     * Defers activation of load-on-start beans provisioned by the current thread until {@link #activateDeferred()} is
+     * called; that is, beans Guice provisions for their own sake rather than as requirements of other beans.
+     * 
+     * @return {@code true} if activation is now deferred; otherwise {@code false}
+     */
+    public boolean deferActivation()
+    {
+        if ( activationThreads > 1 && null == deferredHolder.get() && null != provisionTimer() )
+        {
+            deferredHolder.set( new DeferredActivations() );
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Activates beans deferred by the current thread; independent beans are activated in parallel.
+     */
+    public void activateDeferred()
+    {
+        final DeferredActivations deferred = deferredHolder.get();
+        if ( null != deferred )
+        {
+            deferredHolder.remove();
+            deferred.run( this, activationThreads );
+        }
+    }
+
+    /**
+     * Activates the given bean now if its activation was deferred, or waits while another thread activates it.
+     * 
+     * @param bean The bean
+     */
+    public void awaitActivation( final Object bean )
+    {
+        if ( !deferredBeans.isEmpty() )
+        {
+            final DeferredActivations deferred = deferredBeans.get( bean );
+            if ( null != deferred )
+            {
+                deferred.activate( this, bean );
+            }
+        }
+    }
+
     public void configure( final Binder binder )
     {
         BeanScheduler.MODULE.configure( binder );
+        if ( null != lifecycleListener || activationThreads > 1 )
+        {
+            final Object timer = provisionTimer();
+            if ( null != timer )
+            {
+                ( (ProvisionTimer) timer ).bind( binder );
+            }
+        }
     }
 
     public boolean manage( final Class<?> clazz )
@@ -136,7 +271,7 @@ public final class PlexusLifecycleManager
     {
         if ( bean instanceof Disposable )
         {
-            synchronizedPush( disposableBeans, (Disposable) bean );
+            disposableBeans.add( (Disposable) bean );
         }
         if ( bean instanceof LogEnabled )
         {
@@ -151,26 +286,58 @@ public final class PlexusLifecycleManager
 
     public boolean unmanage( final Object bean )
     {
-        if ( synchronizedRemove( startableBeans, bean ) )
+        if ( startableBeans.remove( bean ) )
         {
             stop( (Startable) bean );
         }
-        if ( synchronizedRemove( disposableBeans, bean ) )
+        if ( disposableBeans.remove( bean ) )
         {
             dispose( (Disposable) bean );
         }
+        if ( isParallelShutdown() )
+        {
+            synchronized ( shutdownRequirements )
+            {
+                shutdownRequirements.remove( bean );
+            }
+        }
         return null != delegate ? delegate.unmanage( bean ) : true;
     }
 
     public boolean unmanage()
     {
-        for ( Startable bean; ( bean = synchronizedPop( startableBeans ) ) != null; )
+        if ( isParallelShutdown() )
         {
-            stop( bean );
+            final ParallelShutdown shutdown =
+                new ParallelShutdown( this, shutdownThreads, componentShutdownTimeout, shutdownTimeout );
+            for ( List<Startable> beans; !( beans = startableBeans.drain() ).isEmpty(); )
+            {
+                shutdown.stop( beans, snapshotRequirements() );
+            }
+            for ( List<Disposable> beans; !( beans = disposableBeans.drain() ).isEmpty(); )
+            {
+                shutdown.dispose( beans, snapshotRequirements() );
+            }
+            synchronized ( shutdownRequirements )
+            {
+                shutdownRequirements.clear();
+            }
+            shutdownStragglers = Collections.unmodifiableList( new ArrayList<Object>( shutdown.getStragglers() ) );
+            return null != delegate ? delegate.unmanage() : true;
+        }
+        for ( List<Startable> beans; !( beans = startableBeans.drain() ).isEmpty(); )
+        {
+            for ( int i = beans.size() - 1; i >= 0; i-- )
+            {
+                stop( beans.get( i ) ); // latest first
+            }
         }
-        for ( Disposable bean; ( bean = synchronizedPop( disposableBeans ) ) != null; )
+        for ( List<Disposable> beans; !( beans = disposableBeans.drain() ).isEmpty(); )
         {
-            dispose( bean );
+            for ( int i = beans.size() - 1; i >= 0; i-- )
+            {
+                dispose( beans.get( i ) ); // latest first
+            }
         }
         return null != delegate ? delegate.unmanage() : true;
     }
@@ -181,6 +348,105 @@ public final class PlexusLifecycleManager
 
     @Override
     protected void activate( final Object bean )
+    {
+        final DeferredActivations deferred = deferredHolder.get();
+        if ( null != deferred && isLoadOnStart() )
+        {
+            deferredBeans.put( bean, deferred );
+            deferred.add( bean );
+        }
+        else
+        {
+            if ( null != deferred )
+            {
+                deferred.activateRequirements( this, bean ); // may need load-on-start beans deferred earlier
+            }
+            activateNow( bean );
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * @return {@code true} if requirements should be reported to {@link #addRequirement}
+     */
+    boolean isTrackingRequirements()
+    {
+        return activationThreads > 1 || isParallelShutdown();
+    }
+
+    /**
+     * Records that the given bean was injected with the given requirement, for ordering activation and shutdown.
+     */
+    void addRequirement( final Object bean, final Object requirement )
+    {
+        final DeferredActivations deferred = deferredHolder.get();
+        if ( null != deferred )
+        {
+            deferred.addRequirement( bean, requirement );
+        }
+        if ( isParallelShutdown() && ( bean instanceof Startable || bean instanceof Disposable ) )
+        {
+            final Object edge;
+            if ( requirement instanceof Collection<?> || requirement instanceof Map<?, ?> )
+            {
+                edge = ParallelShutdown.ANY_COMPONENT; // lazy collection of components, might include any bean
+            }
+            else if ( requirement instanceof Startable || requirement instanceof Disposable )
+            {
+                edge = requirement;
+            }
+            else
+            {
+                return; // not shut down, so no need to order around it
+            }
+            synchronized ( shutdownRequirements )
+            {
+                List<Object> beanRequirements = shutdownRequirements.get( bean );
+                if ( null == beanRequirements )
+                {
+                    shutdownRequirements.put( bean, beanRequirements = new ArrayList<Object>( 2 ) );
+                }
+                beanRequirements.add( edge );
+            }
+        }
+    }
+
+    /**
+     * Reports that Guice has provisioned the given binding; remembers its key for later lifecycle events.
+     */
+    void provisioned( final Key<?> key, final Object bean, final long duration, final Throwable problem )
+    {
+        if ( null == lifecycleListener )
+        {
+            return; // only tracking provisioning for deferred activation
+        }
+        if ( null != bean )
+        {
+            if ( manage( bean.getClass() ) )
+            {
+                beanKeys.put( bean, key );
+            }
+            notifyListener( LifecycleEvent.Phase.PROVISION, key, bean.getClass(), duration, problem );
+        }
+        else
+        {
+            notifyListener( LifecycleEvent.Phase.PROVISION, key, key.getTypeLiteral().getRawType(), duration,
+                            problem );
+        }
+    }
+
+    /**
+     * Reports that the given bean is no longer waiting for deferred activation.
+     */
+    void activated( final Object bean )
+    {
+        deferredBeans.remove( bean );
+    }
+
+    void activateNow( final Object bean )
     {
         final ClassLoader tccl = Thread.currentThread().getContextClassLoader();
         try
@@ -210,7 +476,7 @@ public final class PlexusLifecycleManager
             {
                 // register before calling start in case it fails
                 final Startable startableBean = (Startable) bean;
-                synchronizedPush( startableBeans, startableBean );
+                startableBeans.add( startableBean );
                 start( startableBean );
             }
         }
@@ -220,10 +486,6 @@ public final class PlexusLifecycleManager
         }
     }
 
-    // ----------------------------------------------------------------------
-    // Implementation methods
-    // ----------------------------------------------------------------------
-
     Logger getPlexusLogger( final Object bean )
     {
         final String name = bean.getClass().getName();
@@ -250,39 +512,65 @@ public final class PlexusLifecycleManager
         }
     }
 
-    private static <T> void synchronizedPush( final Deque<T> deque, final T element )
+    /**
+     * @return Shared provision timer; {@code null} if this version of Guice doesn't support provision listeners
+     */
+    private synchronized Object provisionTimer()
     {
-        synchronized ( deque ) // NOSONAR
+        if ( null == provisionTimer )
         {
-            deque.addLast( element );
+            try
+            {
+                provisionTimer = new ProvisionTimer( this );
+            }
+            catch ( final LinkageError e )
+            {
+                Logs.debug( "Provision tracking needs Guice 4: <>", e, null );
+            }
         }
+        return provisionTimer;
     }
 
-    private static boolean synchronizedRemove( final Deque<?> deque, final Object element )
+    /**
+     * @return {@code true} if the bean being activated was provisioned for its own sake, which while an injector is
+     *         being built means it's an eager singleton; requirements are provisioned further down the stack
+     */
+    private boolean isLoadOnStart()
     {
-        synchronized ( deque ) // NOSONAR
-        {
-            return deque.remove( element );
-        }
+        final Object timer = provisionTimer;
+        return null != timer && ( (ProvisionTimer) timer ).depth() == 1;
     }
 
-    private static <T> T synchronizedPop( final Deque<T> deque )
+    private boolean isParallelShutdown()
     {
-        synchronized ( deque ) // NOSONAR
+        return shutdownThreads > 1 || componentShutdownTimeout > 0 || shutdownTimeout > 0;
+    }
+
+    private Map<Object, List<Object>> snapshotRequirements()
+    {
+        synchronized ( shutdownRequirements )
         {
-            return deque.pollLast();
+            final Map<Object, List<Object>> snapshot = new IdentityHashMap<Object, List<Object>>();
+            for ( final Map.Entry<Object, List<Object>> e : shutdownRequirements.entrySet() )
+            {
+                snapshot.put( e.getKey(), new ArrayList<Object>( e.getValue() ) );
+            }
+            return snapshot;
         }
     }
 
     private void contextualize( final Contextualizable bean )
     {
         Logs.trace( "Contextualize: <>", bean, null );
+        final long start = startTiming();
+        Throwable problem = null;
         try
         {
             bean.contextualize( plexusContextProvider.get() );
         }
         catch ( final Throwable e )
         {
+            problem = e;
             Logs.catchThrowable( e );
             try
             {
@@ -293,17 +581,24 @@ public final class PlexusLifecycleManager
                 Logs.throwUnchecked( e );
             }
         }
+        finally
+        {
+            endTiming( LifecycleEvent.Phase.CONTEXTUALIZE, bean, start, problem );
+        }
     }
 
     private void initialize( final Initializable bean )
     {
         Logs.trace( "Initialize: <>", bean, null );
+        final long start = startTiming();
+        Throwable problem = null;
         try
         {
             bean.initialize();
         }
         catch ( final Throwable e )
         {
+            problem = e;
             Logs.catchThrowable( e );
             try
             {
@@ -314,17 +609,24 @@ public final class PlexusLifecycleManager
                 Logs.throwUnchecked( e );
             }
         }
+        finally
+        {
+            endTiming( LifecycleEvent.Phase.INITIALIZE, bean, start, problem );
+        }
     }
 
     private void start( final Startable bean )
     {
         Logs.trace( "Start: <>", bean, null );
+        final long start = startTiming();
+        Throwable problem = null;
         try
         {
             bean.start();
         }
         catch ( final Throwable e )
         {
+            problem = e;
             Logs.catchThrowable( e );
             try
             {
@@ -335,18 +637,25 @@ public final class PlexusLifecycleManager
                 Logs.throwUnchecked( e );
             }
         }
+        finally
+        {
+            endTiming( LifecycleEvent.Phase.START, bean, start, problem );
+        }
     }
 
     @SuppressWarnings( "finally" )
-    private void stop( final Startable bean )
+    void stop( final Startable bean )
     {
         Logs.trace( "Stop: <>", bean, null );
+        final long start = startTiming();
+        Throwable problem = null;
         try
         {
             bean.stop();
         }
         catch ( final Throwable e )
         {
+            problem = e;
             Logs.catchThrowable( e );
             try
             {
@@ -357,18 +666,25 @@ public final class PlexusLifecycleManager
                 return; // ignore any logging exceptions and continue with shutdown
             }
         }
+        finally
+        {
+            endTiming( LifecycleEvent.Phase.STOP, bean, start, problem );
+        }
     }
 
     @SuppressWarnings( "finally" )
-    private void dispose( final Disposable bean )
+    void dispose( final Disposable bean )
     {
         Logs.trace( "Dispose: <>", bean, null );
+        final long start = startTiming();
+        Throwable problem = null;
         try
         {
             bean.dispose();
         }
         catch ( final Throwable e )
         {
+            problem = e;
             Logs.catchThrowable( e );
             try
             {
@@ -379,5 +695,59 @@ public final class PlexusLifecycleManager
                 return; // ignore any logging exceptions and continue with shutdown
             }
         }
+        finally
+        {
+            endTiming( LifecycleEvent.Phase.DISPOSE, bean, start, problem );
+        }
+    }
+
+    private long startTiming()
+    {
+        return null != lifecycleListener ? System.nanoTime() : 0;
+    }
+
+    private void endTiming( final LifecycleEvent.Phase phase, final Object bean, final long start,
+                            final Throwable problem )
+    {
+        if ( null != lifecycleListener )
+        {
+            Key<?> key = beanKeys.get( bean );
+            if ( null == key && null != provisionTimer )
+            {
+                key = ( (ProvisionTimer) provisionTimer ).currentKey(); // bean is still being provisioned
+            }
+            notifyListener( phase, key, bean.getClass(), System.nanoTime() - start, problem );
+        }
+    }
+
+    private void notifyListener( final LifecycleEvent.Phase phase, final Key<?> key, final Class<?> implementation,
+                                 final long duration, final Throwable problem )
+    {
+        String role = null;
+        String hint = null;
+        if ( null != key )
+        {
+            role = key.getTypeLiteral().getRawType().getName();
+            final Annotation qualifier = key.getAnnotation();
+            if ( qualifier instanceof com.google.inject.name.Named )
+            {
+                hint = ( (com.google.inject.name.Named) qualifier ).value();
+            }
+            else if ( qualifier instanceof javax.inject.Named )
+            {
+                hint = ( (javax.inject.Named) qualifier ).value();
+            }
+            hint = Hints.canonicalHint( hint );
+        }
+        try
+        {
+            lifecycleListener.lifecycleEvent( new LifecycleEvent( phase, role, hint, implementation, duration,
+                                                                  problem ) );
+        }
+        catch ( final Throwable e )
+        {
+            Logs.catchThrowable( e );
+            Logs.debug( "Problem notifying: <>", lifecycleListener, e );
+        }
     }
 }
@@ -118,6 +118,13 @@ final class PlexusPropertyBinder
                 }
             }
             final Provider<T> roleProvider = requirements.lookup( requirement, property );
+            if ( manager instanceof PlexusLifecycleManager
+                && ( (PlexusLifecycleManager) manager ).isTrackingRequirements() )
+            {
+                final boolean optional = OPTIONAL_SUPPORTED && requirement.optional();
+                return new TrackedPropertyBinding<T>( (PlexusLifecycleManager) manager, property, roleProvider,
+                                                      optional );
+            }
             if ( OPTIONAL_SUPPORTED && requirement.optional() )
             {
                 return new OptionalPropertyBinding<T>( property, roleProvider );
@@ -120,6 +120,8 @@ final class PlexusRequirements
 
         private final String[] hints;
 
+        private volatile Iterable<? extends Entry<String, T>> beans;
+
         // ----------------------------------------------------------------------
         // Constructors
         // ----------------------------------------------------------------------
@@ -139,7 +141,13 @@ final class PlexusRequirements
 
         final Iterable<? extends Entry<String, T>> locate()
         {
-            return locatorProvider.get().locate( type, hints );
+            Iterable<? extends Entry<String, T>> result = beans;
+            if ( null == result )
+            {
+                // located beans are a live view, so we only need to ask once
+                beans = result = locatorProvider.get().locate( type, hints );
+            }
+            return result;
         }
     }
 
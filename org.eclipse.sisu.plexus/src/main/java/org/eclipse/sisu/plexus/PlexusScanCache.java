@@ -0,0 +1,394 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.codehaus.plexus.component.annotations.Component;
+import org.eclipse.sisu.inject.DeferredClass;
+import org.eclipse.sisu.inject.Logs;
+import org.eclipse.sisu.space.ClassFinder;
+import org.eclipse.sisu.space.ClassSpace;
+import org.eclipse.sisu.space.SpaceModule;
+import org.eclipse.sisu.space.SpaceScanner;
+import org.eclipse.sisu.space.URLClassSpace;
+
+/**
+ * Persistent cache of the Plexus types found by scanning jars; unchanged jars are replayed without reading bytecode.
+ * <p>
+ * Each jar has its own cache file recording its path, size, last-modified time, and SHA-1 content hash. A jar whose
+ * size and time match is replayed straight away; one that was only touched is replayed once its hash is checked.
+ */
+final class PlexusScanCache
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    private static final int MAGIC = 0x50534358; // PSCX
+
+    private static final int VERSION = 1;
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final File directory;
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    PlexusScanCache( final File directory )
+    {
+        this.directory = directory;
+    }
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * Reports Plexus types in the given class space, using cached results for unchanged jars.
+     *
+     * @param space The class space
+     * @param isStrict Strict scanning
+     * @param listener The type listener
+     */
+    public void scan( final ClassSpace space, final boolean isStrict, final PlexusTypeListener listener )
+    {
+        if ( !( space instanceof URLClassSpace ) )
+        {
+            new SpaceScanner( space, isStrict ).accept( new PlexusTypeVisitor( listener ) );
+            return;
+        }
+
+        final String source = space.toString();
+        for ( final URL url : ( (URLClassSpace) space ).getURLs() )
+        {
+            final File jar = toJarFile( url );
+            if ( null == jar )
+            {
+                new SpaceScanner( space, new EntryFinder( url ), isStrict ).accept( new PlexusTypeVisitor( listener ) );
+                continue;
+            }
+
+            final File cacheFile = cacheFile( jar );
+            final long size = jar.length();
+            final long lastModified = jar.lastModified();
+
+            ScanRecord record = load( cacheFile, jar, size, lastModified );
+            if ( null == record )
+            {
+                record = new ScanRecord();
+                new SpaceScanner( space, new EntryFinder( url ), isStrict ).accept( new PlexusTypeVisitor( record ) );
+                try
+                {
+                    record.hash = hash( jar );
+                    store( cacheFile, jar, size, lastModified, record );
+                }
+                catch ( final IOException e )
+                {
+                    Logs.trace( "Problem caching: {}", jar, e );
+                }
+            }
+            record.replay( space, source, listener );
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * @return Local jar file behind the given class path entry; {@code null} if it's not a local jar
+     */
+    private static File toJarFile( final URL url )
+    {
+        if ( "file".equals( url.getProtocol() ) && !url.getPath().endsWith( "/" ) )
+        {
+            try
+            {
+                final File file = new File( url.toURI() );
+                return file.isFile() ? file : null;
+            }
+            catch ( final Exception e )
+            {
+                return null; // not a hierarchical file URI
+            }
+        }
+        return null;
+    }
+
+    private File cacheFile( final File jar )
+    {
+        final String path = jar.getAbsolutePath();
+        return new File( directory, jar.getName() + '-' + Integer.toHexString( path.hashCode() ) + ".scan" );
+    }
+
+    /**
+     * Loads the cached scan for the given jar; returns {@code null} if there's no cached scan or it's out of date.
+     */
+    private static ScanRecord load( final File cacheFile, final File jar, final long size, final long lastModified )
+    {
+        if ( !cacheFile.isFile() )
+        {
+            return null;
+        }
+        try
+        {
+            final ScanRecord record;
+            final long cachedTime;
+
+            try ( DataInputStream in =
+                new DataInputStream( new BufferedInputStream( new FileInputStream( cacheFile ) ) ) )
+            {
+                if ( in.readInt() != MAGIC || in.readInt() != VERSION || !jar.getAbsolutePath().equals( in.readUTF() )
+                    || in.readLong() != size )
+                {
+                    return null;
+                }
+                cachedTime = in.readLong();
+                record = ScanRecord.read( in );
+            }
+
+            if ( cachedTime != lastModified )
+            {
+                // jar might have been touched without changing, so compare the content
+                if ( !record.hash.equals( hash( jar ) ) )
+                {
+                    return null;
+                }
+                store( cacheFile, jar, size, lastModified, record );
+            }
+            return record;
+        }
+        catch ( final IOException e )
+        {
+            Logs.trace( "Problem reading: {}", cacheFile, e );
+            return null;
+        }
+    }
+
+    /**
+     * Stores the given scan for the jar; writes to a temporary file first so readers never see partial results.
+     */
+    private static void store( final File cacheFile, final File jar, final long size, final long lastModified,
+                               final ScanRecord record )
+        throws IOException
+    {
+        final File dir = cacheFile.getParentFile();
+        if ( !dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory() )
+        {
+            throw new IOException( "Cannot create directory: " + dir );
+        }
+
+        final File tempFile = File.createTempFile( cacheFile.getName(), ".tmp", dir );
+        try
+        {
+            try ( DataOutputStream out =
+                new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tempFile ) ) ) )
+            {
+                out.writeInt( MAGIC );
+                out.writeInt( VERSION );
+                out.writeUTF( jar.getAbsolutePath() );
+                out.writeLong( size );
+                out.writeLong( lastModified );
+                record.write( out );
+            }
+            if ( !tempFile.renameTo( cacheFile ) && !( cacheFile.delete() && tempFile.renameTo( cacheFile ) ) )
+            {
+                throw new IOException( "Cannot replace: " + cacheFile );
+            }
+        }
+        finally
+        {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * @return Hex encoded SHA-1 hash of the given file
+     */
+    private static String hash( final File file )
+        throws IOException
+    {
+        final MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( final Exception e )
+        {
+            throw new IOException( e.toString() );
+        }
+
+        try ( InputStream in = new FileInputStream( file ) )
+        {
+            final byte[] buf = new byte[8192];
+            for ( int n; ( n = in.read( buf ) ) > 0; )
+            {
+                digest.update( buf, 0, n );
+            }
+        }
+
+        final StringBuilder buf = new StringBuilder();
+        for ( final byte b : digest.digest() )
+        {
+            buf.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+        }
+        return buf.toString();
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * {@link ClassFinder} that only finds classes inside a single class path entry.
+     */
+    private static final class EntryFinder
+        implements ClassFinder
+    {
+        private final URL url;
+
+        EntryFinder( final URL url )
+        {
+            this.url = url;
+        }
+
+        public Enumeration<URL> findClasses( final ClassSpace space )
+        {
+            // entry space may also expand manifest class path, so filter out anything from other entries
+            final Enumeration<URL> e = SpaceModule.LOCAL_SCAN.findClasses( new URLClassSpace( null, new URL[] { url } ) );
+
+            final String dirPrefix = url.toString();
+            final String jarPrefix = "jar:" + dirPrefix + "!/";
+
+            final List<URL> classes = new ArrayList<URL>();
+            while ( e.hasMoreElements() )
+            {
+                final URL clazz = e.nextElement();
+                final String path = clazz.toString();
+                if ( path.startsWith( jarPrefix ) || path.startsWith( dirPrefix ) )
+                {
+                    classes.add( clazz );
+                }
+            }
+            return Collections.enumeration( classes );
+        }
+    }
+
+    /**
+     * Ordered record of the Plexus types found in a jar.
+     */
+    static final class ScanRecord
+        implements PlexusTypeListener
+    {
+        // ----------------------------------------------------------------------
+        // Implementation fields
+        // ----------------------------------------------------------------------
+
+        String hash;
+
+        // implementation followed by role, hint, strategy, description; role is null for qualified types
+        private final List<String[]> types = new ArrayList<String[]>();
+
+        // ----------------------------------------------------------------------
+        // Public methods
+        // ----------------------------------------------------------------------
+
+        public void hear( final Class<?> qualifiedType, final Object source )
+        {
+            types.add( new String[] { qualifiedType.getName(), null, null, null, null } );
+        }
+
+        public void hear( final Component component, final DeferredClass<?> clazz, final Object source )
+        {
+            types.add( new String[] { clazz.getName(), component.role().getName(), component.hint(),
+                component.instantiationStrategy(), component.description() } );
+        }
+
+        // ----------------------------------------------------------------------
+        // Implementation methods
+        // ----------------------------------------------------------------------
+
+        void replay( final ClassSpace space, final String source, final PlexusTypeListener listener )
+        {
+            for ( final String[] type : types )
+            {
+                if ( null != type[1] )
+                {
+                    final Component component = new ComponentImpl( space.loadClass( type[1] ), type[2], type[3], type[4] );
+                    listener.hear( component, space.deferLoadClass( type[0] ), source );
+                }
+                else
+                {
+                    listener.hear( space.loadClass( type[0] ), source );
+                }
+            }
+        }
+
+        void write( final DataOutputStream out )
+            throws IOException
+        {
+            out.writeUTF( hash );
+            out.writeInt( types.size() );
+            for ( final String[] type : types )
+            {
+                out.writeUTF( type[0] );
+                out.writeBoolean( null != type[1] );
+                if ( null != type[1] )
+                {
+                    out.writeUTF( type[1] );
+                    out.writeUTF( type[2] );
+                    out.writeUTF( type[3] );
+                    out.writeUTF( type[4] );
+                }
+            }
+        }
+
+        static ScanRecord read( final DataInputStream in )
+            throws IOException
+        {
+            final ScanRecord record = new ScanRecord();
+            record.hash = in.readUTF();
+            for ( int i = in.readInt(); i > 0; i-- )
+            {
+                final String implementation = in.readUTF();
+                if ( in.readBoolean() )
+                {
+                    record.types.add( new String[] { implementation, in.readUTF(), in.readUTF(), in.readUTF(),
+                        in.readUTF() } );
+                }
+                else
+                {
+                    record.types.add( new String[] { implementation, null, null, null, null } );
+                }
+            }
+            return record;
+        }
+    }
+}
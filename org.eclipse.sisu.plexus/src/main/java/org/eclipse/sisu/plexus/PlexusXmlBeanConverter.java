@@ -16,6 +16,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -74,6 +75,22 @@ public final class PlexusXmlBeanConverter
 
     @SuppressWarnings( { "unchecked", "rawtypes" } )
     public Object convert( final TypeLiteral role, final String value )
+    {
+        return compile( role, value ).convert();
+    }
+
+    // ----------------------------------------------------------------------
+    // Local methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * Compiles the given constant value into a {@link ConversionPlan} that can be replayed to create new beans.
+     * 
+     * @param role The expected bean type
+     * @param value The constant value
+     * @return Plan that converts the constant value to beans of the given type
+     */
+    ConversionPlan compile( final TypeLiteral<?> role, final String value )
     {
         if ( value.trim().startsWith( "<" ) )
         {
@@ -83,7 +100,7 @@ public final class PlexusXmlBeanConverter
                 parser.setInput( new StringReader( value ) );
                 parser.nextTag();
 
-                return parse( parser, role );
+                return new ConversionPlan( role, value, compile( parser, role ), true );
             }
             catch ( final Exception e )
             {
@@ -91,7 +108,7 @@ public final class PlexusXmlBeanConverter
             }
         }
 
-        return convertText( value, role );
+        return new ConversionPlan( role, value, compileText( value, role ), false );
     }
 
     // ----------------------------------------------------------------------
@@ -99,13 +116,13 @@ public final class PlexusXmlBeanConverter
     // ----------------------------------------------------------------------
 
     /**
-     * Parses a sequence of XML elements and converts them to the given target type.
+     * Parses a sequence of XML elements and compiles them into a plan for the given target type.
      * 
      * @param parser The XML parser
      * @param toType The target type
-     * @return Converted instance of the target type
+     * @return Plan that creates instances of the target type
      */
-    private Object parse( final MXParser parser, final TypeLiteral<?> toType )
+    private Step compile( final MXParser parser, final TypeLiteral<?> toType )
         throws Exception
     {
         parser.require( XmlPullParser.START_TAG, null, null );
@@ -113,49 +130,50 @@ public final class PlexusXmlBeanConverter
         final Class<?> rawType = toType.getRawType();
         if ( Xpp3Dom.class.isAssignableFrom( rawType ) )
         {
-            return parseXpp3Dom( parser );
+            return compileXpp3Dom( parser );
         }
         if ( Properties.class.isAssignableFrom( rawType ) )
         {
-            return parseProperties( parser );
+            return compileProperties( parser );
         }
         if ( Map.class.isAssignableFrom( rawType ) )
         {
-            return parseMap( parser, TypeArguments.get( toType.getSupertype( Map.class ), 1 ) );
+            return compileMap( parser, TypeArguments.get( toType.getSupertype( Map.class ), 1 ) );
         }
         if ( Collection.class.isAssignableFrom( rawType ) )
         {
-            return parseCollection( parser, TypeArguments.get( toType.getSupertype( Collection.class ), 0 ) );
+            return compileCollection( parser, TypeArguments.get( toType.getSupertype( Collection.class ), 0 ) );
         }
         if ( rawType.isArray() )
         {
-            return parseArray( parser, TypeArguments.get( toType, 0 ) );
+            return compileArray( parser, TypeArguments.get( toType, 0 ) );
         }
-        return parseBean( parser, toType, rawType );
+        return compileBean( parser, toType, rawType );
     }
 
     /**
-     * Parses an XML subtree and converts it to the {@link Xpp3Dom} type.
+     * Parses an XML subtree and compiles it into a plan for the {@link Xpp3Dom} type.
      * 
      * @param parser The XML parser
-     * @return Converted Xpp3Dom instance
+     * @return Plan that creates Xpp3Dom instances
      */
-    private static Xpp3Dom parseXpp3Dom( final XmlPullParser parser )
+    private static Step compileXpp3Dom( final XmlPullParser parser )
         throws Exception
     {
-        return Xpp3DomBuilder.build( parser );
+        return new Xpp3DomStep( Xpp3DomBuilder.build( parser ) );
     }
 
     /**
-     * Parses a sequence of XML elements and converts them to the appropriate {@link Properties} type.
+     * Parses a sequence of XML elements and compiles them into a plan for the appropriate {@link Properties} type.
      * 
      * @param parser The XML parser
-     * @return Converted Properties instance
+     * @return Plan that creates Properties instances
      */
-    private static Properties parseProperties( final XmlPullParser parser )
+    private static Step compileProperties( final XmlPullParser parser )
         throws Exception
     {
-        final Properties properties = newImplementation( parser, Properties.class );
+        final Class<?> clazz = loadImplementation( parseImplementation( parser ), Properties.class );
+        final List<String> namesAndValues = new ArrayList<String>();
         while ( parser.nextTag() == XmlPullParser.START_TAG )
         {
             parser.nextTag();
@@ -164,84 +182,79 @@ public final class PlexusXmlBeanConverter
             {
                 final String name = parser.nextText();
                 parser.nextTag();
-                properties.put( name, parser.nextText() );
+                namesAndValues.add( name );
+                namesAndValues.add( parser.nextText() );
             }
             else
             {
                 final String value = parser.nextText();
                 parser.nextTag();
-                properties.put( parser.nextText(), value );
+                namesAndValues.add( parser.nextText() );
+                namesAndValues.add( value );
             }
             parser.nextTag();
         }
-        return properties;
+        return new PropertiesStep( clazz, namesAndValues.toArray( new String[namesAndValues.size()] ) );
     }
 
     /**
-     * Parses a sequence of XML elements and converts them to the appropriate {@link Map} type.
+     * Parses a sequence of XML elements and compiles them into a plan for the appropriate {@link Map} type.
      * 
      * @param parser The XML parser
-     * @return Converted Map instance
+     * @return Plan that creates Map instances
      */
-    private Map<String, Object> parseMap( final MXParser parser, final TypeLiteral<?> toType )
+    private Step compileMap( final MXParser parser, final TypeLiteral<?> toType )
         throws Exception
     {
-        @SuppressWarnings( "unchecked" )
-        final Map<String, Object> map = newImplementation( parser, HashMap.class );
+        final Class<?> clazz = loadImplementation( parseImplementation( parser ), HashMap.class );
+        final List<String> keys = new ArrayList<String>();
+        final List<Step> values = new ArrayList<Step>();
         while ( parser.nextTag() == XmlPullParser.START_TAG )
         {
-            map.put( parser.getName(), parse( parser, toType ) );
+            keys.add( parser.getName() );
+            values.add( compile( parser, toType ) );
         }
-        return map;
+        return new MapStep( clazz, keys.toArray( new String[keys.size()] ), values.toArray( new Step[values.size()] ) );
     }
 
     /**
-     * Parses a sequence of XML elements and converts them to the appropriate {@link Collection} type.
+     * Parses a sequence of XML elements and compiles them into a plan for the appropriate {@link Collection} type.
      * 
      * @param parser The XML parser
-     * @return Converted Collection instance
+     * @return Plan that creates Collection instances
      */
-    private Collection<Object> parseCollection( final MXParser parser, final TypeLiteral<?> toType )
+    private CollectionStep compileCollection( final MXParser parser, final TypeLiteral<?> toType )
         throws Exception
     {
-        @SuppressWarnings( "unchecked" )
-        final Collection<Object> collection = newImplementation( parser, ArrayList.class );
+        final Class<?> clazz = loadImplementation( parseImplementation( parser ), ArrayList.class );
+        final List<Step> elements = new ArrayList<Step>();
         while ( parser.nextTag() == XmlPullParser.START_TAG )
         {
-            collection.add( parse( parser, toType ) );
+            elements.add( compile( parser, toType ) );
         }
-        return collection;
+        return new CollectionStep( clazz, elements.toArray( new Step[elements.size()] ) );
     }
 
     /**
-     * Parses a sequence of XML elements and converts them to the appropriate array type.
+     * Parses a sequence of XML elements and compiles them into a plan for the appropriate array type.
      * 
      * @param parser The XML parser
-     * @return Converted array instance
+     * @return Plan that creates array instances
      */
-    private Object parseArray( final MXParser parser, final TypeLiteral<?> toType )
+    private Step compileArray( final MXParser parser, final TypeLiteral<?> toType )
         throws Exception
     {
         // convert to a collection first then convert that into an array
-        final Collection<?> collection = parseCollection( parser, toType );
-        final Object array = Array.newInstance( toType.getRawType(), collection.size() );
-
-        int i = 0;
-        for ( final Object element : collection )
-        {
-            Array.set( array, i++, element );
-        }
-
-        return array;
+        return new ArrayStep( toType.getRawType(), compileCollection( parser, toType ) );
     }
 
     /**
-     * Parses a sequence of XML elements and converts them to the appropriate bean type.
+     * Parses a sequence of XML elements and compiles them into a plan for the appropriate bean type.
      * 
      * @param parser The XML parser
-     * @return Converted bean instance
+     * @return Plan that creates bean instances
      */
-    private Object parseBean( final MXParser parser, final TypeLiteral<?> toType, final Class<?> rawType )
+    private Step compileBean( final MXParser parser, final TypeLiteral<?> toType, final Class<?> rawType )
         throws Exception
     {
         final Class<?> clazz = loadImplementation( parseImplementation( parser ), rawType );
@@ -254,7 +267,7 @@ public final class PlexusXmlBeanConverter
             // confirm element doesn't contain nested XML
             if ( parser.next() != XmlPullParser.START_TAG )
             {
-                return convertText( text, clazz == rawType ? toType : TypeLiteral.get( clazz ) );
+                return compileText( text, clazz == rawType ? toType : TypeLiteral.get( clazz ) );
             }
         }
 
@@ -268,11 +281,9 @@ public final class PlexusXmlBeanConverter
                 parser.skipSubTree();
                 parser.nextTag();
             }
-            return "";
+            return new ConstantStep( "" );
         }
 
-        final Object bean = newImplementation( clazz );
-
         // build map of all known bean properties belonging to the chosen implementation
         final Map<String, BeanProperty<Object>> propertyMap = new HashMap<String, BeanProperty<Object>>();
         for ( final BeanProperty<Object> property : new BeanProperties( clazz ) )
@@ -284,13 +295,16 @@ public final class PlexusXmlBeanConverter
             }
         }
 
+        final List<BeanProperty<Object>> properties = new ArrayList<BeanProperty<Object>>();
+        final List<Step> values = new ArrayList<Step>();
         while ( parser.getEventType() == XmlPullParser.START_TAG )
         {
-            // update properties inside the bean, guided by the cached property map
+            // match properties inside the bean, guided by the cached property map
             final BeanProperty<Object> property = propertyMap.get( Roles.camelizeName( parser.getName() ) );
             if ( property != null )
             {
-                property.set( bean, parse( parser, property.getType() ) );
+                properties.add( property );
+                values.add( compile( parser, property.getType() ) );
                 parser.nextTag();
             }
             else
@@ -299,7 +313,9 @@ public final class PlexusXmlBeanConverter
             }
         }
 
-        return bean;
+        @SuppressWarnings( "unchecked" )
+        final BeanProperty<Object>[] propertyArray = properties.toArray( new BeanProperty[properties.size()] );
+        return new BeanStep( clazz, propertyArray, values.toArray( new Step[values.size()] ) );
     }
 
     /**
@@ -425,33 +441,21 @@ public final class PlexusXmlBeanConverter
     }
 
     /**
-     * Creates an instance of the implementation named in the current XML element, or the default if no name is given.
-     * 
-     * @param parser The XML parser
-     * @param defaultClazz The default implementation type
-     * @return Instance of custom implementation if one was given; otherwise instance of default type
-     */
-    @SuppressWarnings( "unchecked" )
-    private static <T> T newImplementation( final XmlPullParser parser, final Class<T> defaultClazz )
-    {
-        return (T) newImplementation( loadImplementation( parseImplementation( parser ), defaultClazz ) );
-    }
-
-    /**
-     * Converts the given string to the target type, using {@link TypeConverter}s registered with the {@link Injector}.
+     * Compiles the given string into a plan for the target type; matches {@link TypeConverter}s registered with the
+     * {@link Injector} ahead of time.
      * 
      * @param value The string value
      * @param toType The target type
-     * @return Converted instance of the target type
+     * @return Plan that converts the string to instances of the target type
      */
-    private Object convertText( final String value, final TypeLiteral<?> toType )
+    private Step compileText( final String value, final TypeLiteral<?> toType )
     {
         final String text = value.trim();
 
         final Class<?> rawType = toType.getRawType();
         if ( rawType.isAssignableFrom( String.class ) )
         {
-            return text; // compatible type => no conversion needed
+            return new ConstantStep( text ); // compatible type => no conversion needed
         }
 
         // use temporary Key as quick way to auto-box primitive types into their equivalent object types
@@ -461,11 +465,300 @@ public final class PlexusXmlBeanConverter
         {
             if ( b.getTypeMatcher().matches( boxedType ) )
             {
-                return b.getTypeConverter().convert( text, toType );
+                return new TextStep( text, toType, b.getTypeConverter() );
             }
         }
 
         // last chance => attempt to create an instance of the expected type: use the string if non-empty
-        return text.length() == 0 ? newImplementation( rawType ) : newImplementation( rawType, text );
+        return new TextStep( text, toType, null );
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Conversion of a constant value, compiled once and replayed to create new beans.
+     */
+    static final class ConversionPlan
+    {
+        // ----------------------------------------------------------------------
+        // Implementation fields
+        // ----------------------------------------------------------------------
+
+        private final TypeLiteral<?> role;
+
+        private final String value;
+
+        private final Step step;
+
+        private final boolean isXml;
+
+        // ----------------------------------------------------------------------
+        // Constructors
+        // ----------------------------------------------------------------------
+
+        ConversionPlan( final TypeLiteral<?> role, final String value, final Step step, final boolean isXml )
+        {
+            this.role = role;
+            this.value = value;
+            this.step = step;
+            this.isXml = isXml;
+        }
+
+        // ----------------------------------------------------------------------
+        // Local methods
+        // ----------------------------------------------------------------------
+
+        /**
+         * @return New bean converted from the constant value
+         */
+        Object convert()
+        {
+            try
+            {
+                return step.create();
+            }
+            catch ( final RuntimeException e )
+            {
+                if ( isXml )
+                {
+                    throw new IllegalArgumentException( String.format( CONVERSION_ERROR, value, role ), e );
+                }
+                throw e;
+            }
+            catch ( final Exception e )
+            {
+                throw new IllegalArgumentException( String.format( CONVERSION_ERROR, value, role ), e );
+            }
+        }
+    }
+
+    /**
+     * Compiled step of a {@link ConversionPlan}.
+     */
+    private interface Step
+    {
+        Object create()
+            throws Exception;
+    }
+
+    /**
+     * {@link Step} that always returns the same immutable value.
+     */
+    private static final class ConstantStep
+        implements Step
+    {
+        private final Object constant;
+
+        ConstantStep( final Object constant )
+        {
+            this.constant = constant;
+        }
+
+        public Object create()
+        {
+            return constant;
+        }
+    }
+
+    /**
+     * {@link Step} that converts text using a pre-matched {@link TypeConverter} or the type's constructor.
+     */
+    private static final class TextStep
+        implements Step
+    {
+        private final String text;
+
+        private final TypeLiteral<?> toType;
+
+        private final TypeConverter converter;
+
+        TextStep( final String text, final TypeLiteral<?> toType, final TypeConverter converter )
+        {
+            this.text = text;
+            this.toType = toType;
+            this.converter = converter;
+        }
+
+        public Object create()
+        {
+            if ( null != converter )
+            {
+                return converter.convert( text, toType );
+            }
+            final Class<?> rawType = toType.getRawType();
+            return text.length() == 0 ? newImplementation( rawType ) : newImplementation( rawType, text );
+        }
+    }
+
+    /**
+     * {@link Step} that copies a parsed {@link Xpp3Dom} tree.
+     */
+    private static final class Xpp3DomStep
+        implements Step
+    {
+        private final Xpp3Dom dom;
+
+        Xpp3DomStep( final Xpp3Dom dom )
+        {
+            this.dom = dom;
+        }
+
+        public Object create()
+        {
+            return new Xpp3Dom( dom );
+        }
+    }
+
+    /**
+     * {@link Step} that fills in a new {@link Properties} instance.
+     */
+    private static final class PropertiesStep
+        implements Step
+    {
+        private final Class<?> clazz;
+
+        private final String[] namesAndValues;
+
+        PropertiesStep( final Class<?> clazz, final String[] namesAndValues )
+        {
+            this.clazz = clazz;
+            this.namesAndValues = namesAndValues;
+        }
+
+        public Object create()
+        {
+            final Properties properties = (Properties) newImplementation( clazz );
+            for ( int i = 0; i < namesAndValues.length; i += 2 )
+            {
+                properties.put( namesAndValues[i], namesAndValues[i + 1] );
+            }
+            return properties;
+        }
+    }
+
+    /**
+     * {@link Step} that fills in a new {@link Map} instance.
+     */
+    private static final class MapStep
+        implements Step
+    {
+        private final Class<?> clazz;
+
+        private final String[] keys;
+
+        private final Step[] values;
+
+        MapStep( final Class<?> clazz, final String[] keys, final Step[] values )
+        {
+            this.clazz = clazz;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        public Object create()
+            throws Exception
+        {
+            @SuppressWarnings( "unchecked" )
+            final Map<String, Object> map = (Map<String, Object>) newImplementation( clazz );
+            for ( int i = 0; i < keys.length; i++ )
+            {
+                map.put( keys[i], values[i].create() );
+            }
+            return map;
+        }
+    }
+
+    /**
+     * {@link Step} that fills in a new {@link Collection} instance.
+     */
+    private static final class CollectionStep
+        implements Step
+    {
+        private final Class<?> clazz;
+
+        private final Step[] elements;
+
+        CollectionStep( final Class<?> clazz, final Step[] elements )
+        {
+            this.clazz = clazz;
+            this.elements = elements;
+        }
+
+        public Collection<Object> create()
+            throws Exception
+        {
+            @SuppressWarnings( "unchecked" )
+            final Collection<Object> collection = (Collection<Object>) newImplementation( clazz );
+            for ( final Step e : elements )
+            {
+                collection.add( e.create() );
+            }
+            return collection;
+        }
+    }
+
+    /**
+     * {@link Step} that creates a new array from its compiled collection.
+     */
+    private static final class ArrayStep
+        implements Step
+    {
+        private final Class<?> componentType;
+
+        private final CollectionStep collection;
+
+        ArrayStep( final Class<?> componentType, final CollectionStep collection )
+        {
+            this.componentType = componentType;
+            this.collection = collection;
+        }
+
+        public Object create()
+            throws Exception
+        {
+            final Collection<?> elements = collection.create();
+            final Object array = Array.newInstance( componentType, elements.size() );
+
+            int i = 0;
+            for ( final Object element : elements )
+            {
+                Array.set( array, i++, element );
+            }
+
+            return array;
+        }
+    }
+
+    /**
+     * {@link Step} that creates a new bean and sets its configured properties.
+     */
+    private static final class BeanStep
+        implements Step
+    {
+        private final Class<?> clazz;
+
+        private final BeanProperty<Object>[] properties;
+
+        private final Step[] values;
+
+        BeanStep( final Class<?> clazz, final BeanProperty<Object>[] properties, final Step[] values )
+        {
+            this.clazz = clazz;
+            this.properties = properties;
+            this.values = values;
+        }
+
+        public Object create()
+            throws Exception
+        {
+            final Object bean = newImplementation( clazz );
+            for ( int i = 0; i < properties.length; i++ )
+            {
+                properties[i].set( bean, values[i].create() );
+            }
+            return bean;
+        }
     }
 }
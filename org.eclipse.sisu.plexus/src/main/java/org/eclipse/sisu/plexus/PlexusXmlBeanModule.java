@@ -39,6 +39,8 @@ public final class PlexusXmlBeanModule
 
     private final boolean root;
 
+    private final boolean parallel;
+
     // ----------------------------------------------------------------------
     // Constructors
     // ----------------------------------------------------------------------
@@ -51,10 +53,25 @@ public final class PlexusXmlBeanModule
      * @param plexusXml The plexus.xml URL
      */
     public PlexusXmlBeanModule( final ClassSpace space, final Map<?, ?> variables, final URL plexusXml )
+    {
+        this( space, variables, plexusXml, false );
+    }
+
+    /**
+     * Creates a bean source that scans all the surrounding class spaces for XML resources.
+     * 
+     * @param space The main class space
+     * @param variables The filter variables
+     * @param plexusXml The plexus.xml URL
+     * @param parallel When {@code true} parse XML resources in parallel
+     */
+    public PlexusXmlBeanModule( final ClassSpace space, final Map<?, ?> variables, final URL plexusXml,
+                                final boolean parallel )
     {
         this.space = space;
         this.variables = variables;
         this.plexusXml = plexusXml;
+        this.parallel = parallel;
         root = true;
     }
 
@@ -65,9 +82,22 @@ public final class PlexusXmlBeanModule
      * @param variables The filter variables
      */
     public PlexusXmlBeanModule( final ClassSpace space, final Map<?, ?> variables )
+    {
+        this( space, variables, false );
+    }
+
+    /**
+     * Creates a bean source that only scans the local class space for XML resources.
+     * 
+     * @param space The local class space
+     * @param variables The filter variables
+     * @param parallel When {@code true} parse XML resources in parallel
+     */
+    public PlexusXmlBeanModule( final ClassSpace space, final Map<?, ?> variables, final boolean parallel )
     {
         this.space = space;
         this.variables = variables;
+        this.parallel = parallel;
         plexusXml = null;
         root = false;
     }
@@ -82,7 +112,7 @@ public final class PlexusXmlBeanModule
 
         final PlexusTypeBinder plexusTypeBinder = new PlexusTypeBinder( binder );
         final Map<String, PlexusBeanMetadata> metadataMap = new HashMap<String, PlexusBeanMetadata>();
-        final PlexusXmlScanner scanner = new PlexusXmlScanner( variables, plexusXml, metadataMap );
+        final PlexusXmlScanner scanner = new PlexusXmlScanner( variables, plexusXml, metadataMap, parallel );
 
         final String source = space.toString();
         for ( final Entry<Component, DeferredClass<?>> entry : scanner.scan( space, root ).entrySet() )
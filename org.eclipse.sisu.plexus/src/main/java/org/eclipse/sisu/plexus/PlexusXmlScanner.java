@@ -15,10 +15,16 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Configuration;
@@ -49,6 +55,8 @@ final class PlexusXmlScanner
 
     private final Map<String, PlexusBeanMetadata> metadata;
 
+    private final boolean parallel;
+
     // ----------------------------------------------------------------------
     // Constructors
     // ----------------------------------------------------------------------
@@ -61,10 +69,25 @@ final class PlexusXmlScanner
      * @param metadata The metadata map
      */
     PlexusXmlScanner( final Map<?, ?> variables, final URL plexusXml, final Map<String, PlexusBeanMetadata> metadata )
+    {
+        this( variables, plexusXml, metadata, false );
+    }
+
+    /**
+     * Creates an XML scanner that also accumulates Plexus bean metadata in the given map.
+     * 
+     * @param variables The filter variables
+     * @param plexusXml The plexus.xml URL
+     * @param metadata The metadata map
+     * @param parallel When {@code true} parse components.xml resources in parallel
+     */
+    PlexusXmlScanner( final Map<?, ?> variables, final URL plexusXml, final Map<String, PlexusBeanMetadata> metadata,
+                      final boolean parallel )
     {
         this.variables = variables;
         this.plexusXml = plexusXml;
         this.metadata = metadata;
+        this.parallel = parallel;
     }
 
     // ----------------------------------------------------------------------
@@ -80,17 +103,45 @@ final class PlexusXmlScanner
         }
 
         final Enumeration<URL> e;
+        final Map<String, URL> indexes;
         if ( root )
         {
             e = space.getResources( "META-INF/plexus/components.xml" );
+            indexes = indexesByLocation( space.getResources( PlexusComponentIndex.INDEX_PATH ) );
         }
         else
         {
             e = space.findEntries( "META-INF/plexus", "components.xml", false );
+            indexes = indexesByLocation( space.findEntries( "META-INF/plexus", PlexusComponentIndex.INDEX_NAME, false ) );
         }
-        while ( e.hasMoreElements() )
+        if ( parallel )
+        {
+            // load each resource on the fork-join pool, but register results in resource order
+            final List<ForkJoinTask<List<ComponentEntry>>> tasks = new ArrayList<ForkJoinTask<List<ComponentEntry>>>();
+            while ( e.hasMoreElements() )
+            {
+                final URL url = e.nextElement();
+                final URL index = indexes.get( location( url ) );
+                tasks.add( ForkJoinPool.commonPool().submit( new Callable<List<ComponentEntry>>()
+                {
+                    public List<ComponentEntry> call()
+                    {
+                        return loadComponents( url, index );
+                    }
+                } ) );
+            }
+            for ( final ForkJoinTask<List<ComponentEntry>> task : tasks )
+            {
+                registerComponents( task.join(), registry );
+            }
+        }
+        else
         {
-            parseComponentsXml( e.nextElement(), registry );
+            while ( e.hasMoreElements() )
+            {
+                final URL url = e.nextElement();
+                registerComponents( loadComponents( url, indexes.get( location( url ) ) ), registry );
+            }
         }
 
         return registry.getComponents();
@@ -118,6 +169,36 @@ final class PlexusXmlScanner
         return reader;
     }
 
+    /**
+     * Maps each component index to the location of the resources it was generated from.
+     * 
+     * @param e The index URLs
+     * @return Map of location -> index URL
+     */
+    private static Map<String, URL> indexesByLocation( final Enumeration<URL> e )
+    {
+        if ( !e.hasMoreElements() )
+        {
+            return Collections.emptyMap();
+        }
+        final Map<String, URL> indexes = new HashMap<String, URL>();
+        while ( e.hasMoreElements() )
+        {
+            final URL index = e.nextElement();
+            indexes.put( location( index ), index );
+        }
+        return indexes;
+    }
+
+    /**
+     * @return Location of the given resource, minus its name
+     */
+    private static String location( final URL url )
+    {
+        final String path = url.toString();
+        return path.substring( 0, path.lastIndexOf( '/' ) + 1 );
+    }
+
     /**
      * Parses a {@code plexus.xml} resource into load-on-start settings and Plexus bean metadata.
      * 
@@ -151,7 +232,7 @@ final class PlexusXmlScanner
                     {
                         while ( parser.nextTag() == XmlPullParser.START_TAG )
                         {
-                            parseComponent( parser, registry );
+                            registerComponent( parseComponent( parser ), registry );
                         }
                     }
                     else
@@ -172,40 +253,67 @@ final class PlexusXmlScanner
     }
 
     /**
-     * Parses a {@code components.xml} resource into a series of Plexus bean metadata.
+     * Loads Plexus components from the given {@code components.xml} resource, preferring the pre-parsed index.
      * 
      * @param url The components.xml URL
-     * @param registry The parsed components
+     * @param index The components.idx URL; {@code null} if there is no index
+     * @return The loaded components
      */
-    private void parseComponentsXml( final URL url, final PlexusTypeRegistry registry )
+    private List<ComponentEntry> loadComponents( final URL url, final URL index )
     {
-        try
+        if ( null != index )
         {
-            final InputStream in = Streams.open( url );
             try
             {
-                final MXParser parser = new MXParser();
-                parser.setInput( filteredXmlReader( in, variables ) );
-
-                parser.nextTag();
-                parser.require( XmlPullParser.START_TAG, null, null ); // this may be <component-set> or <plexus>
-                parser.nextTag();
-                parser.require( XmlPullParser.START_TAG, null, "components" );
-
-                while ( parser.nextTag() == XmlPullParser.START_TAG )
-                {
-                    parseComponent( parser, registry );
-                }
+                return PlexusComponentIndex.read( index, url );
             }
-            finally
+            catch ( final Exception e )
             {
-                IOUtil.close( in );
+                Logs.trace( "Problem reading: {}", index, e );
             }
         }
+        final List<ComponentEntry> components = new ArrayList<ComponentEntry>();
+        try
+        {
+            parseComponentsXml( url, variables, components );
+        }
         catch ( final Exception e )
         {
             Logs.trace( "Problem parsing: {}", url, e );
         }
+        return components;
+    }
+
+    /**
+     * Parses a {@code components.xml} resource into a series of Plexus component entries.
+     * 
+     * @param url The components.xml URL
+     * @param variables The filter variables
+     * @param components The parsed components; may be incomplete if there was a problem parsing the resource
+     */
+    static void parseComponentsXml( final URL url, final Map<?, ?> variables, final List<ComponentEntry> components )
+        throws IOException, XmlPullParserException
+    {
+        final InputStream in = Streams.open( url );
+        try
+        {
+            final MXParser parser = new MXParser();
+            parser.setInput( filteredXmlReader( in, variables ) );
+
+            parser.nextTag();
+            parser.require( XmlPullParser.START_TAG, null, null ); // this may be <component-set> or <plexus>
+            parser.nextTag();
+            parser.require( XmlPullParser.START_TAG, null, "components" );
+
+            while ( parser.nextTag() == XmlPullParser.START_TAG )
+            {
+                components.add( parseComponent( parser ) );
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
     }
 
     /**
@@ -252,24 +360,15 @@ final class PlexusXmlScanner
     }
 
     /**
-     * Parses a &lt;component&gt; XML stanza into a deferred implementation, configuration, and requirements.
+     * Parses a &lt;component&gt; XML stanza into an implementation, configuration, and requirements.
      * 
      * @param parser The XML parser
-     * @param registry The parsed components
+     * @return The parsed component
      */
-    private void parseComponent( final MXParser parser, final PlexusTypeRegistry registry )
+    private static ComponentEntry parseComponent( final MXParser parser )
         throws XmlPullParserException, IOException
     {
-        String role = null;
-        String hint = "";
-        String instantiationStrategy = Strategies.SINGLETON;
-        String description = "";
-
-        String implementation = null;
-
-        final Map<String, Requirement> requirementMap = new HashMap<String, Requirement>();
-        final Map<String, Configuration> configurationMap = new HashMap<String, Configuration>();
-        final ClassSpace space = registry.getSpace();
+        final ComponentEntry component = new ComponentEntry();
 
         parser.require( XmlPullParser.START_TAG, null, "component" );
 
@@ -280,35 +379,35 @@ final class PlexusXmlScanner
             {
                 while ( parser.nextTag() == XmlPullParser.START_TAG )
                 {
-                    parseRequirement( parser, space, requirementMap );
+                    parseRequirement( parser, component.requirements );
                 }
             }
             else if ( "configuration".equals( name ) )
             {
                 while ( parser.nextTag() == XmlPullParser.START_TAG )
                 {
-                    parseConfiguration( parser, configurationMap );
+                    parseConfiguration( parser, component.configurationMap );
                 }
             }
             else if ( "role".equals( name ) )
             {
-                role = TEXT( parser ).intern();
+                component.role = TEXT( parser ).intern();
             }
             else if ( "role-hint".equals( name ) )
             {
-                hint = TEXT( parser );
+                component.hint = TEXT( parser );
             }
             else if ( "instantiation-strategy".equals( name ) )
             {
-                instantiationStrategy = TEXT( parser ).intern();
+                component.instantiationStrategy = TEXT( parser ).intern();
             }
             else if ( "description".equals( name ) )
             {
-                description = TEXT( parser );
+                component.description = TEXT( parser );
             }
             else if ( "implementation".equals( name ) )
             {
-                implementation = TEXT( parser ).intern();
+                component.implementation = TEXT( parser ).intern();
             }
             else
             {
@@ -316,19 +415,54 @@ final class PlexusXmlScanner
             }
         }
 
-        if ( null == implementation )
+        if ( null == component.implementation )
         {
             throw new XmlPullParserException( "Missing <implementation> element.", parser, null );
         }
-        if ( null == role )
+        if ( null == component.role )
         {
-            role = implementation;
+            component.role = component.implementation;
         }
 
-        implementation = registry.addComponent( role, hint, instantiationStrategy, description, implementation );
+        return component;
+    }
+
+    /**
+     * Registers the given components, in order, with the registry.
+     * 
+     * @param components The loaded components
+     * @param registry The parsed components
+     */
+    private void registerComponents( final List<ComponentEntry> components, final PlexusTypeRegistry registry )
+    {
+        for ( final ComponentEntry component : components )
+        {
+            registerComponent( component, registry );
+        }
+    }
+
+    /**
+     * Registers the given component with the registry and updates the shared Plexus bean metadata.
+     * 
+     * @param component The loaded component
+     * @param registry The parsed components
+     */
+    private void registerComponent( final ComponentEntry component, final PlexusTypeRegistry registry )
+    {
+        final String implementation =
+            registry.addComponent( component.role, component.hint, component.instantiationStrategy,
+                                   component.description, component.implementation );
         if ( null != implementation )
         {
-            updatePlexusBeanMetadata( implementation, configurationMap, requirementMap );
+            final ClassSpace space = registry.getSpace();
+            final Map<String, Requirement> requirementMap = new HashMap<String, Requirement>();
+            for ( final Entry<String, RequirementEntry> e : component.requirements.entrySet() )
+            {
+                final RequirementEntry requirement = e.getValue();
+                requirementMap.put( e.getKey(), new RequirementImpl( space.deferLoadClass( requirement.role ),
+                                                                     requirement.optional, requirement.hints ) );
+            }
+            updatePlexusBeanMetadata( implementation, component.configurationMap, requirementMap );
         }
     }
 
@@ -358,20 +492,17 @@ final class PlexusXmlScanner
     }
 
     /**
-     * Parses a &lt;requirement&gt; XML stanza into a mapping from a field name to a @{@link Requirement}.
+     * Parses a &lt;requirement&gt; XML stanza into a mapping from a field name to a requirement entry.
      * 
      * @param parser The XML parser
-     * @param space The class space
-     * @param requirementMap The field -> @{@link Requirement} map
+     * @param requirements The field -> requirement map
      */
-    private static void parseRequirement( final MXParser parser, final ClassSpace space,
-                                          final Map<String, Requirement> requirementMap )
+    private static void parseRequirement( final MXParser parser, final Map<String, RequirementEntry> requirements )
         throws XmlPullParserException, IOException
     {
-        String role = null;
+        final RequirementEntry requirement = new RequirementEntry();
         final List<String> hintList = new ArrayList<String>();
         String fieldName = null;
-        boolean optional = false;
 
         parser.require( XmlPullParser.START_TAG, null, "requirement" );
 
@@ -380,7 +511,7 @@ final class PlexusXmlScanner
             final String name = parser.getName();
             if ( "role".equals( name ) )
             {
-                role = TEXT( parser ).intern();
+                requirement.role = TEXT( parser ).intern();
             }
             else if ( "role-hint".equals( name ) )
             {
@@ -399,7 +530,7 @@ final class PlexusXmlScanner
             }
             else if ( "optional".equals( name ) )
             {
-                optional = Boolean.parseBoolean( TEXT( parser ) );
+                requirement.optional = Boolean.parseBoolean( TEXT( parser ) );
             }
             else
             {
@@ -407,18 +538,18 @@ final class PlexusXmlScanner
             }
         }
 
-        if ( null == role )
+        if ( null == requirement.role )
         {
             throw new XmlPullParserException( "Missing <role> element.", parser, null );
         }
 
         if ( null == fieldName )
         {
-            fieldName = role; // use fully-qualified role as the field name (see PlexusXmlMetadata)
+            fieldName = requirement.role; // use fully-qualified role as the field name (see PlexusXmlMetadata)
         }
 
-        requirementMap.put( fieldName, new RequirementImpl( space.deferLoadClass( role ), optional,
-                                                            Hints.canonicalHints( hintList ) ) );
+        requirement.hints = Hints.canonicalHints( hintList );
+        requirements.put( fieldName, requirement );
     }
 
     /**
@@ -470,4 +601,40 @@ final class PlexusXmlScanner
     {
         return parser.nextText().trim();
     }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Plexus component loaded from XML or an index, waiting to be registered.
+     */
+    static final class ComponentEntry
+    {
+        String role;
+
+        String hint = "";
+
+        String instantiationStrategy = Strategies.SINGLETON;
+
+        String description = "";
+
+        String implementation;
+
+        final Map<String, RequirementEntry> requirements = new LinkedHashMap<String, RequirementEntry>();
+
+        final Map<String, Configuration> configurationMap = new LinkedHashMap<String, Configuration>();
+    }
+
+    /**
+     * Plexus requirement loaded from XML or an index, waiting to be registered.
+     */
+    static final class RequirementEntry
+    {
+        String role;
+
+        boolean optional;
+
+        List<String> hints;
+    }
 }
@@ -0,0 +1,26 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+/**
+ * Writes a configured value into a bean property.
+ */
+interface PropertyWriter
+{
+    /**
+     * Writes the value into the given bean; failures thrown by a setter are wrapped like {@code Method.invoke}.
+     *
+     * @param bean The bean being configured
+     * @param value The property value
+     */
+    void write( Object bean, Object value )
+        throws Exception;
+}
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+/**
+ * Creates {@link PropertyWriter}s for setters and fields; prefers {@link MethodHandle}s over reflection.
+ * <p>
+ * Handles are resolved once per member, so fields only need to be made accessible the first time they're written.
+ */
+final class PropertyWriters
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    private static final MethodType WRITER_TYPE = MethodType.methodType( void.class, Object.class, Object.class );
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    private PropertyWriters()
+    {
+        // static utility class, not allowed to create instances
+    }
+
+    // ----------------------------------------------------------------------
+    // Utility methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * Creates a writer for the given setter method or field.
+     *
+     * @param member The setter or field
+     * @return Property writer
+     */
+    static PropertyWriter writerFor( final Member member )
+    {
+        if ( member instanceof Method )
+        {
+            final Method setter = (Method) member;
+            try
+            {
+                return new HandleWriter( MethodHandles.lookup().unreflect( setter ), true );
+            }
+            catch ( final Exception e )
+            {
+                return new SetterWriter( setter ); // reflection will report the problem if access is truly denied
+            }
+            catch ( final LinkageError e )
+            {
+                return new SetterWriter( setter );
+            }
+        }
+        final Field field = (Field) member;
+        try
+        {
+            makeAccessible( field );
+            return new HandleWriter( MethodHandles.lookup().unreflectSetter( field ), false );
+        }
+        catch ( final Exception e )
+        {
+            return new FieldWriter( field ); // fall back to reflection, which will retry for accessibility
+        }
+        catch ( final LinkageError e )
+        {
+            return new FieldWriter( field );
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation methods
+    // ----------------------------------------------------------------------
+
+    static void makeAccessible( final Field field )
+    {
+        if ( !field.isAccessible() )
+        {
+            AccessController.doPrivileged( new PrivilegedAction<Void>()
+            {
+                public Void run()
+                {
+                    field.setAccessible( true );
+                    return null;
+                }
+            } );
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * {@link PropertyWriter} backed by a {@link MethodHandle} adapted to {@code (Object,Object)void}.
+     * <p>
+     * Failures are reported like reflection: arguments the member can't accept give {@link IllegalArgumentException},
+     * while anything thrown by the setter itself is wrapped in an {@link InvocationTargetException}.
+     */
+    private static final class HandleWriter
+        implements PropertyWriter
+    {
+        private final MethodHandle handle;
+
+        private final Class<?> beanType;
+
+        private final Class<?> valueType;
+
+        private final boolean isSetter;
+
+        HandleWriter( final MethodHandle handle, final boolean isSetter )
+        {
+            this.handle = handle.asType( WRITER_TYPE );
+            this.beanType = handle.type().parameterType( 0 );
+            this.valueType = handle.type().parameterType( 1 );
+            this.isSetter = isSetter;
+        }
+
+        public void write( final Object bean, final Object value )
+            throws Exception
+        {
+            try
+            {
+                handle.invokeExact( bean, value );
+            }
+            catch ( final Throwable e )
+            {
+                // only checked on failure, to tell adaptation problems apart from problems inside the setter
+                if ( !beanType.isInstance( bean ) || !accepts( valueType, value ) )
+                {
+                    throw new IllegalArgumentException( e.toString(), e );
+                }
+                if ( isSetter )
+                {
+                    throw new InvocationTargetException( e );
+                }
+                throw new IllegalArgumentException( e.toString(), e );
+            }
+        }
+
+        /**
+         * @return {@code true} if reflection would accept the value for the given type; otherwise {@code false}
+         */
+        private static boolean accepts( final Class<?> type, final Object value )
+        {
+            if ( !type.isPrimitive() )
+            {
+                return null == value || type.isInstance( value );
+            }
+            if ( value instanceof Boolean )
+            {
+                return boolean.class == type;
+            }
+            if ( value instanceof Character )
+            {
+                return char.class == type || rank( type ) >= 3;
+            }
+            final int rank = rank( type );
+            if ( value instanceof Byte )
+            {
+                return rank >= 1 && char.class != type;
+            }
+            if ( value instanceof Short )
+            {
+                return rank >= 2 && char.class != type;
+            }
+            if ( value instanceof Integer )
+            {
+                return rank >= 3;
+            }
+            if ( value instanceof Long )
+            {
+                return rank >= 4;
+            }
+            if ( value instanceof Float )
+            {
+                return rank >= 5;
+            }
+            return value instanceof Double && rank >= 6;
+        }
+
+        /**
+         * @return Widening rank of the primitive type; zero for {@code boolean}
+         */
+        private static int rank( final Class<?> type )
+        {
+            if ( byte.class == type )
+            {
+                return 1;
+            }
+            if ( short.class == type || char.class == type )
+            {
+                return 2;
+            }
+            if ( int.class == type )
+            {
+                return 3;
+            }
+            if ( long.class == type )
+            {
+                return 4;
+            }
+            if ( float.class == type )
+            {
+                return 5;
+            }
+            return double.class == type ? 6 : 0;
+        }
+    }
+
+    /**
+     * {@link PropertyWriter} that calls a setter using reflection.
+     */
+    private static final class SetterWriter
+        implements PropertyWriter
+    {
+        private final Method setter;
+
+        SetterWriter( final Method setter )
+        {
+            this.setter = setter;
+        }
+
+        public void write( final Object bean, final Object value )
+            throws Exception
+        {
+            setter.invoke( bean, value );
+        }
+    }
+
+    /**
+     * {@link PropertyWriter} that sets a field using reflection.
+     */
+    private static final class FieldWriter
+        implements PropertyWriter
+    {
+        private final Field field;
+
+        FieldWriter( final Field field )
+        {
+            this.field = field;
+        }
+
+        public void write( final Object bean, final Object value )
+            throws Exception
+        {
+            makeAccessible( field );
+            field.set( bean, value );
+        }
+    }
+}
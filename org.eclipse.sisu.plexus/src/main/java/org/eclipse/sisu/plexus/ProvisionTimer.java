@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.inject.Binder;
+import com.google.inject.Key;
+import com.google.inject.matcher.Matchers;
+import com.google.inject.spi.ProvisionListener;
+
+/**
+ * {@link ProvisionListener} that times Guice provisioning and remembers which bindings are being provisioned.
+ * <p>
+ * Provision listeners were introduced in Guice 4, so this class must only be loaded when they're available.
+ */
+final class ProvisionTimer
+    implements ProvisionListener
+{
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final ThreadLocal<List<Key<?>>> provisioning = new ThreadLocal<List<Key<?>>>()
+    {
+        @Override
+        protected List<Key<?>> initialValue()
+        {
+            return new ArrayList<Key<?>>();
+        }
+    };
+
+    private final PlexusLifecycleManager manager;
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    ProvisionTimer( final PlexusLifecycleManager manager )
+    {
+        this.manager = manager;
+    }
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    public <T> void onProvision( final ProvisionInvocation<T> invocation )
+    {
+        final Key<?> key = invocation.getBinding().getKey();
+        final List<Key<?>> keys = provisioning.get();
+        keys.add( key );
+
+        final long start = System.nanoTime();
+        T bean = null;
+        Throwable problem = null;
+        try
+        {
+            bean = invocation.provision();
+        }
+        catch ( final RuntimeException e )
+        {
+            problem = e;
+            throw e;
+        }
+        catch ( final Error e )
+        {
+            problem = e;
+            throw e;
+        }
+        finally
+        {
+            keys.remove( keys.size() - 1 );
+            manager.provisioned( key, bean, System.nanoTime() - start, problem );
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Local methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * Registers this timer with the given binder.
+     */
+    void bind( final Binder binder )
+    {
+        binder.bindListener( Matchers.any(), this );
+    }
+
+    /**
+     * @return Key currently being provisioned by this thread; {@code null} if there's none
+     */
+    Key<?> currentKey()
+    {
+        final List<Key<?>> keys = provisioning.get();
+        return keys.isEmpty() ? null : keys.get( keys.size() - 1 );
+    }
+
+    /**
+     * @return Number of bindings currently being provisioned by this thread, one inside the other
+     */
+    int depth()
+    {
+        return provisioning.get().size();
+    }
+}
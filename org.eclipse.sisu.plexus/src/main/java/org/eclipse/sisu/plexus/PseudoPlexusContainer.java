@@ -47,6 +47,8 @@ final class PseudoPlexusContainer
 
     final Context context;
 
+    private LookupListener lookupListener;
+
     // ----------------------------------------------------------------------
     // Constructors
     // ----------------------------------------------------------------------
@@ -99,38 +101,74 @@ final class PseudoPlexusContainer
     public <T> T lookup( final Class<T> type, final String role, final String hint )
         throws ComponentLookupException
     {
+        final LookupTrace trace = newLookupTrace();
         try
         {
-            return locate( role, type, hint ).iterator().next().getValue();
+            final T component = locate( role, type, trace, hint ).iterator().next().getValue();
+            if ( null != trace )
+            {
+                trace.finish( LookupEvent.Kind.LOOKUP, null != role ? role : type.getName(), hint, true, null );
+            }
+            return component;
         }
         catch ( final RuntimeException e )
         {
-            throw new ComponentLookupException( e, null != role ? role : type.getName(), hint );
+            final ComponentLookupException problem =
+                new ComponentLookupException( e, null != role ? role : type.getName(), hint );
+            if ( null != trace )
+            {
+                trace.finish( LookupEvent.Kind.LOOKUP, null != role ? role : type.getName(), hint, false, problem );
+            }
+            throw problem;
         }
     }
 
     public List<Object> lookupList( final String role )
         throws ComponentLookupException
     {
-        return new EntryListAdapter<Object>( locate( role, null ) );
+        final LookupTrace trace = newLookupTrace();
+        final List<Object> components = new EntryListAdapter<Object>( locate( role, null, trace ) );
+        if ( null != trace )
+        {
+            trace.finish( LookupEvent.Kind.LOOKUP_LIST, role, null, true, null );
+        }
+        return components;
     }
 
     public <T> List<T> lookupList( final Class<T> role )
         throws ComponentLookupException
     {
-        return new EntryListAdapter<T>( locate( null, role ) );
+        final LookupTrace trace = newLookupTrace();
+        final List<T> components = new EntryListAdapter<T>( locate( null, role, trace ) );
+        if ( null != trace )
+        {
+            trace.finish( LookupEvent.Kind.LOOKUP_LIST, role.getName(), null, true, null );
+        }
+        return components;
     }
 
     public Map<String, Object> lookupMap( final String role )
         throws ComponentLookupException
     {
-        return new EntryMapAdapter<String, Object>( locate( role, null ) );
+        final LookupTrace trace = newLookupTrace();
+        final Map<String, Object> components = new EntryMapAdapter<String, Object>( locate( role, null, trace ) );
+        if ( null != trace )
+        {
+            trace.finish( LookupEvent.Kind.LOOKUP_MAP, role, null, true, null );
+        }
+        return components;
     }
 
     public <T> Map<String, T> lookupMap( final Class<T> role )
         throws ComponentLookupException
     {
-        return new EntryMapAdapter<String, T>( locate( null, role ) );
+        final LookupTrace trace = newLookupTrace();
+        final Map<String, T> components = new EntryMapAdapter<String, T>( locate( null, role, trace ) );
+        if ( null != trace )
+        {
+            trace.finish( LookupEvent.Kind.LOOKUP_MAP, role.getName(), null, true, null );
+        }
+        return components;
     }
 
     // ----------------------------------------------------------------------
@@ -159,7 +197,26 @@ final class PseudoPlexusContainer
 
     public boolean hasComponent( final Class type, final String role, final String hint )
     {
-        return hasPlexusBeans( locate( role, type, hint ) );
+        final LookupTrace trace = newLookupTrace();
+        final boolean found = hasPlexusBeans( locate( role, type, trace, hint ) );
+        if ( null != trace )
+        {
+            trace.finish( LookupEvent.Kind.HAS_COMPONENT, null != role ? role : type.getName(), hint, found, null );
+        }
+        return found;
+    }
+
+    // ----------------------------------------------------------------------
+    // Tracing methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * Traces lookups made through this container, for example with {@link LookupStatistics}.
+     */
+    @com.google.inject.Inject( optional = true )
+    public void setLookupListener( final LookupListener lookupListener )
+    {
+        this.lookupListener = lookupListener;
     }
 
     // ----------------------------------------------------------------------
@@ -275,13 +332,24 @@ final class PseudoPlexusContainer
     // Implementation methods
     // ----------------------------------------------------------------------
 
-    private <T> Iterable<PlexusBean<T>> locate( final String role, final Class<T> type, final String... hints )
+    private LookupTrace newLookupTrace()
+    {
+        final LookupListener listener = lookupListener;
+        return null != listener ? new LookupTrace( listener ) : null;
+    }
+
+    private <T> Iterable<PlexusBean<T>> locate( final String role, final Class<T> type, final LookupTrace trace,
+                                                final String... hints )
     {
         final String[] canonicalHints = Hints.canonicalHints( hints );
         if ( null == role || null != type && type.getName().equals( role ) )
         {
             return locator.locate( TypeLiteral.get( type ), canonicalHints );
         }
+        if ( null != trace )
+        {
+            trace.cacheMiss(); // no lookup cache, role name is always loaded
+        }
         try
         {
             final Class clazz = Thread.currentThread().getContextClassLoader().loadClass( role );
@@ -293,10 +361,18 @@ final class PseudoPlexusContainer
         }
         catch ( final Exception e )
         {
+            if ( null != trace )
+            {
+                trace.failedLoad();
+            }
             // drop through...
         }
         catch ( final LinkageError e )
         {
+            if ( null != trace )
+            {
+                trace.failedLoad();
+            }
             // drop through...
         }
         return Collections.EMPTY_SET;
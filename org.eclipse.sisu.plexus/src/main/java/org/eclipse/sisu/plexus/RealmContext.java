@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.util.concurrent.Callable;
+
+import org.codehaus.plexus.classworlds.realm.ClassRealm;
+
+/**
+ * Immutable set of realms that guide component lookups and configuration; opened as a scope on the current thread.
+ * <p>
+ * Realms left unset fall back to the legacy per-thread state: the container's lookup realm, the thread context class
+ * loader, and so on. Contexts can be captured and explicitly propagated to other threads, such as executor tasks or
+ * virtual threads, without relying on inherited thread state:
+ *
+ * <pre>
+ * final RealmContext context = RealmContext.current().withContextRealm( pluginRealm );
+ * executor.execute( context.wrap( task ) );
+ *
+ * try ( RealmContext.Scope scope = context.open() )
+ * {
+ *     // lookups on this thread now see the plugin realm
+ * }
+ * </pre>
+ */
+public final class RealmContext
+{
+    // ----------------------------------------------------------------------
+    // Constants
+    // ----------------------------------------------------------------------
+
+    private static final RealmContext EMPTY = new RealmContext( null, null, null );
+
+    private static final ThreadLocal<RealmContext> CURRENT = new ThreadLocal<RealmContext>();
+
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final ClassRealm lookupRealm;
+
+    private final ClassRealm contextRealm;
+
+    private final ClassRealm configurationRealm;
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    private RealmContext( final ClassRealm lookupRealm, final ClassRealm contextRealm,
+                          final ClassRealm configurationRealm )
+    {
+        this.lookupRealm = lookupRealm;
+        this.contextRealm = contextRealm;
+        this.configurationRealm = configurationRealm;
+    }
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * @return Context opened on the current thread; an empty context if there is none
+     */
+    public static RealmContext current()
+    {
+        final RealmContext context = CURRENT.get();
+        return null != context ? context : EMPTY;
+    }
+
+    /**
+     * @return Realm used by containers to resolve role names; {@code null} means use the container's lookup realm
+     */
+    public ClassRealm getLookupRealm()
+    {
+        return lookupRealm;
+    }
+
+    /**
+     * @return Realm used to filter visible components; {@code null} means use the thread context class loader
+     */
+    public ClassRealm getContextRealm()
+    {
+        return contextRealm;
+    }
+
+    /**
+     * @return Realm injected into configured {@link ClassRealm} properties; {@code null} if there is none
+     */
+    public ClassRealm getConfigurationRealm()
+    {
+        return configurationRealm;
+    }
+
+    public RealmContext withLookupRealm( final ClassRealm realm )
+    {
+        return new RealmContext( realm, contextRealm, configurationRealm );
+    }
+
+    public RealmContext withContextRealm( final ClassRealm realm )
+    {
+        return new RealmContext( lookupRealm, realm, configurationRealm );
+    }
+
+    public RealmContext withConfigurationRealm( final ClassRealm realm )
+    {
+        return new RealmContext( lookupRealm, contextRealm, realm );
+    }
+
+    /**
+     * Makes this the current context on this thread until the returned scope is closed.
+     *
+     * @return Scope that restores the previous context when closed
+     */
+    public Scope open()
+    {
+        final RealmContext previous = CURRENT.get();
+        CURRENT.set( this );
+        return new Scope( previous );
+    }
+
+    /**
+     * @return Task that runs the given task with this context, on whichever thread it ends up running
+     */
+    public Runnable wrap( final Runnable task )
+    {
+        return new Runnable()
+        {
+            public void run()
+            {
+                final Scope scope = open();
+                try
+                {
+                    task.run();
+                }
+                finally
+                {
+                    scope.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * @return Task that calls the given task with this context, on whichever thread it ends up running
+     */
+    public <V> Callable<V> wrap( final Callable<V> task )
+    {
+        return new Callable<V>()
+        {
+            public V call()
+                throws Exception
+            {
+                final Scope scope = open();
+                try
+                {
+                    return task.call();
+                }
+                finally
+                {
+                    scope.close();
+                }
+            }
+        };
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RealmContext[lookup=" + lookupRealm + ", context=" + contextRealm + ", configuration="
+            + configurationRealm + "]";
+    }
+
+    // ----------------------------------------------------------------------
+    // Public types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Open {@link RealmContext} on the thread that opened it; must be closed by the same thread.
+     */
+    public static final class Scope
+        implements AutoCloseable
+    {
+        private final Thread owner = Thread.currentThread();
+
+        private final RealmContext previous;
+
+        private boolean closed;
+
+        Scope( final RealmContext previous )
+        {
+            this.previous = previous;
+        }
+
+        /**
+         * Restores the context that was current when this scope was opened; closing twice has no effect.
+         */
+        public void close()
+        {
+            if ( Thread.currentThread() != owner )
+            {
+                throw new IllegalStateException( "Scope must be closed by the thread that opened it" );
+            }
+            if ( !closed )
+            {
+                closed = true;
+                if ( null != previous )
+                {
+                    CURRENT.set( previous );
+                }
+                else
+                {
+                    CURRENT.remove(); // don't leave anything behind on pooled or virtual threads
+                }
+            }
+        }
+    }
+}
@@ -49,10 +49,10 @@ final class RealmFilteredBeans<T>
 
     public Iterator<BeanEntry<Named, T>> iterator()
     {
-        final Set<String> realmNames = realmManager.visibleRealmNames( RealmManager.contextRealm() );
-        if ( null != realmNames && realmNames.size() > 0 )
+        final Set<ClassRealm> visibleRealms = realmManager.visibleRealms( RealmManager.contextRealm() );
+        if ( null != visibleRealms && visibleRealms.size() > 0 )
         {
-            return new FilteredItr( realmNames );
+            return new FilteredItr( visibleRealms );
         }
         return beans.iterator();
     }
@@ -62,7 +62,7 @@ final class RealmFilteredBeans<T>
     // ----------------------------------------------------------------------
 
     /**
-     * {@link BeanEntry} iterator that only returns entries visible from the given set of named realms.
+     * {@link BeanEntry} iterator that only returns entries visible from the given set of realms.
      */
     final class FilteredItr
         implements Iterator<BeanEntry<Named, T>>
@@ -73,17 +73,21 @@ final class RealmFilteredBeans<T>
 
         private final Iterator<BeanEntry<Named, T>> itr = beans.iterator();
 
-        private final Set<String> realmNames;
+        private final Set<ClassRealm> visibleRealms;
 
         private BeanEntry<Named, T> nextBean;
 
+        private Object lastSource;
+
+        private boolean lastVisible;
+
         // ----------------------------------------------------------------------
         // Constructors
         // ----------------------------------------------------------------------
 
-        public FilteredItr( final Set<String> realmNames )
+        public FilteredItr( final Set<ClassRealm> visibleRealms )
         {
-            this.realmNames = realmNames;
+            this.visibleRealms = visibleRealms;
         }
 
         // ----------------------------------------------------------------------
@@ -99,8 +103,13 @@ final class RealmFilteredBeans<T>
             while ( itr.hasNext() )
             {
                 nextBean = itr.next();
-                final String source = String.valueOf( nextBean.getSource() );
-                if ( !source.startsWith( "ClassRealm" ) || realmNames.contains( source ) )
+                final Object source = nextBean.getSource();
+                if ( source != lastSource || null == source ) // beans from the same module share their source
+                {
+                    lastVisible = realmManager.isVisible( visibleRealms, source );
+                    lastSource = source;
+                }
+                if ( lastVisible )
                 {
                     return true;
                 }
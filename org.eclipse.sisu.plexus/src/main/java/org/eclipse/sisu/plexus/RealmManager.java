@@ -11,16 +11,22 @@
 package org.eclipse.sisu.plexus;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.codehaus.plexus.classworlds.ClassWorldListener;
 import org.codehaus.plexus.classworlds.realm.ClassRealm;
 import org.eclipse.sisu.inject.InjectorBindings;
 import org.eclipse.sisu.inject.MutableBeanLocator;
+import org.eclipse.sisu.inject.Weak;
 
 import com.google.inject.Injector;
 
@@ -59,16 +65,31 @@ public final class RealmManager
 
     private static final boolean GET_IMPORT_REALMS_SUPPORTED;
 
+    private static final Object UNRESTRICTED_SOURCE = new Object();
+
     // ----------------------------------------------------------------------
     // Implementation fields
     // ----------------------------------------------------------------------
 
-    private final ConcurrentMap<ClassRealm, Set<String>> visibility =
-        new ConcurrentHashMap<ClassRealm, Set<String>>( 16, 0.75f, 1 );
+    private final ConcurrentMap<ClassRealm, Closure> visibility =
+        new ConcurrentHashMap<ClassRealm, Closure>( 16, 0.75f, 1 );
+
+    private final Map<Set<ClassRealm>, Closure> closures = new HashMap<Set<ClassRealm>, Closure>();
+
+    private final Map<ClassRealm, Set<ClassRealm>> dependants = new IdentityHashMap<ClassRealm, Set<ClassRealm>>();
+
+    private final ConcurrentMap<String, ClassRealm> namedRealms =
+        new ConcurrentHashMap<String, ClassRealm>( 16, 0.75f, 1 );
+
+    private final ConcurrentMap<Object, Object> sourceRealms = Weak.concurrentKeys();
 
     private final ConcurrentMap<ClassRealm, Injector> injectors =
         new ConcurrentHashMap<ClassRealm, Injector>( 16, 0.75f, 1 );
 
+    private final ConcurrentMap<Object, Object> lookups = new ConcurrentHashMap<Object, Object>();
+
+    private final AtomicInteger lookupGeneration = new AtomicInteger();
+
     private final MutableBeanLocator beanLocator;
 
     // ----------------------------------------------------------------------
@@ -85,10 +106,15 @@ public final class RealmManager
     // ----------------------------------------------------------------------
 
     /**
-     * @return Current context realm
+     * @return Current context realm; from the open {@link RealmContext}, otherwise the thread context class loader
      */
     public static ClassRealm contextRealm()
     {
+        final ClassRealm scopedRealm = RealmContext.current().getContextRealm();
+        if ( null != scopedRealm )
+        {
+            return scopedRealm;
+        }
         for ( ClassLoader tccl = Thread.currentThread().getContextClassLoader(); tccl != null; tccl = tccl.getParent() )
         {
             if ( tccl instanceof ClassRealm )
@@ -107,16 +133,32 @@ public final class RealmManager
      */
     public Set<String> visibleRealmNames( final ClassRealm contextRealm )
     {
-        if ( GET_IMPORT_REALMS_SUPPORTED && null != contextRealm )
-        {
-            Set<String> names = visibility.get( contextRealm );
-            if ( null == names )
-            {
-                visibility.putIfAbsent( contextRealm, names = computeVisibleNames( contextRealm ) );
-            }
-            return names;
-        }
-        return null;
+        final Closure closure = closure( contextRealm );
+        return null != closure ? closure.names : null;
+    }
+
+    /**
+     * Walks the {@link ClassRealm} import graph to find all realms visible from the given realm.
+     * 
+     * @param contextRealm The initial realm
+     * @return Identity set of all realms visible from the given realm
+     */
+    public Set<ClassRealm> visibleRealms( final ClassRealm contextRealm )
+    {
+        final Closure closure = closure( contextRealm );
+        return null != closure ? closure.realms : null;
+    }
+
+    /**
+     * Notifies the manager that the imports (or parent) of the given realm have changed. Cached visibility of this
+     * realm, and of every realm that can see it, will be recomputed on demand.
+     * 
+     * @param realm The changed realm
+     */
+    public void importsChanged( final ClassRealm realm )
+    {
+        invalidate( realm );
+        flushLookups();
     }
 
     /**
@@ -138,36 +180,184 @@ public final class RealmManager
         injectors.putIfAbsent( realm, injector );
     }
 
+    /**
+     * @return Current lookup generation; changes whenever cached lookups are flushed
+     */
+    public int lookupGeneration()
+    {
+        return lookupGeneration.get();
+    }
+
+    /**
+     * Returns the lookup result previously cached under the given key.
+     * 
+     * @param key The lookup key
+     * @return Cached lookup result; {@code null} if there is no such result
+     */
+    public Object cachedLookup( final Object key )
+    {
+        return lookups.get( key );
+    }
+
+    /**
+     * Caches the given lookup result, unless lookups were flushed since the given generation.
+     * 
+     * @param key The lookup key
+     * @param result The lookup result
+     * @param generation The lookup generation sampled before computing the result
+     */
+    public void cacheLookup( final Object key, final Object result, final int generation )
+    {
+        lookups.put( key, result );
+        if ( generation != lookupGeneration.get() )
+        {
+            lookups.remove( key, result ); // result may be stale
+        }
+    }
+
+    /**
+     * Flushes all cached lookups; should be called whenever bindings are added to or removed from the bean locator.
+     */
+    public void flushLookups()
+    {
+        lookupGeneration.incrementAndGet();
+        lookups.clear();
+    }
+
     public void realmCreated( final ClassRealm realm )
     {
-        // nothing to do
+        flushLookups();
     }
 
     public void realmDisposed( final ClassRealm realm )
     {
-        visibility.remove( realm );
+        invalidate( realm );
+        namedRealms.values().remove( realm );
         final Injector injector = injectors.remove( realm );
         if ( null != injector )
         {
             beanLocator.remove( new InjectorBindings( injector, null /* unused */ ) );
         }
+        flushLookups();
+    }
+
+    /**
+     * Determines whether beans bound from the given source are visible from the given set of realms.
+     * 
+     * @param visibleRealms The visible realms
+     * @param source The binding source
+     * @return {@code true} if the source is visible; otherwise {@code false}
+     */
+    boolean isVisible( final Set<ClassRealm> visibleRealms, final Object source )
+    {
+        if ( null == source )
+        {
+            return true;
+        }
+        if ( source instanceof ClassRealm )
+        {
+            return visibleRealms.contains( source );
+        }
+        Object realm = sourceRealms.get( source );
+        if ( null == realm )
+        {
+            // tag each source once with its owning realm, so later checks are identity based
+            final String name = source.toString();
+            if ( !name.startsWith( "ClassRealm" ) )
+            {
+                realm = UNRESTRICTED_SOURCE;
+            }
+            else if ( null == ( realm = namedRealms.get( name ) ) )
+            {
+                return false; // not yet visible from any known realm
+            }
+            sourceRealms.put( source, realm );
+        }
+        return UNRESTRICTED_SOURCE == realm || visibleRealms.contains( realm );
     }
 
     // ----------------------------------------------------------------------
     // Implementation methods
     // ----------------------------------------------------------------------
 
-    private static Set<String> computeVisibleNames( final ClassRealm forRealm )
+    private Closure closure( final ClassRealm contextRealm )
+    {
+        if ( GET_IMPORT_REALMS_SUPPORTED && null != contextRealm )
+        {
+            final Closure closure = visibility.get( contextRealm );
+            return null != closure ? closure : computeClosure( contextRealm );
+        }
+        return null;
+    }
+
+    private synchronized Closure computeClosure( final ClassRealm contextRealm )
+    {
+        Closure closure = visibility.get( contextRealm );
+        if ( null == closure )
+        {
+            final Set<ClassRealm> visibleRealms = computeVisibleRealms( contextRealm );
+            closure = closures.get( visibleRealms ); // share closures between realms that see the same realms
+            if ( null == closure )
+            {
+                closure = new Closure( visibleRealms );
+                closures.put( closure.realms, closure );
+            }
+            for ( final ClassRealm realm : visibleRealms )
+            {
+                Set<ClassRealm> realmDependants = dependants.get( realm );
+                if ( null == realmDependants )
+                {
+                    realmDependants = Collections.newSetFromMap( new IdentityHashMap<ClassRealm, Boolean>() );
+                    dependants.put( realm, realmDependants );
+                }
+                realmDependants.add( contextRealm );
+            }
+            visibility.put( contextRealm, closure );
+        }
+        return closure;
+    }
+
+    /**
+     * Evicts the cached visibility of the given realm and every realm that can see it.
+     */
+    private synchronized void invalidate( final ClassRealm changedRealm )
+    {
+        final Set<ClassRealm> affectedRealms = dependants.remove( changedRealm );
+        if ( null != affectedRealms )
+        {
+            for ( final ClassRealm contextRealm : affectedRealms )
+            {
+                final Closure closure = visibility.remove( contextRealm );
+                if ( null != closure )
+                {
+                    for ( final ClassRealm realm : closure.realms )
+                    {
+                        final Set<ClassRealm> realmDependants = dependants.get( realm );
+                        if ( null != realmDependants && realmDependants.remove( contextRealm )
+                            && realmDependants.isEmpty() )
+                        {
+                            dependants.remove( realm );
+                        }
+                    }
+                    closures.remove( closure.realms );
+                }
+            }
+        }
+        visibility.remove( changedRealm );
+    }
+
+    private Set<ClassRealm> computeVisibleRealms( final ClassRealm forRealm )
     {
-        final Set<String> visibleRealmNames = new HashSet<String>();
+        final Set<ClassRealm> visibleRealms = Collections.newSetFromMap( new IdentityHashMap<ClassRealm, Boolean>() );
         final List<ClassRealm> searchRealms = new ArrayList<ClassRealm>();
 
         searchRealms.add( forRealm );
         for ( int i = 0; i < searchRealms.size(); i++ )
         {
             final ClassRealm realm = searchRealms.get( i );
-            if ( visibleRealmNames.add( realm.toString() ) )
+            if ( visibleRealms.add( realm ) )
             {
+                namedRealms.put( realm.toString(), realm );
                 searchRealms.addAll( realm.getImportRealms() );
                 final ClassRealm parent = realm.getParentRealm();
                 if ( null != parent )
@@ -176,6 +366,31 @@ public final class RealmManager
                 }
             }
         }
-        return visibleRealmNames;
+        return visibleRealms;
+    }
+
+    // ----------------------------------------------------------------------
+    // Implementation types
+    // ----------------------------------------------------------------------
+
+    /**
+     * Immutable set of realms visible from one or more context realms, along with their names.
+     */
+    private static final class Closure
+    {
+        final Set<ClassRealm> realms;
+
+        final Set<String> names;
+
+        Closure( final Set<ClassRealm> visibleRealms )
+        {
+            final Set<String> visibleNames = new HashSet<String>();
+            for ( final ClassRealm realm : visibleRealms )
+            {
+                visibleNames.add( realm.toString() );
+            }
+            realms = Collections.unmodifiableSet( visibleRealms );
+            names = Collections.unmodifiableSet( visibleNames );
+        }
     }
 }
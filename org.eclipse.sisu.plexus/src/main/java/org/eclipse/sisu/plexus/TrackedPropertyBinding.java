@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import javax.inject.Provider;
+
+import org.eclipse.sisu.bean.BeanProperty;
+import org.eclipse.sisu.bean.PropertyBinding;
+
+/**
+ * Represents a {@link BeanProperty} bound to a requirement {@link Provider}; reports injected requirements to the
+ * {@link PlexusLifecycleManager} so deferred activation can follow them.
+ */
+final class TrackedPropertyBinding<T>
+    implements PropertyBinding
+{
+    // ----------------------------------------------------------------------
+    // Implementation fields
+    // ----------------------------------------------------------------------
+
+    private final PlexusLifecycleManager manager;
+
+    private final BeanProperty<T> property;
+
+    private final Provider<T> provider;
+
+    private final boolean optional;
+
+    // ----------------------------------------------------------------------
+    // Constructors
+    // ----------------------------------------------------------------------
+
+    TrackedPropertyBinding( final PlexusLifecycleManager manager, final BeanProperty<T> property,
+                            final Provider<T> provider, final boolean optional )
+    {
+        this.manager = manager;
+        this.property = property;
+        this.provider = provider;
+        this.optional = optional;
+    }
+
+    // ----------------------------------------------------------------------
+    // Public methods
+    // ----------------------------------------------------------------------
+
+    public <B> void injectProperty( final B bean )
+    {
+        final T requirement;
+        try
+        {
+            requirement = provider.get();
+            property.set( bean, requirement );
+        }
+        catch ( final RuntimeException e )
+        {
+            if ( optional )
+            {
+                return; // binding is optional, ignore failures
+            }
+            throw e;
+        }
+        if ( null != requirement )
+        {
+            manager.addRequirement( bean, requirement );
+        }
+    }
+}
@@ -8,6 +8,8 @@ package org.eclipse.sisu.plexus;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -20,8 +22,10 @@ import java.time.OffsetTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -30,16 +34,34 @@ import org.codehaus.plexus.classworlds.realm.ClassRealm;
 import org.codehaus.plexus.component.configurator.BasicComponentConfigurator;
 import org.codehaus.plexus.component.configurator.ComponentConfigurationException;
 import org.codehaus.plexus.component.configurator.ComponentConfigurator;
+import org.codehaus.plexus.component.configurator.StreamingComponentConfigurator;
+import org.codehaus.plexus.component.configurator.converters.ConfigurationConverter;
+import org.codehaus.plexus.component.configurator.converters.basic.EnumConverter;
+import org.codehaus.plexus.component.configurator.converters.basic.IntConverter;
+import org.codehaus.plexus.component.configurator.converters.basic.StringConverter;
+import org.codehaus.plexus.component.configurator.converters.composite.ObjectWithFieldsConverter;
+import org.codehaus.plexus.component.configurator.converters.lookup.ConverterLookup;
+import org.codehaus.plexus.component.configurator.converters.lookup.DefaultConverterLookup;
 import org.codehaus.plexus.component.configurator.expression.DefaultExpressionEvaluator;
+import org.codehaus.plexus.component.configurator.expression.CachingExpressionEvaluator;
 import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
+import org.codehaus.plexus.component.configurator.expression.TypeAwareExpressionEvaluator;
 import org.codehaus.plexus.configuration.DefaultPlexusConfiguration;
 import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.codehaus.plexus.configuration.xml.XmlPlexusConfiguration;
+import org.codehaus.plexus.configuration.xml.Xpp3DomPlexusConfiguration;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.codehaus.plexus.util.xml.pull.MXParser;
+import org.codehaus.plexus.util.xml.pull.XmlPullParser;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
@@ -151,6 +173,322 @@ public class BasicComponentConfiguratorTest
         assertTrue( complexBean.resources.toString(), complexBean.resources.contains( Resource.newResource( "bar" ) ) );
     }
 
+    @Test
+    public void testRepeatedConfigurationReusesPropertyPlans()
+        throws ComponentConfigurationException
+    {
+        for ( int i = 0; i < 2; i++ )
+        {
+            PlanComponent component = new PlanComponent();
+            configure( component, "name", "plan" + i, "item", "entry" + i, "size", Integer.toString( i ) );
+            assertEquals( "set:plan" + i, component.name );
+            assertEquals( Arrays.asList( "entry" + i ), component.items );
+            assertEquals( i, component.size );
+        }
+
+        CompositeBeanHelper.BeanPlan plan = CompositeBeanHelper.BEAN_PLANS.get( PlanComponent.class );
+        assertSame( plan, CompositeBeanHelper.BEAN_PLANS.get( PlanComponent.class ) );
+        assertSame( plan.property( "name", null ), plan.property( "name", null ) );
+        assertNull( plan.property( "item", null ).field );
+        assertNull( plan.property( "size", null ).setter );
+    }
+
+    @Test
+    public void testConvertersRegisteredLaterAreUsed()
+        throws ComponentConfigurationException
+    {
+        final DefaultConverterLookup lookup = new DefaultConverterLookup();
+        final DefaultPlexusConfiguration config = new DefaultPlexusConfiguration( "testConfig" );
+        config.addChild( "name", "plan" );
+
+        PlanComponent component = new PlanComponent();
+        new ObjectWithFieldsConverter().processConfiguration( lookup, component, null, config, new DefaultExpressionEvaluator() );
+        assertEquals( "set:plan", component.name );
+        assertTrue( lookup.lookupConverterForType( String.class ) instanceof StringConverter );
+        assertTrue( lookup.lookupConverterForType( int.class ) instanceof IntConverter );
+        assertTrue( lookup.lookupConverterForType( Thread.State.class ) instanceof EnumConverter );
+
+        lookup.registerConverter( new StringConverter()
+        {
+            @Override
+            public Object fromString( final String str )
+            {
+                return str.toUpperCase();
+            }
+        } );
+
+        component = new PlanComponent();
+        new ObjectWithFieldsConverter().processConfiguration( lookup, component, null, config, new DefaultExpressionEvaluator() );
+        assertEquals( "set:PLAN", component.name );
+    }
+
+    @Test
+    public void testCustomConverterLookupIsAskedEveryTime()
+        throws ComponentConfigurationException
+    {
+        final DefaultConverterLookup delegate = new DefaultConverterLookup();
+        final ConfigurationConverter[] override = new ConfigurationConverter[1];
+        final ConverterLookup lookup = new ConverterLookup()
+        {
+            public void registerConverter( final ConfigurationConverter converter )
+            {
+                override[0] = converter; // no generation to tell the helper its choice changed
+            }
+
+            public ConfigurationConverter lookupConverterForType( final Class<?> type )
+                throws ComponentConfigurationException
+            {
+                return null != override[0] && override[0].canConvert( type ) ? override[0]
+                                : delegate.lookupConverterForType( type );
+            }
+        };
+        final DefaultPlexusConfiguration config = new DefaultPlexusConfiguration( "testConfig" );
+        config.addChild( "name", "plan" );
+
+        PlanComponent component = new PlanComponent();
+        new ObjectWithFieldsConverter().processConfiguration( lookup, component, null, config, new DefaultExpressionEvaluator() );
+        assertEquals( "set:plan", component.name );
+
+        lookup.registerConverter( new StringConverter()
+        {
+            @Override
+            public Object fromString( final String str )
+            {
+                return str.toUpperCase();
+            }
+        } );
+
+        component = new PlanComponent();
+        new ObjectWithFieldsConverter().processConfiguration( lookup, component, null, config, new DefaultExpressionEvaluator() );
+        assertEquals( "set:PLAN", component.name );
+    }
+
+    @Test
+    public void testXpp3DomView()
+        throws Exception
+    {
+        final Xpp3Dom dom = Xpp3DomBuilder.build( new StringReader(
+            "<testConfig><name>view</name><size>7</size><item>x</item><item kind='b'>y</item></testConfig>" ) );
+        final Xpp3DomPlexusConfiguration config = new Xpp3DomPlexusConfiguration( dom );
+
+        assertEquals( 4, config.getChildCount() );
+        assertSame( config.getChild( 2 ), config.getChild( "item" ) );
+        assertSame( config.getChild( 3 ), config.getChildren( "item" )[1] );
+        assertEquals( "b", config.getChild( 3 ).getAttribute( "kind" ) );
+        assertNull( config.getChild( "missing" ).getValue() );
+        assertEquals( 4, dom.getChildCount() );
+        assertThrows( UnsupportedOperationException.class, () -> config.getChild( 0 ).setValue( "changed" ) );
+        assertEquals( new XmlPlexusConfiguration( dom ).toString(), config.toString() );
+
+        final PlanComponent component = new PlanComponent();
+        configure( component, config );
+        assertEquals( "set:view", component.name );
+        assertEquals( 7, component.size );
+        assertEquals( Arrays.asList( "x", "y" ), component.items );
+    }
+
+    @Test
+    public void testStreamingConfiguration()
+        throws Exception
+    {
+        final StringBuilder xml = new StringBuilder( "<configuration><name>stream</name><includes>" );
+        for ( int i = 0; i < 1000; i++ )
+        {
+            xml.append( "<include>**/*" ).append( i ).append( ".java</include>" );
+        }
+        xml.append( "</includes><mappings><a> 1 </a><b/></mappings><item>x</item><item>y</item></configuration>" );
+
+        final MXParser parser = new MXParser();
+        parser.setInput( new StringReader( xml.toString() ) );
+        final StreamingComponent streamed = new StreamingComponent();
+        new StreamingComponentConfigurator().configureComponent( streamed, parser, new DefaultExpressionEvaluator(),
+                                                                 null, null );
+        assertEquals( XmlPullParser.END_TAG, parser.getEventType() );
+        assertEquals( "configuration", parser.getName() );
+
+        final StreamingComponent basic = new StreamingComponent();
+        configure( basic, new XmlPlexusConfiguration( Xpp3DomBuilder.build( new StringReader( xml.toString() ) ) ) );
+
+        assertEquals( "set:stream", streamed.name );
+        assertEquals( 1000, streamed.includes.size() );
+        assertEquals( "**/*999.java", streamed.includes.get( 999 ) );
+        assertEquals( "1", streamed.mappings.get( "a" ) );
+        assertEquals( Arrays.asList( "x", "y" ), streamed.items );
+        assertEquals( basic.includes, streamed.includes );
+        assertEquals( basic.mappings, streamed.mappings );
+        assertEquals( basic.items, streamed.items );
+    }
+
+    @Test
+    public void testStreamingConfigurationConvertsElementsAsTheyAreRead()
+        throws Exception
+    {
+        final String xml = "<configuration>\n" //
+            + "<includes>\n<include>${first.include}</include>\n<include>b</include>\n</includes>\n" //
+            + "<patterns>\n<pattern>${first.pattern}</pattern>\n<pattern>b</pattern>\n</patterns>\n" //
+            + "<mappings>\n<a>${first.mapping}</a>\n<b>b</b>\n</mappings>\n" //
+            + "</configuration>";
+
+        final MXParser parser = new MXParser();
+        parser.setInput( new StringReader( xml ) );
+        final List<Integer> lines = new ArrayList<>();
+        final ExpressionEvaluator evaluator = new ExpressionEvaluator()
+        {
+            public Object evaluate( String expression )
+            {
+                if ( expression.startsWith( "${first." ) )
+                {
+                    lines.add( Integer.valueOf( parser.getLineNumber() ) );
+                    return "first";
+                }
+                return expression;
+            }
+
+            public File alignToBaseDirectory( File path )
+            {
+                return path;
+            }
+        };
+
+        final StreamingComponent component = new StreamingComponent();
+        new StreamingComponentConfigurator().configureComponent( component, parser, evaluator, null, null );
+
+        // each first element was converted before its siblings were read
+        assertEquals( Arrays.asList( 3, 7, 11 ), lines );
+        assertEquals( Arrays.asList( "first", "b" ), component.includes );
+        assertEquals( Arrays.asList( "first", "b" ), Arrays.asList( component.patterns ) );
+        assertEquals( "first", component.mappings.get( "a" ) );
+        assertEquals( "b", component.mappings.get( "b" ) );
+    }
+
+    @Test
+    public void testStreamingConfigurationReportsBadXml()
+        throws Exception
+    {
+        final MXParser parser = new MXParser();
+        parser.setInput( new StringReader( "<configuration><name>stream</configuration>" ) );
+        assertThrows( ComponentConfigurationException.class,
+                      () -> new StreamingComponentConfigurator().configureComponent( new StreamingComponent(), parser,
+                                                                                     new DefaultExpressionEvaluator(),
+                                                                                     null, null ) );
+    }
+
+    @Test
+    public void testCachingExpressionEvaluator()
+        throws Exception
+    {
+        final List<String> evaluated = new ArrayList<>();
+        final TypeAwareExpressionEvaluator counting = new TypeAwareExpressionEvaluator()
+        {
+            public Object evaluate( String expression )
+            {
+                return evaluate( expression, String.class );
+            }
+
+            public Object evaluate( String expression, Class<?> type )
+            {
+                evaluated.add( expression + ':' + type.getSimpleName() );
+                return expression.replace( "${v}", "value" );
+            }
+
+            public File alignToBaseDirectory( File path )
+            {
+                return path;
+            }
+        };
+
+        final StreamingComponent component = new StreamingComponent();
+        final StringBuilder xml = new StringBuilder( "<configuration><includes>" );
+        for ( int i = 0; i < 100; i++ )
+        {
+            xml.append( "<include>${v}</include><include>literal</include>" );
+        }
+        xml.append( "</includes><item>${v}</item><item>${v}</item></configuration>" );
+        final Xpp3Dom dom = Xpp3DomBuilder.build( new StringReader( xml.toString() ) );
+        configurator.configureComponent( component, new XmlPlexusConfiguration( dom ), counting, null );
+
+        assertEquals( 200, component.includes.size() );
+        assertEquals( "value", component.includes.get( 0 ) );
+        assertEquals( "literal", component.includes.get( 1 ) );
+        assertEquals( Arrays.asList( "value", "value" ), component.items );
+        assertEquals( Arrays.asList( "${v}:String" ), evaluated );
+
+        final Object[] token = { new Object() };
+        final CachingExpressionEvaluator caching = new CachingExpressionEvaluator( counting, () -> token[0] );
+        evaluated.clear();
+        assertEquals( "value", caching.evaluate( "${v}", String.class ) );
+        assertEquals( "value", caching.evaluate( "${v}", String.class ) );
+        assertEquals( "value/x", caching.evaluate( "${v}/x" ) );
+        assertEquals( "plain", caching.evaluate( "plain" ) );
+        assertEquals( Arrays.asList( "${v}:String", "${v}/x:String" ), evaluated );
+        token[0] = new Object();
+        assertEquals( "value", caching.evaluate( "${v}", String.class ) );
+        caching.invalidate();
+        assertEquals( "value", caching.evaluate( "${v}", String.class ) );
+        assertEquals( 4, evaluated.size() );
+        assertSame( caching, CachingExpressionEvaluator.wrap( caching ) );
+    }
+
+    @Test
+    public void testCachingExpressionEvaluatorKeepsDelegateUnescaping()
+        throws Exception
+    {
+        // like Maven's evaluator, which turns $$ into $ in strings that aren't expressions
+        final ExpressionEvaluator unescaping = new ExpressionEvaluator()
+        {
+            public Object evaluate( String expression )
+            {
+                return expression.replace( "$$", "$" );
+            }
+
+            public File alignToBaseDirectory( File path )
+            {
+                return path;
+            }
+        };
+
+        final CachingExpressionEvaluator caching = new CachingExpressionEvaluator( unescaping );
+        assertEquals( "a$b", caching.evaluate( "a$$b" ) );
+        assertEquals( "plain", caching.evaluate( "plain" ) );
+
+        final PlanComponent component = new PlanComponent();
+        final DefaultPlexusConfiguration config = new DefaultPlexusConfiguration( "testConfig" );
+        config.addChild( "name", "a$$b" );
+        configurator.configureComponent( component, config, unescaping, null );
+        assertEquals( "set:a$b", component.name );
+    }
+
+    @Test
+    public void testSetterFailureIsReportedLikeReflection()
+    {
+        ComponentConfigurationException e =
+            assertThrows( ComponentConfigurationException.class,
+                          () -> configure( new PlanComponent(), "broken", "value" ) );
+        assertTrue( e.getCause() instanceof InvocationTargetException );
+        assertEquals( "broken:value", e.getCause().getCause().getMessage() );
+    }
+
+    @Test
+    public void testWriterFailuresAreMappedLikeReflection()
+        throws Exception
+    {
+        final PlanComponent component = new PlanComponent();
+
+        final PropertyWriter castingSetter =
+            PropertyWriters.writerFor( PlanComponent.class.getMethod( "setCasting", String.class ) );
+        InvocationTargetException e1 =
+            assertThrows( InvocationTargetException.class, () -> castingSetter.write( component, "value" ) );
+        assertTrue( e1.getCause() instanceof ClassCastException );
+        assertThrows( IllegalArgumentException.class, () -> castingSetter.write( component, Integer.valueOf( 42 ) ) );
+        assertThrows( IllegalArgumentException.class, () -> castingSetter.write( "notAComponent", "value" ) );
+
+        final PropertyWriter sizeField = PropertyWriters.writerFor( PlanComponent.class.getDeclaredField( "size" ) );
+        sizeField.write( component, Integer.valueOf( 3 ) );
+        assertEquals( 3, component.size );
+        assertThrows( IllegalArgumentException.class, () -> sizeField.write( component, "3" ) );
+        assertThrows( IllegalArgumentException.class, () -> sizeField.write( component, null ) );
+    }
+
     private void configure( Object component, String... keysAndValues )
         throws ComponentConfigurationException
     {
@@ -247,6 +585,58 @@ public class BasicComponentConfiguratorTest
         ZonedDateTime zonedDateTime;
     }
 
+    public static final class PlanComponent
+    {
+        String name;
+
+        final List<String> items = new ArrayList<>();
+
+        private int size;
+
+        public void setName( String name )
+        {
+            this.name = "set:" + name;
+        }
+
+        public void addItem( String item )
+        {
+            items.add( item );
+        }
+
+        public void setBroken( String value )
+        {
+            throw new IllegalStateException( "broken:" + value );
+        }
+
+        public void setCasting( String value )
+        {
+            throw new ClassCastException( "casting:" + value );
+        }
+    }
+
+    public static final class StreamingComponent
+    {
+        String name;
+
+        List<String> includes;
+
+        String[] patterns;
+
+        Map<String, String> mappings;
+
+        final List<String> items = new ArrayList<>();
+
+        public void setName( String name )
+        {
+            this.name = "set:" + name;
+        }
+
+        public void addItem( String item )
+        {
+            items.add( item );
+        }
+    }
+
     static final class ComplexBean
     {
         private List<Resource> resources;
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class LifecycleRegistryTest
+    extends TestCase
+{
+    public void testInsertionOrder()
+    {
+        final LifecycleRegistry<String> registry = new LifecycleRegistry<String>();
+        final String a = "A", b = "B", c = "C", d = "D";
+
+        registry.add( c );
+        registry.add( a );
+        registry.add( d );
+        registry.add( b );
+        registry.add( a ); // keeps original position
+
+        assertTrue( registry.remove( d ) );
+        assertFalse( registry.remove( d ) );
+
+        assertEquals( Arrays.asList( c, a, b ), registry.drain() );
+        assertTrue( registry.isEmpty() );
+        assertTrue( registry.drain().isEmpty() );
+    }
+
+    public void testIdentity()
+    {
+        final LifecycleRegistry<String> registry = new LifecycleRegistry<String>();
+        final String bean = new String( "bean" );
+        final String twin = new String( "bean" );
+
+        registry.add( bean );
+        assertFalse( registry.remove( twin ) );
+        registry.add( twin );
+
+        final List<String> drained = registry.drain();
+        assertEquals( 2, drained.size() );
+        assertSame( bean, drained.get( 0 ) );
+        assertSame( twin, drained.get( 1 ) );
+    }
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.codehaus.plexus.DefaultContainerConfiguration;
+import org.codehaus.plexus.DefaultPlexusContainer;
+import org.codehaus.plexus.classworlds.realm.ClassRealm;
+import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+
+import junit.framework.TestCase;
+
+public class LookupStatisticsTest
+    extends TestCase
+{
+    private ClassLoader origCL;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        origCL = Thread.currentThread().getContextClassLoader();
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        Thread.currentThread().setContextClassLoader( origCL );
+        super.tearDown();
+    }
+
+    public void testLookupStatistics()
+        throws Exception
+    {
+        final String realmId = "child-realm";
+        final String role = "org.eclipse.sisu.plexus.tests.SomeComponent";
+
+        final LookupStatistics statistics = new LookupStatistics();
+        final DefaultPlexusContainer plexus =
+            new DefaultPlexusContainer( new DefaultContainerConfiguration().setLookupListener( statistics ) );
+
+        final ClassRealm realm = plexus.createChildRealm( realmId );
+        realm.addURL( new File( "target/test-classes/component-jar/component-jar-0.1.jar" ).getCanonicalFile().toURI().toURL() );
+        Thread.currentThread().setContextClassLoader( realm );
+        assertFalse( plexus.hasComponent( role ) );
+        assertFalse( plexus.hasComponent( role ) );
+
+        plexus.discoverComponents( realm );
+        assertNotNull( plexus.lookup( role ) );
+        assertNotNull( plexus.lookup( role ) );
+        try
+        {
+            plexus.lookup( "org.eclipse.sisu.plexus.tests.MissingComponent" );
+            fail( "Expected ComponentLookupException" );
+        }
+        catch ( final ComponentLookupException e )
+        {
+            // expected
+        }
+
+        LookupStatistics.RoleStatistics hasComponent = null;
+        LookupStatistics.RoleStatistics lookup = null;
+        for ( final LookupStatistics.RoleStatistics s : statistics.getStatistics() )
+        {
+            if ( role.equals( s.getRole() ) )
+            {
+                if ( LookupEvent.Kind.HAS_COMPONENT == s.getKind() )
+                {
+                    hasComponent = s;
+                }
+                else if ( LookupEvent.Kind.LOOKUP == s.getKind() )
+                {
+                    lookup = s;
+                }
+            }
+        }
+
+        // first query had to load the role from the visible realms, the second used the cache
+        assertEquals( 2, hasComponent.getCount() );
+        assertEquals( 1, hasComponent.getCacheMisses() );
+        assertEquals( 1, hasComponent.getCacheHits() );
+        assertTrue( hasComponent.getFailedLoads() > 0 );
+
+        // discovery flushed the cache
+        assertEquals( 2, lookup.getCount() );
+        assertEquals( 1, lookup.getCacheMisses() );
+        assertEquals( 1, lookup.getCacheHits() );
+        assertEquals( 0, lookup.getFailures() );
+
+        assertEquals( 5, statistics.getLookupCount() );
+        assertEquals( 1, statistics.getFailureCount() );
+
+        final String name = "org.eclipse.sisu.plexus:type=LookupStatistics,name=test";
+        statistics.registerMBean( name );
+        try
+        {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals( Long.valueOf( 5 ), server.getAttribute( new ObjectName( name ), "LookupCount" ) );
+        }
+        finally
+        {
+            statistics.unregisterMBean( name );
+        }
+    }
+}
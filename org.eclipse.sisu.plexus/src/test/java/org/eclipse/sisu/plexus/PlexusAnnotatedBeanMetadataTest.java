@@ -10,15 +10,29 @@
  *******************************************************************************/
 package org.eclipse.sisu.plexus;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
 
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Configuration;
 import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
 import org.eclipse.sisu.bean.BeanProperties;
 import org.eclipse.sisu.bean.BeanProperty;
+import org.eclipse.sisu.inject.DeferredClass;
+import org.eclipse.sisu.space.ClassSpace;
+import org.eclipse.sisu.space.URLClassSpace;
 
 import junit.framework.TestCase;
 
@@ -89,4 +103,90 @@ public class PlexusAnnotatedBeanMetadataTest
         assertEquals( new RequirementImpl( Bean.class, true, "mock" ), requirement1 );
         assertNull( requirement2 );
     }
+
+    public void testScanCache()
+        throws Exception
+    {
+        final File folder = new File( System.getProperty( "java.io.tmpdir" ), "plexus-scan-" + System.nanoTime() );
+        final File jar = new File( folder, "components.jar" );
+        final File cacheDir = new File( folder, "cache" );
+        try
+        {
+            writeJar( jar, Bean.class, ComponentAnnotationTest.DefaultA.class );
+
+            final ClassSpace space =
+                new URLClassSpace( getClass().getClassLoader(), new URL[] { jar.toURI().toURL() } );
+
+            final List<String> scanned = scan( space, cacheDir );
+            assertEquals( 2, scanned.size() );
+            assertTrue( scanned.contains( Bean.class.getName() + '=' + Bean.class.getName() + ':' + Hints.DEFAULT_HINT ) );
+
+            final File[] cacheFiles = cacheDir.listFiles();
+            assertEquals( 1, cacheFiles.length );
+            final long cacheTime = cacheFiles[0].lastModified() - 10000;
+            cacheFiles[0].setLastModified( cacheTime );
+
+            assertEquals( scanned, scan( space, cacheDir ) );
+            assertEquals( cacheTime, cacheFiles[0].lastModified() );
+
+            // touched, but same content
+            jar.setLastModified( jar.lastModified() - 10000 );
+            assertEquals( scanned, scan( space, cacheDir ) );
+
+            // changed content; avoid stale JVM jar caches
+            final URLConnection connection = jar.toURI().toURL().openConnection();
+            connection.setDefaultUseCaches( false );
+            try
+            {
+                writeJar( jar, ComponentAnnotationTest.NamedA.class );
+                assertEquals( Collections.singletonList( ComponentAnnotationTest.NamedA.class.getName() + '='
+                    + ComponentAnnotationTest.A.class.getName() + ":Named" ), scan( space, cacheDir ) );
+            }
+            finally
+            {
+                connection.setDefaultUseCaches( true );
+            }
+        }
+        finally
+        {
+            FileUtils.deleteDirectory( folder );
+        }
+    }
+
+    private static List<String> scan( final ClassSpace space, final File cacheDir )
+    {
+        final List<String> scanned = new ArrayList<String>();
+        new PlexusScanCache( cacheDir ).scan( space, true, new PlexusTypeListener()
+        {
+            public void hear( final Class<?> qualifiedType, final Object source )
+            {
+                scanned.add( qualifiedType.getName() );
+            }
+
+            public void hear( final Component component, final DeferredClass<?> clazz, final Object source )
+            {
+                assertEquals( space.toString(), source );
+                scanned.add( clazz.getName() + '=' + component.role().getName() + ':' + component.hint() );
+            }
+        } );
+        return scanned;
+    }
+
+    private static void writeJar( final File jar, final Class<?>... classes )
+        throws Exception
+    {
+        jar.getParentFile().mkdirs();
+        try ( JarOutputStream out = new JarOutputStream( new FileOutputStream( jar ) ) )
+        {
+            for ( final Class<?> clazz : classes )
+            {
+                final String name = clazz.getName().replace( '.', '/' ) + ".class";
+                out.putNextEntry( new ZipEntry( name ) );
+                try ( InputStream in = clazz.getClassLoader().getResourceAsStream( name ) )
+                {
+                    IOUtil.copy( in, out );
+                }
+            }
+        }
+    }
 }
@@ -10,13 +10,18 @@
  *******************************************************************************/
 package org.eclipse.sisu.plexus;
 
+import java.lang.annotation.Annotation;
 import java.util.Iterator;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.codehaus.plexus.classworlds.ClassWorld;
 import org.codehaus.plexus.classworlds.ClassWorldException;
 import org.codehaus.plexus.classworlds.realm.DuplicateRealmException;
 import org.codehaus.plexus.classworlds.realm.NoSuchRealmException;
+import org.eclipse.sisu.BeanEntry;
+import org.eclipse.sisu.Mediator;
+import org.eclipse.sisu.inject.BeanLocator;
 import org.eclipse.sisu.inject.DefaultBeanLocator;
 import org.eclipse.sisu.inject.DefaultRankingFunction;
 import org.eclipse.sisu.inject.InjectorBindings;
@@ -28,6 +33,7 @@ import com.google.inject.Binder;
 import com.google.inject.Guice;
 import com.google.inject.ImplementedBy;
 import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.Provider;
 import com.google.inject.ProvisionException;
@@ -196,6 +202,37 @@ public class PlexusBeanLocatorTest
         assertFalse( i.hasNext() );
     }
 
+    public void testSharedViews()
+    {
+        final MutableBeanLocator locator = new DefaultBeanLocator();
+        final PlexusBeanLocator plexusBeanLocator = new DefaultPlexusBeanLocator( locator );
+
+        final String[] hints = { "M1", "A" };
+        final Iterable<? extends Entry<String, Bean>> roles =
+            plexusBeanLocator.locate( TypeLiteral.get( Bean.class ), hints );
+
+        assertSame( roles, plexusBeanLocator.locate( TypeLiteral.get( Bean.class ), "M1", "A" ) );
+        assertNotSame( roles, plexusBeanLocator.locate( TypeLiteral.get( Bean.class ), "A", "M1" ) );
+        assertNotSame( roles, plexusBeanLocator.locate( TypeLiteral.get( Bean.class ), "M1" ) );
+
+        hints[0] = "Z";
+        assertSame( roles, plexusBeanLocator.locate( TypeLiteral.get( Bean.class ), "M1", "A" ) );
+
+        Iterator<? extends Entry<String, Bean>> i;
+
+        i = roles.iterator();
+        assertTrue( i.next() instanceof MissingPlexusBean<?> );
+        assertTrue( i.next() instanceof MissingPlexusBean<?> );
+
+        publishInjector( locator, parent, 0 );
+        publishInjector( locator, child1, 1 );
+
+        i = roles.iterator();
+        assertEquals( BeanImpl.class, i.next().getValue().getClass() );
+        assertEquals( BeanImpl.class, i.next().getValue().getClass() );
+        assertFalse( i.hasNext() );
+    }
+
     public void testRoleHintLookup()
     {
         final MutableBeanLocator locator = new DefaultBeanLocator();
@@ -314,6 +351,97 @@ public class PlexusBeanLocatorTest
         assertNull( m3.getValue() );
     }
 
+    public void testHintIndex()
+    {
+        final MutableBeanLocator locator = new DefaultBeanLocator();
+        final AtomicInteger scans = new AtomicInteger();
+        final BeanLocator countingLocator = new BeanLocator()
+        {
+            public <Q extends Annotation, T> Iterable<? extends BeanEntry<Q, T>> locate( final Key<T> key )
+            {
+                scans.incrementAndGet();
+                return locator.locate( key );
+            }
+
+            public <Q extends Annotation, T, W> void watch( final Key<T> key, final Mediator<Q, T, W> mediator,
+                                                            final W watcher )
+            {
+                locator.watch( key, mediator, watcher );
+            }
+        };
+
+        final PlexusBeanLocator plexusBeanLocator = new DefaultPlexusBeanLocator( countingLocator );
+        final Iterable<? extends Entry<String, Bean>> roles =
+            plexusBeanLocator.locate( TypeLiteral.get( Bean.class ), "X", "A", "X", "missing" );
+        final Iterable<? extends Entry<String, Bean>> xs = plexusBeanLocator.locate( TypeLiteral.get( Bean.class ), "X" );
+
+        Iterator<? extends Entry<String, Bean>> i;
+
+        i = roles.iterator();
+        assertTrue( i.next() instanceof MissingPlexusBean<?> );
+        assertTrue( i.next() instanceof MissingPlexusBean<?> );
+        assertTrue( i.next() instanceof MissingPlexusBean<?> );
+        assertTrue( i.next() instanceof MissingPlexusBean<?> );
+        assertFalse( i.hasNext() );
+
+        // bindings added after the views were created
+        final Bean lowX = new BeanImpl();
+        final Bean highX = new BeanImpl();
+        final Injector lowInjector = injectorWithX( lowX );
+        final Injector highInjector = injectorWithX( highX );
+        publishInjector( locator, parent, 0 );
+        publishInjector( locator, lowInjector, 1 );
+        publishInjector( locator, highInjector, 5 );
+
+        i = roles.iterator();
+        final Entry<String, Bean> x1 = i.next();
+        assertEquals( "X", x1.getKey() );
+        assertSame( highX, x1.getValue() ); // highest ranked
+        assertEquals( "A", i.next().getKey() );
+        final Entry<String, Bean> x2 = i.next();
+        assertSame( x1.getValue(), x2.getValue() ); // repeated hint maps to the same bean
+        final Entry<String, Bean> missing = i.next();
+        assertTrue( missing instanceof MissingPlexusBean<?> );
+        assertEquals( "missing", missing.getKey() );
+        assertFalse( i.hasNext() );
+
+        i = xs.iterator();
+        assertSame( highX, i.next().getValue() );
+        assertSame( lowX, i.next().getValue() );
+        assertFalse( i.hasNext() );
+
+        // unchanged bindings are served from the index without walking the role again
+        final int scansBefore = scans.get();
+        for ( int n = 0; n < 10; n++ )
+        {
+            roles.iterator();
+            xs.iterator().hasNext();
+        }
+        assertEquals( scansBefore, scans.get() );
+
+        unpublishInjector( locator, highInjector );
+
+        i = roles.iterator();
+        assertSame( lowX, i.next().getValue() );
+        assertEquals( "A", i.next().getKey() );
+        assertSame( lowX, i.next().getValue() );
+        assertTrue( i.next() instanceof MissingPlexusBean<?> );
+        assertFalse( i.hasNext() );
+        assertEquals( scansBefore + 1, scans.get() );
+    }
+
+    private static Injector injectorWithX( final Bean bean )
+    {
+        return Guice.createInjector( new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind( Bean.class ).annotatedWith( Names.named( "X" ) ).toInstance( bean );
+            }
+        } );
+    }
+
     public void testInjectorVisibility()
         throws NoSuchRealmException
     {
@@ -541,6 +669,88 @@ public class PlexusBeanLocatorTest
         assertFalse( i.hasNext() );
     }
 
+    public void testNamedRealmVisibility()
+        throws ClassWorldException
+    {
+        final MutableBeanLocator locator = new DefaultBeanLocator();
+        final ClassWorld world = new ClassWorld();
+
+        final String realmA = world.newRealm( "A" ).toString();
+        final String realmB = world.newRealm( "B" ).toString();
+
+        publishInjector( locator, Guice.createInjector( new Module()
+        {
+            public void configure( final Binder binder )
+            {
+                binder.withSource( realmA ).bind( Bean.class ).annotatedWith( Names.named( "A" ) ).to( BeanImpl.class );
+                binder.withSource( Sources.describe( realmA, "Described" ) ).bind( Bean.class ).annotatedWith( Names.named( "AA" ) ).to( BeanImpl.class );
+                binder.withSource( realmB ).bind( Bean.class ).annotatedWith( Names.named( "B" ) ).to( BeanImpl.class );
+                binder.withSource( "Unrestricted" ).bind( Bean.class ).annotatedWith( Names.named( "!" ) ).to( BeanImpl.class );
+            }
+        } ), 8 );
+
+        final RealmManager realmManager = new RealmManager( locator );
+        final PlexusBeanLocator plexusBeanLocator = new DefaultPlexusBeanLocator( locator, realmManager, "realm" );
+        final Iterable<? extends Entry<String, Bean>> beans = plexusBeanLocator.locate( TypeLiteral.get( Bean.class ) );
+        final Iterable<? extends Entry<String, Bean>> hinted =
+            plexusBeanLocator.locate( TypeLiteral.get( Bean.class ), "B", "A" );
+
+        Iterator<? extends Entry<String, Bean>> i;
+
+        Thread.currentThread().setContextClassLoader( world.getClassRealm( "A" ) );
+
+        i = hinted.iterator();
+        assertTrue( i.next() instanceof MissingPlexusBean<?> );
+        assertFalse( i.next() instanceof MissingPlexusBean<?> );
+        assertFalse( i.hasNext() );
+
+        i = beans.iterator();
+        assertEquals( "A", i.next().getKey() );
+        assertEquals( "AA", i.next().getKey() );
+        assertEquals( "!", i.next().getKey() );
+        assertFalse( i.hasNext() );
+
+        world.getRealm( "B" ).importFrom( "A", "A" );
+
+        Thread.currentThread().setContextClassLoader( world.getClassRealm( "B" ) );
+
+        i = beans.iterator();
+        assertEquals( "A", i.next().getKey() );
+        assertEquals( "AA", i.next().getKey() );
+        assertEquals( "B", i.next().getKey() );
+        assertEquals( "!", i.next().getKey() );
+        assertFalse( i.hasNext() );
+
+        world.getRealm( "A" ).importFrom( "B", "B" );
+
+        Thread.currentThread().setContextClassLoader( world.getClassRealm( "A" ) );
+
+        i = beans.iterator();
+        assertEquals( "A", i.next().getKey() );
+        assertEquals( "AA", i.next().getKey() );
+        assertEquals( "!", i.next().getKey() );
+        assertFalse( i.hasNext() );
+
+        realmManager.importsChanged( world.getRealm( "A" ) );
+
+        i = beans.iterator();
+        assertEquals( "A", i.next().getKey() );
+        assertEquals( "AA", i.next().getKey() );
+        assertEquals( "B", i.next().getKey() );
+        assertEquals( "!", i.next().getKey() );
+        assertFalse( i.hasNext() );
+
+        i = hinted.iterator();
+        assertFalse( i.next() instanceof MissingPlexusBean<?> );
+        assertFalse( i.next() instanceof MissingPlexusBean<?> );
+        assertFalse( i.hasNext() );
+
+        assertSame( realmManager.visibleRealmNames( world.getRealm( "A" ) ),
+                    realmManager.visibleRealmNames( world.getRealm( "B" ) ) );
+
+        Thread.currentThread().setContextClassLoader( null );
+    }
+
     private static void publishInjector( final MutableBeanLocator locator, final Injector injector, final int rank )
     {
         locator.add( new InjectorBindings( injector, new DefaultRankingFunction( rank ) ) );
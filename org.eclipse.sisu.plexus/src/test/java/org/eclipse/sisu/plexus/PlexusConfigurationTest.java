@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.sisu.plexus;
 
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -20,7 +22,12 @@ import javax.inject.Inject;
 
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Configuration;
+import org.codehaus.plexus.component.configurator.BasicComponentConfigurator;
+import org.codehaus.plexus.configuration.CompactPlexusConfiguration;
+import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.codehaus.plexus.configuration.xml.XmlPlexusConfiguration;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
 import org.eclipse.sisu.bean.BeanManager;
 import org.eclipse.sisu.bean.BeanProperty;
 import org.eclipse.sisu.bean.PropertyBinding;
@@ -79,6 +86,8 @@ public class PlexusConfigurationTest
     @Override
     protected void setUp()
     {
+        ComponentManager.SEEN = 0; // each test injects again
+
         Guice.createInjector( new AbstractModule()
         {
             @Override
@@ -148,6 +157,20 @@ public class PlexusConfigurationTest
         Xpp3Dom xml;
     }
 
+    public static class CompactComponent
+    {
+        String name;
+
+        int size;
+
+        final List<String> items = new ArrayList<>();
+
+        public void addItem( final String item )
+        {
+            items.add( item );
+        }
+    }
+
     public void testConfiguration()
     {
         assertEquals( "1", component.a );
@@ -177,6 +200,13 @@ public class PlexusConfigurationTest
         assertEquals( Double.valueOf( 4.0 ), jitComponent.d );
         assertEquals( 5.0, jitComponent.e, 0 );
 
+        // compiled configuration is replayed into fresh values for each instance
+        assertEquals( expectedMap, jitComponent.map );
+        assertNotSame( component.map, jitComponent.map );
+        assertNotSame( component.xmlContainer, jitComponent.xmlContainer );
+        assertNotSame( component.xmlContainer.xml, jitComponent.xmlContainer.xml );
+        assertEquals( component.xmlContainer.xml, jitComponent.xmlContainer.xml );
+
         assertEquals( 2, ComponentManager.SEEN );
 
         try
@@ -190,4 +220,50 @@ public class PlexusConfigurationTest
 
         assertEquals( 2, ComponentManager.SEEN );
     }
+
+    public void testCompactConfiguration()
+        throws Exception
+    {
+        final CompactPlexusConfiguration.Builder builder = CompactPlexusConfiguration.builder( "testConfig" );
+        builder.child( "name", "compact" ).child( "size", "3" );
+        builder.child( "items" ).attribute( "kind", "set" ).attribute( "kind", "list" ) //
+               .child( "item", "a" ).child( "item", "b" );
+        final CompactPlexusConfiguration config = builder.build();
+
+        assertEquals( 3, config.getChildCount() );
+        assertSame( config.getChildren(), config.getChildren() );
+        assertEquals( "list", config.getChild( "items" ).getAttribute( "kind" ) );
+        assertEquals( 1, config.getChild( "items" ).getAttributeNames().length );
+        assertEquals( 2, config.getChild( "items" ).getChildren( "item" ).length );
+        assertSame( config.getChild( "items" ).getChild( 0 ).getName(),
+                    config.getChild( "items" ).getChild( 1 ).getName() );
+        assertNull( config.getChild( "missing", false ) );
+        assertNull( config.getChild( "missing" ).getValue() );
+        assertEquals( 3, config.getChildCount() );
+        try
+        {
+            config.addChild( "extra", "value" );
+            fail( "Expected UnsupportedOperationException" );
+        }
+        catch ( final UnsupportedOperationException e )
+        {
+        }
+
+        final BasicComponentConfigurator configurator = new BasicComponentConfigurator();
+
+        CompactComponent compactComponent = new CompactComponent();
+        configurator.configureComponent( compactComponent, config, null );
+        assertEquals( "compact", compactComponent.name );
+        assertEquals( 3, compactComponent.size );
+
+        final PlexusConfiguration fromDom = XmlPlexusConfiguration.compact( Xpp3DomBuilder.build(
+            new StringReader( "<testConfig><item>x</item><item>y</item></testConfig>" ) ) );
+        compactComponent = new CompactComponent();
+        configurator.configureComponent( compactComponent, fromDom, null );
+        assertEquals( Arrays.asList( "x", "y" ), compactComponent.items );
+
+        assertSame( config, CompactPlexusConfiguration.copyOf( config ) );
+        assertEquals( config.toString(), CompactPlexusConfiguration.copyOf( new XmlPlexusConfiguration(
+            Xpp3DomBuilder.build( new StringReader( config.toString().replace( "\n", "" ) ) ) ) ).toString() );
+    }
 }
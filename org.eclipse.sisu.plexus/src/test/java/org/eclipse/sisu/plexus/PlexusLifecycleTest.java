@@ -10,6 +10,12 @@
  *******************************************************************************/
 package org.eclipse.sisu.plexus;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
@@ -17,9 +23,18 @@ import org.codehaus.plexus.ContainerConfiguration;
 import org.codehaus.plexus.DefaultContainerConfiguration;
 import org.codehaus.plexus.DefaultPlexusContainer;
 import org.codehaus.plexus.PlexusContainer;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.Disposable;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.Initializable;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.InitializationException;
 import org.codehaus.plexus.personality.plexus.lifecycle.phase.Startable;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.StartingException;
+import org.eclipse.sisu.bean.BeanManager;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Scopes;
 
 import junit.framework.TestCase;
 
@@ -107,6 +122,415 @@ public class PlexusLifecycleTest
         assertEquals( "{}", bean.toString() );
     }
 
+    static final CountDownLatch rendezvous = new CountDownLatch( 2 );
+
+    static class ParallelBean
+        implements Startable
+    {
+        volatile boolean started;
+
+        volatile boolean concurrent;
+
+        public void start()
+            throws StartingException
+        {
+            try
+            {
+                rendezvous.countDown();
+                concurrent = rendezvous.await( 5, TimeUnit.SECONDS );
+                started = true;
+            }
+            catch ( final InterruptedException e )
+            {
+                throw new StartingException( "Interrupted", e );
+            }
+        }
+
+        public void stop()
+        {
+            started = false;
+        }
+    }
+
+    @Component( role = IndependentBean.class )
+    static class IndependentBean
+        extends ParallelBean
+    {
+    }
+
+    @Component( role = RequiredBean.class )
+    static class RequiredBean
+        extends ParallelBean
+    {
+    }
+
+    @Component( role = DependentBean.class )
+    static class DependentBean
+        implements Initializable
+    {
+        @Requirement
+        RequiredBean requiredBean;
+
+        boolean requirementStarted;
+
+        public void initialize()
+        {
+            requirementStarted = requiredBean.started;
+        }
+    }
+
+    public void testParallelActivation()
+        throws Exception
+    {
+        if ( !hasProvisionListeners() )
+        {
+            return; // activation stays sequential
+        }
+
+        final ContainerConfiguration config = new DefaultContainerConfiguration();
+        final PlexusContainer container =
+            new DefaultPlexusContainer( config.setComponentActivationThreads( 4 ), new AbstractModule()
+            {
+                @Override
+                protected void configure()
+                {
+                    bind( RequiredBean.class ).asEagerSingleton();
+                    bind( DependentBean.class ).asEagerSingleton();
+                    bind( IndependentBean.class ).asEagerSingleton();
+                }
+            } );
+
+        // independent components started together, while the dependent waited for its requirement
+        final RequiredBean requiredBean = container.lookup( RequiredBean.class );
+        assertTrue( container.lookup( IndependentBean.class ).concurrent );
+        assertTrue( requiredBean.concurrent );
+        assertTrue( container.lookup( DependentBean.class ).requirementStarted );
+
+        container.dispose();
+        assertFalse( requiredBean.started );
+    }
+
+    static class EarlyBean
+        implements Startable
+    {
+        volatile String startThread;
+
+        public void start()
+        {
+            startThread = Thread.currentThread().getName();
+        }
+
+        public void stop()
+        {
+        }
+    }
+
+    @Component( role = LookedUpBean.class )
+    static class LookedUpBean
+        extends EarlyBean
+    {
+    }
+
+    @Component( role = InjectedBean.class )
+    static class InjectedBean
+        extends EarlyBean
+    {
+    }
+
+    @Component( role = LookupBean.class )
+    static class LookupBean
+        implements Initializable
+    {
+        @Requirement
+        PlexusContainer container;
+
+        boolean lookedUpStarted;
+
+        public void initialize()
+            throws InitializationException
+        {
+            try
+            {
+                lookedUpStarted = null != container.lookup( LookedUpBean.class ).startThread;
+            }
+            catch ( final ComponentLookupException e )
+            {
+                throw new InitializationException( e.toString(), e );
+            }
+        }
+    }
+
+    @Component( role = OnDemandBean.class )
+    static class OnDemandBean
+        extends EarlyBean
+    {
+        @Requirement
+        InjectedBean injectedBean;
+
+        boolean injectedStarted;
+
+        @Override
+        public void start()
+        {
+            injectedStarted = null != injectedBean.startThread;
+            super.start();
+        }
+    }
+
+    @Component( role = LoadOnStartBean.class )
+    static class LoadOnStartBean
+        extends EarlyBean
+    {
+        @Requirement
+        LookupBean lookupBean;
+
+        @Requirement
+        OnDemandBean onDemandBean;
+    }
+
+    public void testOnlyLoadOnStartActivationIsDeferred()
+        throws Exception
+    {
+        if ( !hasProvisionListeners() )
+        {
+            return; // activation stays sequential
+        }
+
+        final ContainerConfiguration config = new DefaultContainerConfiguration();
+        final PlexusContainer container =
+            new DefaultPlexusContainer( config.setComponentActivationThreads( 4 ), new AbstractModule()
+            {
+                @Override
+                protected void configure()
+                {
+                    bind( LookedUpBean.class ).asEagerSingleton();
+                    bind( InjectedBean.class ).asEagerSingleton();
+                    bind( LoadOnStartBean.class ).asEagerSingleton();
+                    bind( LookupBean.class ).in( Scopes.SINGLETON );
+                    bind( OnDemandBean.class ).in( Scopes.SINGLETON );
+                }
+            } );
+
+        final String thread = Thread.currentThread().getName();
+        final LoadOnStartBean loadOnStartBean = container.lookup( LoadOnStartBean.class );
+        assertTrue( loadOnStartBean.startThread.startsWith( "plexus-activation-" ) );
+
+        // requirements of load-on-start components are started straight away, as usual
+        final OnDemandBean onDemandBean = loadOnStartBean.onDemandBean;
+        assertEquals( thread, onDemandBean.startThread );
+
+        // deferred components are activated early when they're injected into them, or looked up
+        assertTrue( onDemandBean.injectedStarted );
+        assertEquals( thread, onDemandBean.injectedBean.startThread );
+        assertTrue( loadOnStartBean.lookupBean.lookedUpStarted );
+        assertEquals( thread, container.lookup( LookedUpBean.class ).startThread );
+
+        container.dispose();
+    }
+
+    static final CountDownLatch release = new CountDownLatch( 1 );
+
+    @Component( role = HangingBean.class )
+    static class HangingBean
+        implements Startable
+    {
+        public void start()
+        {
+        }
+
+        public void stop()
+        {
+            try
+            {
+                release.await( 10, TimeUnit.SECONDS );
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Component( role = ServiceBean.class )
+    static class ServiceBean
+        implements Startable
+    {
+        volatile boolean started;
+
+        public void start()
+        {
+            started = true;
+        }
+
+        public void stop()
+        {
+            started = false;
+        }
+    }
+
+    @Component( role = ClientBean.class )
+    static class ClientBean
+        implements Startable
+    {
+        @Requirement
+        ServiceBean serviceBean;
+
+        volatile boolean serviceStartedAtStop;
+
+        public void start()
+        {
+        }
+
+        public void stop()
+        {
+            serviceStartedAtStop = serviceBean.started;
+        }
+    }
+
+    public void testBoundedParallelShutdown()
+        throws Exception
+    {
+        final ContainerConfiguration config = new DefaultContainerConfiguration();
+        config.setComponentShutdownThreads( 4 ).setComponentShutdownTimeout( 200 );
+        final PlexusContainer container = new DefaultPlexusContainer( config, new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind( HangingBean.class ).in( Scopes.SINGLETON );
+                bind( ServiceBean.class ).in( Scopes.SINGLETON );
+                bind( ClientBean.class ).in( Scopes.SINGLETON );
+            }
+        } );
+
+        final HangingBean hangingBean = container.lookup( HangingBean.class );
+        final ClientBean clientBean = container.lookup( ClientBean.class );
+        final ServiceBean serviceBean = clientBean.serviceBean;
+        assertTrue( serviceBean.started );
+        final PlexusLifecycleManager manager = (PlexusLifecycleManager) container.lookup( BeanManager.class );
+
+        // hanging component is left behind, while the client is stopped before its requirement
+        final long start = System.nanoTime();
+        container.dispose();
+        assertTrue( System.nanoTime() - start < TimeUnit.SECONDS.toNanos( 5 ) );
+        assertTrue( clientBean.serviceStartedAtStop );
+        assertFalse( serviceBean.started );
+        assertEquals( Collections.singletonList( hangingBean ), manager.getShutdownStragglers() );
+
+        release.countDown();
+    }
+
+    @Component( role = DisposableBean.class )
+    static class DisposableBean
+        implements Disposable
+    {
+        volatile boolean disposed;
+
+        public void dispose()
+        {
+            disposed = true;
+        }
+    }
+
+    public void testInterruptedParallelShutdown()
+        throws Exception
+    {
+        final ContainerConfiguration config = new DefaultContainerConfiguration();
+        config.setComponentShutdownThreads( 4 );
+        final PlexusContainer container = new DefaultPlexusContainer( config, new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind( ServiceBean.class ).in( Scopes.SINGLETON );
+                bind( ClientBean.class ).in( Scopes.SINGLETON );
+                bind( DisposableBean.class ).in( Scopes.SINGLETON );
+            }
+        } );
+
+        final ClientBean clientBean = container.lookup( ClientBean.class );
+        final DisposableBean disposableBean = container.lookup( DisposableBean.class );
+
+        // interrupting the caller doesn't stop the shutdown half-way, but the interrupt is kept
+        Thread.currentThread().interrupt();
+        container.dispose();
+        assertTrue( Thread.interrupted() );
+        assertTrue( clientBean.serviceStartedAtStop );
+        assertFalse( clientBean.serviceBean.started );
+        assertTrue( disposableBean.disposed );
+    }
+
+    public void testLifecycleTimings()
+        throws Exception
+    {
+        final List<LifecycleEvent> events = new CopyOnWriteArrayList<LifecycleEvent>();
+        final LifecycleTimings timings = new LifecycleTimings();
+
+        final ContainerConfiguration config = new DefaultContainerConfiguration();
+        config.setComponentLifecycleListener( new LifecycleListener()
+        {
+            public void lifecycleEvent( final LifecycleEvent event )
+            {
+                events.add( event );
+                timings.lifecycleEvent( event );
+            }
+        } );
+        final PlexusContainer container = new DefaultPlexusContainer( config, new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind( PlexusBean.class );
+            }
+        } );
+
+        container.lookup( PlexusBean.class );
+        container.dispose();
+
+        final StringBuilder phases = new StringBuilder();
+        for ( final LifecycleEvent event : events )
+        {
+            if ( PlexusBean.class.equals( event.getImplementation() ) )
+            {
+                phases.append( event.getPhase() ).append( ' ' );
+                assertNull( event.getProblem() );
+                assertTrue( event.getDurationNanos() >= 0 );
+                if ( null != event.getRole() )
+                {
+                    assertEquals( PlexusBean.class.getName(), event.getRole() );
+                    assertEquals( Hints.DEFAULT_HINT, event.getHint() );
+                }
+            }
+        }
+        // provisioning includes starting, so is reported afterwards; it's only timed on Guice 4 and later
+        assertTrue( phases.toString(), phases.toString().matches( "START (PROVISION )?STOP " ) );
+
+        int startTimings = 0;
+        for ( final LifecycleTimings.Timing timing : timings.getTimings() )
+        {
+            if ( LifecycleEvent.Phase.START == timing.getPhase()
+                && PlexusBean.class.getName().equals( timing.getImplementation() ) )
+            {
+                assertEquals( 1, timing.getCount() );
+                assertTrue( timing.getPercentileNanos( 99 ) <= timing.getMaxNanos() );
+                startTimings++;
+            }
+        }
+        assertEquals( 1, startTimings );
+    }
+
+    private static boolean hasProvisionListeners()
+    {
+        try
+        {
+            return null != com.google.inject.spi.ProvisionListener.class;
+        }
+        catch ( final LinkageError e )
+        {
+            return false;
+        }
+    }
+
     private static PlexusContainer createContainer( final boolean jsr250 )
         throws Exception
     {
@@ -10,10 +10,17 @@
  *******************************************************************************/
 package org.eclipse.sisu.plexus;
 
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Inject;
 
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.logging.BaseLoggerManager;
+import org.codehaus.plexus.logging.console.AsyncConsoleLoggerManager;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
 import org.eclipse.sisu.bean.BeanManager;
 import org.eclipse.sisu.bean.BeanProperty;
 import org.eclipse.sisu.bean.PropertyBinding;
@@ -105,4 +112,219 @@ public class PlexusLoggingTest
 
         assertEquals( SomeComponent.class.getName(), component.logger.getName() );
     }
+
+    public void testBaseLoggerManager()
+        throws Exception
+    {
+        final BaseLoggerManager loggerManager = new BaseLoggerManager()
+        {
+            @Override
+            protected org.codehaus.plexus.logging.Logger createLogger( final String name )
+            {
+                return new ConsoleLogger( org.codehaus.plexus.logging.Logger.LEVEL_DEBUG, name );
+            }
+        };
+        loggerManager.initialize();
+
+        final org.codehaus.plexus.logging.Logger defaultLogger = loggerManager.getLoggerForComponent( "role" );
+        assertEquals( "role", defaultLogger.getName() );
+        assertSame( defaultLogger, loggerManager.getLoggerForComponent( "role", null ) );
+        assertSame( defaultLogger, loggerManager.getLoggerForComponent( "role", "" ) );
+        assertTrue( defaultLogger.isInfoEnabled() );
+        assertFalse( defaultLogger.isDebugEnabled() );
+
+        final org.codehaus.plexus.logging.Logger hintedLogger = loggerManager.getLoggerForComponent( "role", "hint" );
+        assertEquals( "role:hint", hintedLogger.getName() );
+        assertNotSame( defaultLogger, hintedLogger );
+        assertEquals( 2, loggerManager.getActiveLoggerCount() );
+
+        loggerManager.setThresholds( org.codehaus.plexus.logging.Logger.LEVEL_DEBUG );
+        assertTrue( defaultLogger.isDebugEnabled() );
+        assertTrue( hintedLogger.isDebugEnabled() );
+        assertTrue( loggerManager.getLoggerForComponent( "other" ).isDebugEnabled() );
+
+        loggerManager.returnComponentLogger( "role", "hint" );
+        assertEquals( 2, loggerManager.getActiveLoggerCount() );
+        assertNotSame( hintedLogger, loggerManager.getLoggerForComponent( "role", "hint" ) );
+    }
+
+    public void testAsyncConsoleLoggerManager()
+        throws Exception
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final AsyncConsoleLoggerManager loggerManager =
+            new AsyncConsoleLoggerManager( out, 16, AsyncConsoleLoggerManager.OverflowPolicy.BLOCK );
+
+        final org.codehaus.plexus.logging.Logger logger = loggerManager.getLoggerForComponent( "role" );
+        logger.debug( "hidden" );
+        logger.info( "first" );
+        logger.warn( "second", new IllegalStateException( "oops" ) );
+        loggerManager.flush();
+
+        final String text = out.toString();
+        assertFalse( text.contains( "hidden" ) );
+        assertTrue( text.indexOf( "[INFO] first" ) < text.indexOf( "[WARNING] second" ) );
+        assertTrue( text.contains( "IllegalStateException: oops" ) );
+
+        loggerManager.dispose();
+        logger.error( "third" );
+        assertTrue( out.toString().contains( "[ERROR] third" ) );
+    }
+
+    public void testAsyncConsoleDisposeKeepsMessages()
+        throws Exception
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final AsyncConsoleLoggerManager loggerManager =
+            new AsyncConsoleLoggerManager( out, 64, AsyncConsoleLoggerManager.OverflowPolicy.BLOCK );
+        final org.codehaus.plexus.logging.Logger logger = loggerManager.getLoggerForComponent( "role" );
+
+        final CountDownLatch started = new CountDownLatch( 4 );
+        final Thread[] threads = new Thread[4];
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            threads[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    started.countDown();
+                    for ( int j = 0; j < 500; j++ )
+                    {
+                        logger.info( "message" );
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        // dispose while the threads are still logging
+        assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+        loggerManager.dispose();
+        for ( final Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        final String text = out.toString();
+        int count = 0;
+        for ( int i = text.indexOf( "[INFO] message" ); i >= 0; i = text.indexOf( "[INFO] message", i + 1 ) )
+        {
+            count++;
+        }
+        assertEquals( 2000, count );
+    }
+
+    public void testAsyncConsoleOverflow()
+        throws Exception
+    {
+        final CountDownLatch writing = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final ByteArrayOutputStream out = new ByteArrayOutputStream()
+        {
+            @Override
+            public synchronized void write( final byte[] b, final int off, final int len )
+            {
+                writing.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch ( final InterruptedException e )
+                {
+                    throw new IllegalStateException( e );
+                }
+                super.write( b, off, len );
+            }
+        };
+
+        final AsyncConsoleLoggerManager loggerManager =
+            new AsyncConsoleLoggerManager( out, 2, AsyncConsoleLoggerManager.OverflowPolicy.DROP_DEBUG );
+        loggerManager.setThreshold( "DEBUG" );
+
+        final org.codehaus.plexus.logging.Logger logger = loggerManager.getLoggerForComponent( "role" );
+        logger.debug( "A" );
+        assertTrue( writing.await( 10, TimeUnit.SECONDS ) );
+        logger.debug( "B" );
+        logger.debug( "C" );
+        logger.debug( "D" );
+        logger.debug( "E" );
+        assertEquals( 2, loggerManager.getDroppedCount() );
+
+        release.countDown();
+        loggerManager.flush();
+        loggerManager.dispose();
+
+        final String text = out.toString();
+        assertTrue( text.contains( "[DEBUG] A" ) );
+        assertTrue( text.contains( "[DEBUG] B" ) );
+        assertTrue( text.contains( "[DEBUG] C" ) );
+        assertFalse( text.contains( "[DEBUG] D" ) );
+        assertFalse( text.contains( "[DEBUG] E" ) );
+        assertTrue( text.contains( "dropped 2 message(s)" ) );
+    }
+
+    public void testAsyncConsoleBlockedProducerParks()
+        throws Exception
+    {
+        final CountDownLatch writing = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final ByteArrayOutputStream out = new ByteArrayOutputStream()
+        {
+            @Override
+            public synchronized void write( final byte[] b, final int off, final int len )
+            {
+                writing.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch ( final InterruptedException e )
+                {
+                    throw new IllegalStateException( e );
+                }
+                super.write( b, off, len );
+            }
+        };
+
+        final AsyncConsoleLoggerManager loggerManager =
+            new AsyncConsoleLoggerManager( out, 2, AsyncConsoleLoggerManager.OverflowPolicy.BLOCK );
+        final org.codehaus.plexus.logging.Logger logger = loggerManager.getLoggerForComponent( "role" );
+        logger.info( "A" );
+        assertTrue( writing.await( 10, TimeUnit.SECONDS ) );
+
+        final Thread producer = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                for ( int i = 0; i < 8; i++ )
+                {
+                    logger.info( "B" + i );
+                }
+            }
+        };
+        producer.start();
+
+        // the buffer fills up while the writer is stuck, so the producer should be parked rather than spinning
+        final long deadline = System.currentTimeMillis() + 10000;
+        while ( producer.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 10 );
+        }
+        assertEquals( Thread.State.TIMED_WAITING, producer.getState() );
+        assertTrue( producer.isAlive() );
+
+        release.countDown();
+        producer.join( 10000 );
+        assertFalse( producer.isAlive() );
+        loggerManager.flush();
+        loggerManager.dispose();
+
+        final String text = out.toString();
+        for ( int i = 0; i < 8; i++ )
+        {
+            assertTrue( text.contains( "[INFO] B" + i ) );
+        }
+    }
 }
@@ -10,22 +10,30 @@
  *******************************************************************************/
 package org.eclipse.sisu.plexus;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Modifier;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.util.FileUtils;
 import org.eclipse.sisu.bean.BeanProperty;
 import org.eclipse.sisu.inject.DeferredClass;
 import org.eclipse.sisu.inject.DeferredProvider;
+import org.eclipse.sisu.plexus.PlexusXmlScanner.ComponentEntry;
 import org.eclipse.sisu.space.ClassSpace;
 import org.eclipse.sisu.space.LoadedClass;
 import org.eclipse.sisu.space.URLClassSpace;
@@ -238,6 +246,95 @@ public class PlexusXmlScannerTest
         assertNull( metadata.get( DebugBean.class.getName() ) );
     }
 
+    public void testParallelComponents()
+    {
+        final ClassSpace space = new URLClassSpace( PlexusXmlScannerTest.class.getClassLoader() );
+
+        final Map<String, PlexusBeanMetadata> metadata = new HashMap<String, PlexusBeanMetadata>();
+        final Map<Component, DeferredClass<?>> expected = new PlexusXmlScanner( null, null, null ).scan( space, true );
+        final Map<Component, DeferredClass<?>> actual =
+            new PlexusXmlScanner( null, null, metadata, true ).scan( space, true );
+
+        assertEquals( expected.keySet(), actual.keySet() );
+        for ( final Entry<Component, DeferredClass<?>> e : expected.entrySet() )
+        {
+            assertEquals( e.getValue().getName(), actual.get( e.getKey() ).getName() );
+        }
+
+        assertNotNull( metadata.get( DefaultBean.class.getName() ) );
+        assertNotNull( metadata.get( AnotherBean.class.getName() ) );
+    }
+
+    public void testIndexedComponents()
+        throws Exception
+    {
+        final File folder = new File( System.getProperty( "java.io.tmpdir" ), "plexus-index-" + System.nanoTime() );
+        final File xmlFile = new File( folder, "META-INF/plexus/components.xml" );
+        final File indexFile = new File( folder, "META-INF/plexus/" + PlexusComponentIndex.INDEX_NAME );
+        try
+        {
+            FileUtils.copyURLToFile( getClass().getResource( "/META-INF/plexus/components.xml" ), xmlFile );
+            assertTrue( PlexusComponentIndex.index( xmlFile, indexFile ) );
+
+            final ClassLoader loader = PlexusXmlScannerTest.class.getClassLoader();
+            final ClassSpace space = new URLClassSpace( loader, new URL[] { folder.toURI().toURL() } );
+
+            final Map<String, PlexusBeanMetadata> expectedMetadata = new HashMap<String, PlexusBeanMetadata>();
+            final Map<Component, DeferredClass<?>> expected =
+                new PlexusXmlScanner( null, null, expectedMetadata ).scan( space, false );
+
+            // XML is unchanged, so the index is used instead of parsing
+            final List<ComponentEntry> indexed = PlexusComponentIndex.read( indexFile.toURI().toURL(), //
+                                                                            xmlFile.toURI().toURL() );
+            assertFalse( indexed.isEmpty() );
+
+            final Map<String, PlexusBeanMetadata> actualMetadata = new HashMap<String, PlexusBeanMetadata>();
+            final Map<Component, DeferredClass<?>> actual =
+                new PlexusXmlScanner( null, null, actualMetadata ).scan( space, false );
+
+            assertFalse( expected.isEmpty() );
+            assertEquals( expected.keySet(), actual.keySet() );
+            for ( final Entry<Component, DeferredClass<?>> e : expected.entrySet() )
+            {
+                assertEquals( e.getValue().getName(), actual.get( e.getKey() ).getName() );
+            }
+            assertEquals( expectedMetadata.keySet(), actualMetadata.keySet() );
+
+            final PlexusBeanMetadata metadata = actualMetadata.get( DefaultBean.class.getName() );
+            assertNotNull( metadata );
+            assertEquals( new ConfigurationImpl( "someFieldName",
+                                                 "<some-field-name><item>PRIMARY</item></some-field-name>" ),
+                          metadata.getConfiguration( new NamedProperty( "someFieldName" ) ) );
+            assertEquals( new RequirementImpl( new LoadedClass<Object>( Bean.class ), true,
+                                               Collections.singletonList( "debug" ) ),
+                          metadata.getRequirement( new NamedProperty( "bean", TypeLiteral.get( Bean.class ) ) ) );
+            assertEquals( new RequirementImpl( new LoadedClass<Object>( Bean.class ), false,
+                                               Arrays.asList( Hints.DEFAULT_HINT, "debug" ) ),
+                          metadata.getRequirement( new NamedProperty( "beanMap" ) ) );
+
+            // an index that doesn't match its XML is ignored: only the first component is indexed here
+            final byte[] xml = FileUtils.fileRead( xmlFile, "UTF-8" ).getBytes( "UTF-8" );
+            try ( OutputStream out = new FileOutputStream( indexFile ) )
+            {
+                PlexusComponentIndex.write( indexed.subList( 0, 1 ), xml, out );
+            }
+            assertEquals( 1, new PlexusXmlScanner( null, null, null ).scan( space, false ).size() );
+            FileUtils.fileWrite( xmlFile, "UTF-8", new String( xml, "UTF-8" ) + "\n<!-- changed -->\n" );
+            assertEquals( expected.keySet(), new PlexusXmlScanner( null, null, null ).scan( space, false ).keySet() );
+
+            // XML that needs interpolation is never indexed
+            FileUtils.fileWrite( xmlFile, "UTF-8", "<component-set><description>${name}</description></component-set>" );
+            assertFalse( PlexusComponentIndex.index( xmlFile, new File( folder, "skipped.idx" ) ) );
+            FileUtils.fileWrite( xmlFile, "UTF-16", "<?xml version='1.0' encoding='UTF-16'?>\n"
+                + "<component-set><description>${name}</description></component-set>" );
+            assertFalse( PlexusComponentIndex.index( xmlFile, new File( folder, "skipped.idx" ) ) );
+        }
+        finally
+        {
+            FileUtils.deleteDirectory( folder );
+        }
+    }
+
     static class FixedClassSpace
         implements ClassSpace
     {
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2010-present Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Stuart McCulloch (Sonatype, Inc.) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.sisu.plexus;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.codehaus.plexus.classworlds.ClassWorld;
+import org.codehaus.plexus.classworlds.realm.ClassRealm;
+import org.codehaus.plexus.component.configurator.converters.special.ClassRealmConverter;
+
+import junit.framework.TestCase;
+
+public class RealmContextTest
+    extends TestCase
+{
+    public void testNestedScopes()
+        throws Exception
+    {
+        final ClassWorld world = new ClassWorld();
+
+        final ClassRealm realmA = world.newRealm( "A" );
+        final ClassRealm realmB = world.newRealm( "B" );
+
+        assertNull( RealmContext.current().getContextRealm() );
+
+        final RealmContext.Scope outer = RealmContext.current().withContextRealm( realmA ).open();
+        assertSame( realmA, RealmManager.contextRealm() );
+
+        final RealmContext.Scope inner = RealmContext.current().withLookupRealm( realmB ).open();
+        assertSame( realmA, RealmManager.contextRealm() );
+        assertSame( realmB, RealmContext.current().getLookupRealm() );
+
+        inner.close();
+        inner.close();
+        assertSame( realmA, RealmManager.contextRealm() );
+        assertNull( RealmContext.current().getLookupRealm() );
+
+        outer.close();
+        assertNull( RealmContext.current().getContextRealm() );
+        assertNull( RealmManager.contextRealm() );
+    }
+
+    public void testExplicitPropagation()
+        throws Exception
+    {
+        final ClassWorld world = new ClassWorld();
+
+        final ClassRealm realmA = world.newRealm( "A" );
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            final Callable<ClassRealm> task = new Callable<ClassRealm>()
+            {
+                public ClassRealm call()
+                {
+                    return RealmManager.contextRealm();
+                }
+            };
+
+            final RealmContext context = RealmContext.current().withContextRealm( realmA );
+            assertSame( realmA, executor.submit( context.wrap( task ) ).get() );
+            assertNull( executor.submit( task ).get() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    public void testLegacyConfigurationRealm()
+        throws Exception
+    {
+        final ClassWorld world = new ClassWorld();
+
+        final ClassRealm realmA = world.newRealm( "A" );
+        final ClassRealm realmB = world.newRealm( "B" );
+        final ClassRealm realmC = world.newRealm( "C" );
+
+        final ClassRealmConverter converter = new ClassRealmConverter( realmA );
+
+        final RealmContext.Scope scope = RealmContext.current().withConfigurationRealm( realmB ).open();
+        assertSame( realmB, converter.peekContextRealm() );
+
+        ClassRealmConverter.pushContextRealm( realmC );
+        assertSame( realmC, converter.peekContextRealm() );
+        assertSame( realmC, RealmContext.current().getConfigurationRealm() );
+
+        ClassRealmConverter.popContextRealm();
+        assertSame( realmB, converter.peekContextRealm() );
+
+        scope.close();
+        assertSame( realmA, converter.peekContextRealm() );
+    }
+
+    public void testScopeMustBeClosedByOwner()
+        throws Exception
+    {
+        final RealmContext.Scope scope = RealmContext.current().open();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            executor.submit( new Runnable()
+            {
+                public void run()
+                {
+                    scope.close();
+                }
+            } ).get();
+            fail( "Expected IllegalStateException" );
+        }
+        catch ( final ExecutionException e )
+        {
+            assertTrue( e.getCause() instanceof IllegalStateException );
+        }
+        finally
+        {
+            executor.shutdown();
+            scope.close();
+        }
+    }
+}
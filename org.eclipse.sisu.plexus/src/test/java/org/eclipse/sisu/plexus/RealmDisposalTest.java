@@ -14,6 +14,14 @@ import java.io.File;
 
 import org.codehaus.plexus.DefaultPlexusContainer;
 import org.codehaus.plexus.classworlds.realm.ClassRealm;
+import org.eclipse.sisu.inject.DefaultRankingFunction;
+import org.eclipse.sisu.inject.InjectorBindings;
+import org.eclipse.sisu.inject.MutableBeanLocator;
+
+import com.google.inject.Binder;
+import com.google.inject.Guice;
+import com.google.inject.Module;
+import com.google.inject.name.Names;
 
 import junit.framework.TestCase;
 
@@ -60,6 +68,114 @@ public class RealmDisposalTest
         assertNotNull( plexus.lookup( "org.eclipse.sisu.plexus.tests.SomeComponent" ) );
     }
 
+    public void testCachedRoleLookupsAreFlushed()
+        throws Exception
+    {
+        final String realmId = "child-realm";
+        final String role = "org.eclipse.sisu.plexus.tests.SomeComponent";
+
+        final DefaultPlexusContainer plexus = new DefaultPlexusContainer();
+
+        ClassRealm realm = plexus.createChildRealm( realmId );
+        realm.addURL( new File( "target/test-classes/component-jar/component-jar-0.1.jar" ).getCanonicalFile().toURI().toURL() );
+        Thread.currentThread().setContextClassLoader( realm );
+        assertFalse( plexus.hasComponent( role ) );
+        assertFalse( plexus.hasComponent( role ) );
+
+        plexus.discoverComponents( realm );
+        assertTrue( plexus.hasComponent( role ) );
+        assertSame( plexus.lookup( role ).getClass(), plexus.lookup( role ).getClass() );
+
+        realm.getWorld().disposeRealm( realm.getId() );
+        assertFalse( plexus.hasComponent( role ) );
+
+        realm = plexus.createChildRealm( realmId );
+        realm.addURL( new File( "target/test-classes/component-jar/component-jar-0.1.jar" ).getCanonicalFile().toURI().toURL() );
+        Thread.currentThread().setContextClassLoader( realm );
+        plexus.discoverComponents( realm );
+        assertSame( realm, plexus.lookup( role ).getClass().getClassLoader() );
+    }
+
+    @SuppressWarnings( { "unchecked", "rawtypes" } )
+    public void testCachedRoleLookupsSeeExternalBindings()
+        throws Exception
+    {
+        final String realmId = "child-realm";
+        final String role = "org.eclipse.sisu.plexus.tests.SomeComponent";
+
+        final DefaultPlexusContainer plexus = new DefaultPlexusContainer();
+
+        final ClassRealm realm = plexus.createChildRealm( realmId );
+        realm.addURL( new File( "target/test-classes/component-jar/component-jar-0.1.jar" ).getCanonicalFile().toURI().toURL() );
+        Thread.currentThread().setContextClassLoader( realm );
+        assertFalse( plexus.hasComponent( role ) );
+
+        final Class roleType = realm.loadClass( role );
+        final InjectorBindings bindings = new InjectorBindings( Guice.createInjector( new Module()
+        {
+            public void configure( final Binder binder )
+            {
+                binder.bind( roleType ).annotatedWith( Names.named( "default" ) ).to( roleType );
+            }
+        } ), new DefaultRankingFunction( 0 ) );
+
+        final MutableBeanLocator locator = plexus.lookup( MutableBeanLocator.class );
+        locator.add( bindings );
+        assertTrue( plexus.hasComponent( role ) );
+        assertSame( roleType, plexus.lookup( role ).getClass() );
+
+        locator.remove( bindings );
+        assertFalse( plexus.hasComponent( role ) );
+    }
+
+    @SuppressWarnings( { "unchecked", "rawtypes" } )
+    public void testRoleMissesAreNotCached()
+        throws Exception
+    {
+        final String realmId = "child-realm";
+        final String role = "org.eclipse.sisu.plexus.tests.SomeComponent";
+
+        final DefaultPlexusContainer plexus = new DefaultPlexusContainer();
+
+        final ClassRealm realm = plexus.createChildRealm( realmId );
+        Thread.currentThread().setContextClassLoader( realm );
+        assertFalse( plexus.hasComponent( role ) );
+
+        // role becomes loadable without any discovery to flush the cache
+        realm.addURL( new File( "target/test-classes/component-jar/component-jar-0.1.jar" ).getCanonicalFile().toURI().toURL() );
+        final Class roleType = realm.loadClass( role );
+        plexus.lookup( MutableBeanLocator.class ).add( new InjectorBindings( Guice.createInjector( new Module()
+        {
+            public void configure( final Binder binder )
+            {
+                binder.bind( roleType ).annotatedWith( Names.named( "default" ) ).to( roleType );
+            }
+        } ), new DefaultRankingFunction( 0 ) ) );
+        assertTrue( plexus.hasComponent( role ) );
+        assertSame( roleType, plexus.lookup( role ).getClass() );
+    }
+
+    public void testImportsChangedAfterFirstLookup()
+        throws Exception
+    {
+        final String role = "org.eclipse.sisu.plexus.tests.SomeComponent";
+
+        final DefaultPlexusContainer plexus = new DefaultPlexusContainer();
+
+        final ClassRealm componentRealm = plexus.createChildRealm( "component-realm" );
+        componentRealm.addURL( new File( "target/test-classes/component-jar/component-jar-0.1.jar" ).getCanonicalFile().toURI().toURL() );
+        plexus.discoverComponents( componentRealm );
+
+        final ClassRealm pluginRealm = plexus.createChildRealm( "plugin-realm" );
+        Thread.currentThread().setContextClassLoader( pluginRealm );
+        assertFalse( plexus.hasComponent( role ) );
+
+        pluginRealm.importFrom( componentRealm.getId(), "org.eclipse.sisu.plexus.tests" );
+        plexus.importsChanged( pluginRealm );
+        assertTrue( plexus.hasComponent( role ) );
+        assertSame( componentRealm, plexus.lookup( role ).getClass().getClassLoader() );
+    }
+
     // the point of this disabled test is to manually assert all references to the disposed realms are cleared
     // the test runs create/dispose the same realm 100k times and prints 1k iterations how long it took
     // each 1k are expected to take about the same time to execute (as opposed to always increasing time)